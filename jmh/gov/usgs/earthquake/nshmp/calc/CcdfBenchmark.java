@@ -0,0 +1,70 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static gov.usgs.earthquake.nshmp.gmm.Imt.PGA;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark tabulated and directly computed exceedance models with every
+ * available processor evaluating random ground motions concurrently, as occurs
+ * during a map calculation. {@link ExceedanceModel#TRUNCATION_3SIGMA_UPPER}
+ * reads a shared lookup table whereas
+ * {@link ExceedanceModel#TRUNCATION_UPPER_ONLY} evaluates the error function
+ * for every value.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class CcdfBenchmark {
+
+  private static final int SIZE = 4096;
+  private static final double SIGMA = 0.65;
+  private static final double TRUNCATION = 3.0;
+
+  /* Fixed seed so that inputs are the same in every run. */
+  private static final long SEED = 42L;
+
+  @Param({ "TRUNCATION_3SIGMA_UPPER", "TRUNCATION_3SIGMA_UPPER_ARRAY", "TRUNCATION_UPPER_ONLY" })
+  ExceedanceModel model;
+
+  private double[] means;
+  private double[] values;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(SEED);
+    means = new double[SIZE];
+    values = new double[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      means[i] = -6.0 + 6.0 * random.nextDouble();
+      values[i] = -7.0 + 8.0 * random.nextDouble();
+    }
+  }
+
+  @Benchmark
+  public double exceedance() {
+    double p = 0.0;
+    for (int i = 0; i < SIZE; i++) {
+      p += model.exceedance(means[i], SIGMA, TRUNCATION, PGA, values[i]);
+    }
+    return p;
+  }
+}
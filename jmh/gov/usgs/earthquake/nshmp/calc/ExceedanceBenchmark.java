@@ -0,0 +1,86 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static gov.usgs.earthquake.nshmp.gmm.Imt.PGA;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.primitives.Doubles;
+
+import gov.usgs.earthquake.nshmp.data.XySequence;
+
+/**
+ * Benchmark single value and curve exceedance calculations for every
+ * {@link ExceedanceModel}. Curves are computed over the default {@code PGA}
+ * model curve; ground motions span the curve so that both truncated and
+ * untruncated levels are exercised. The weighted sum of curves is computed with
+ * the sparse, primitive kernels used by hazard calculations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceedanceBenchmark {
+
+  private static final double[] MEANS = { -6.0, -4.0, -2.5, -1.0, 0.0, 0.5 };
+  private static final double SIGMA = 0.65;
+  private static final double TRUNCATION = 3.0;
+
+  /* All models if not otherwise specified. */
+  @Param
+  ExceedanceModel model;
+
+  private XySequence curve;
+  private double[] imls;
+  private double[] sum;
+  private double value;
+
+  @Setup
+  public void setup() {
+    CalcConfig config = CalcConfig.Builder.withDefaults().build();
+    curve = XySequence.copyOf(config.hazard.logModelCurves().get(PGA));
+    imls = Doubles.toArray(curve.xValues());
+    sum = new double[imls.length];
+    value = Math.log(0.1);
+  }
+
+  @Benchmark
+  public XySequence curve() {
+    for (double μ : MEANS) {
+      model.exceedance(μ, SIGMA, TRUNCATION, PGA, curve);
+    }
+    return curve;
+  }
+
+  @Benchmark
+  public double[] curveSum() {
+    Arrays.fill(sum, 0.0);
+    for (double μ : MEANS) {
+      model.addExceedance(μ, SIGMA, TRUNCATION, PGA, imls, 1.0 / MEANS.length, sum);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double value() {
+    double p = 0.0;
+    for (double μ : MEANS) {
+      p += model.exceedance(μ, SIGMA, TRUNCATION, PGA, value);
+    }
+    return p;
+  }
+}
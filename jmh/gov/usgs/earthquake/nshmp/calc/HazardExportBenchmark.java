@@ -0,0 +1,114 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
+
+/**
+ * Benchmark {@link HazardExport#write(Hazard)} of a single site result. Hazard
+ * is computed once using the PEER Set1-Case2-fast model (benchmarks must be run
+ * from the project root) and then repeatedly appended to a new set of result
+ * files in a temporary directory for each iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HazardExportBenchmark {
+
+  private static final Path MODEL = Paths.get("etc/peer/models/Set1-Case2-fast");
+  private static final String SITE = "PEER,-122.0,38.113";
+  private static final Logger LOG = Logger.getLogger(HazardExportBenchmark.class.getName());
+
+  /* Space-delimited DataTypes. */
+  @Param({ "TOTAL", "TOTAL GMM SOURCE", "TOTAL BINARY" })
+  String dataTypes;
+
+  private Path dir;
+  private HazardModel model;
+  private CalcConfig config;
+  private Sites sites;
+  private Hazard hazard;
+  private HazardExport export;
+
+  @Setup
+  public void setup() throws Exception {
+    dir = Files.createTempDirectory("nshmp-jmh");
+    model = HazardModel.load(MODEL);
+
+    Path configPath = dir.resolve(CalcConfig.FILE_NAME);
+    String json = "{ \"output\": { " +
+        "\"directory\": \"" + dir.resolve("hazout").toString().replace('\\', '/') + "\", " +
+        "\"dataTypes\": [\"" + dataTypes.replace(" ", "\", \"") + "\"] } }";
+    Files.write(configPath, json.getBytes(UTF_8));
+    config = CalcConfig.Builder.copyOf(model.config())
+        .extend(CalcConfig.Builder.fromFile(configPath))
+        .build();
+
+    /* Binary export requires map extents, the first of two polygons. */
+    String polygon = "{ \"type\": \"Feature\", \"geometry\": { \"type\": \"Polygon\", " +
+        "\"coordinates\": [[[-122.5, 37.5], [-121.5, 37.5], [-121.5, 38.5], " +
+        "[-122.5, 38.5], [-122.5, 37.5]]] }, " +
+        "\"properties\": { \"spacing\": 0.1, \"title\": \"PEER\" } }";
+    String sitesJson = "{ \"type\": \"FeatureCollection\", \"features\": [ " +
+        polygon + ", " + polygon + " ] }";
+    Path sitesPath = dir.resolve("sites.geojson");
+    Files.write(sitesPath, sitesJson.getBytes(UTF_8));
+    sites = dataTypes.contains("BINARY")
+        ? Sites.fromJson(sitesPath, config)
+        : Sites.fromString(SITE, config);
+
+    Site site = Sites.fromString(SITE, config).iterator().next();
+    hazard = HazardCalcs.hazard(model, config, site, MoreExecutors.directExecutor());
+  }
+
+  @Setup(Level.Iteration)
+  public void createExport() throws IOException {
+    export = HazardExport.create(model, config, sites, LOG);
+  }
+
+  @TearDown(Level.Iteration)
+  public void expireExport() throws IOException {
+    export.expire();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public int write() throws IOException {
+    export.write(hazard);
+    return export.resultCount();
+  }
+}
@@ -0,0 +1,117 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static gov.usgs.earthquake.nshmp.gmm.Gmm.instances;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.usgs.earthquake.nshmp.calc.Transforms.GroundMotionsToCurvesWithUncertainty;
+import gov.usgs.earthquake.nshmp.calc.Transforms.InputsToGroundMotions;
+import gov.usgs.earthquake.nshmp.calc.Transforms.SourceToInputs;
+import gov.usgs.earthquake.nshmp.eq.model.GmmSet;
+import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
+import gov.usgs.earthquake.nshmp.eq.model.Source;
+import gov.usgs.earthquake.nshmp.eq.model.SourceSet;
+import gov.usgs.earthquake.nshmp.gmm.Gmm;
+import gov.usgs.earthquake.nshmp.gmm.GroundMotionModel;
+import gov.usgs.earthquake.nshmp.gmm.Imt;
+
+/**
+ * Benchmark {@link GroundMotionsToCurvesWithUncertainty} for a WUS fault
+ * source. The floating ruptures of the PEER Set1-Case2-fast fault (benchmarks
+ * must be run from the project root) are paired with the NGA-West2 ground
+ * motion models and the additional epistemic uncertainty model of the 2014
+ * WUS NSHM. Ground motions are computed once for a site 10 km from the fault;
+ * only the derivation of hazard curves is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UncertaintyBenchmark {
+
+  private static final Path SOURCE =
+      Paths.get("etc/peer/models/Set1-Case2-fast/Fault/source.xml");
+  private static final String SITE = "PEER,-121.886,38.113";
+
+  private static final String GMM_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+      "<GroundMotionModels>\n" +
+      "  <Uncertainty values=\"[0.375, 0.210, 0.245, 0.230, 0.225, 0.230, " +
+      "0.400, 0.360, 0.310]\" weights=\"[0.185, 0.630, 0.185]\"/>\n" +
+      "  <ModelSet maxDistance=\"300.0\">\n" +
+      "    <Model id=\"ASK_14\" weight=\"0.25\"/>\n" +
+      "    <Model id=\"BSSA_14\" weight=\"0.25\"/>\n" +
+      "    <Model id=\"CB_14\" weight=\"0.25\"/>\n" +
+      "    <Model id=\"CY_14\" weight=\"0.25\"/>\n" +
+      "  </ModelSet>\n" +
+      "</GroundMotionModels>\n";
+
+  @Param({ "TRUNCATION_UPPER_ONLY", "TRUNCATION_3SIGMA_UPPER" })
+  ExceedanceModel exceedanceModel;
+
+  private Path dir;
+  private GroundMotions groundMotions;
+  private GroundMotionsToCurvesWithUncertainty groundMotionsToCurves;
+
+  @Setup
+  public void setup() throws Exception {
+    dir = Files.createTempDirectory("nshmp-jmh");
+    Path faultDir = Files.createDirectories(dir.resolve("Fault"));
+    Files.copy(SOURCE, faultDir.resolve("source.xml"));
+    Files.write(faultDir.resolve("gmm.xml"), GMM_XML.getBytes(UTF_8));
+    String config = "{ \"model\": { \"name\": \"WUS Fault\", \"surfaceSpacing\": 1.0, " +
+        "\"ruptureFloating\": \"ON\", \"ruptureVariability\": false, " +
+        "\"pointSourceType\": \"FINITE\", \"areaGridScaling\": \"UNIFORM_0P01\" }, " +
+        "\"hazard\": { \"exceedanceModel\": \"" + exceedanceModel + "\", " +
+        "\"gmmUncertainty\": true, \"imts\": [\"PGA\", \"SA0P2\", \"SA1P0\"] } }";
+    Files.write(dir.resolve(CalcConfig.FILE_NAME), config.getBytes(UTF_8));
+
+    HazardModel model = HazardModel.load(dir);
+    CalcConfig calcConfig = model.config();
+    SourceSet<? extends Source> sources = model.iterator().next();
+    GmmSet gmmSet = sources.groundMotionModels();
+    Map<Imt, Map<Gmm, GroundMotionModel>> gmmTable = instances(
+        calcConfig.hazard.imts,
+        gmmSet.gmms());
+
+    Site site = Sites.fromString(SITE, calcConfig).iterator().next();
+    Source source = sources.iterator().next();
+    InputList inputs = new SourceToInputs(site).apply(source);
+    groundMotions = new InputsToGroundMotions(calcConfig, gmmTable).apply(inputs);
+    groundMotionsToCurves = new GroundMotionsToCurvesWithUncertainty(gmmSet, calcConfig);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public HazardCurves curves() {
+    return groundMotionsToCurves.apply(groundMotions);
+  }
+}
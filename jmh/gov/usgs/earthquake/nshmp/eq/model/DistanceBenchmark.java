@@ -0,0 +1,64 @@
+package gov.usgs.earthquake.nshmp.eq.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.usgs.earthquake.nshmp.eq.fault.surface.GriddedSurface;
+import gov.usgs.earthquake.nshmp.geo.Location;
+
+/**
+ * Benchmark {@link Distance#compute(GriddedSurface, Location)} for a 50 km
+ * fault surface at 1 km spacing. Vertical strike-slip, dipping reverse, and
+ * shallow dipping geometries are considered for sites on, near, and far from
+ * the fault.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceBenchmark {
+
+  /* dip:width */
+  @Param({ "90:15", "50:20", "20:40" })
+  String geometry;
+
+  private GriddedSurface surface;
+  private Location[] sites;
+
+  @Setup
+  public void setup() {
+    String[] values = geometry.split(":");
+    double dip = Double.parseDouble(values[0]);
+    double width = Double.parseDouble(values[1]);
+    Location origin = SyntheticSources.CENTER;
+    surface = SyntheticSources.faultSurface(origin.lat(), origin.lon(), 50.0, dip, width, 1.0);
+    sites = new Location[] {
+        Location.create(origin.lat() + 0.2, origin.lon()),
+        Location.create(origin.lat() + 0.2, origin.lon() + 0.1),
+        Location.create(origin.lat() + 0.2, origin.lon() - 0.5),
+        Location.create(origin.lat() - 1.0, origin.lon() + 1.0)
+    };
+  }
+
+  @Benchmark
+  public double compute() {
+    double r = 0.0;
+    for (Location site : sites) {
+      r += Distance.compute(surface, site).rRup;
+    }
+    return r;
+  }
+}
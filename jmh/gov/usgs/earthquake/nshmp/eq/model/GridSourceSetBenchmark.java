@@ -0,0 +1,51 @@
+package gov.usgs.earthquake.nshmp.eq.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.usgs.earthquake.nshmp.geo.Location;
+
+/**
+ * Benchmark construction of the distance-magnitude table used in place of the
+ * point sources of a {@link GridSourceSet} at a site (see
+ * {@link GridSourceSet#optimizer(Location, boolean)}). The synthetic grid
+ * spans ±3° at 0.1° spacing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GridSourceSetBenchmark {
+
+  @Param({ "false", "true" })
+  boolean smooth;
+
+  private GridSourceSet sources;
+  private Location site;
+
+  @Setup
+  public void setup() {
+    sources = SyntheticSources.gridSourceSet(3.0, 0.1);
+    site = Location.create(
+        SyntheticSources.CENTER.lat() + 0.05,
+        SyntheticSources.CENTER.lon() + 0.05);
+  }
+
+  @Benchmark
+  public SourceSet<? extends Source> table() {
+    return GridSourceSet.optimizer(site, smooth).apply(sources);
+  }
+}
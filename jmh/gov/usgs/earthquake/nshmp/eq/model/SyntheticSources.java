@@ -0,0 +1,171 @@
+package gov.usgs.earthquake.nshmp.eq.model;
+
+import static gov.usgs.earthquake.nshmp.eq.fault.FocalMech.NORMAL;
+import static gov.usgs.earthquake.nshmp.eq.fault.FocalMech.REVERSE;
+import static gov.usgs.earthquake.nshmp.eq.fault.FocalMech.STRIKE_SLIP;
+import static gov.usgs.earthquake.nshmp.eq.model.SourceType.GRID;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.google.common.collect.ImmutableMap;
+
+import gov.usgs.earthquake.nshmp.data.Data;
+import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.eq.fault.FocalMech;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.DefaultGriddedSurface;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.GriddedSurface;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling;
+import gov.usgs.earthquake.nshmp.geo.Location;
+import gov.usgs.earthquake.nshmp.geo.LocationList;
+import gov.usgs.earthquake.nshmp.gmm.Gmm;
+
+/**
+ * Synthetic sources for benchmarks. Sources are centered on, or extend away
+ * from, {@link #CENTER}.
+ */
+final class SyntheticSources {
+
+  private SyntheticSources() {}
+
+  static final Location CENTER = Location.create(34.0, -118.0);
+
+  static GmmSet gmmSet() {
+    return new GmmSet.Builder()
+        .primaryModelMap(ImmutableMap.of(Gmm.ASK_14, 1.0))
+        .primaryMaxDistance(200.0)
+        .build();
+  }
+
+  /*
+   * A fault surface with a trace that extends north from (lat, lon).
+   */
+  static GriddedSurface faultSurface(
+      double lat,
+      double lon,
+      double length,
+      double dip,
+      double width,
+      double spacing) {
+
+    double Δlat = length / 111.2;
+    LocationList trace = LocationList.create(
+        Location.create(lat, lon),
+        Location.create(lat + Δlat / 2.0, lon + 0.01),
+        Location.create(lat + Δlat, lon));
+    return DefaultGriddedSurface.builder()
+        .trace(trace)
+        .depth(0.0)
+        .dip(dip)
+        .width(width)
+        .spacing(spacing)
+        .build();
+  }
+
+  /*
+   * A grid of point sources with Gutenberg-Richter MFDs spanning M5.05 to
+   * M7.45 that extends ±extent degrees from CENTER at the supplied spacing.
+   */
+  static GridSourceSet gridSourceSet(double extent, double spacing) {
+
+    double mMin = 5.05;
+    double mMax = 7.45;
+    double Δm = 0.1;
+    double[] mags = Data.buildCleanSequence(mMin, mMax, Δm, true, 2);
+    double[] rates = new double[mags.length];
+    for (int i = 0; i < mags.length; i++) {
+      rates[i] = Math.pow(10, 2.0 - mags[i]) * 1e-2;
+    }
+
+    Map<FocalMech, Double> mechMap = new EnumMap<>(FocalMech.class);
+    mechMap.put(STRIKE_SLIP, 0.5);
+    mechMap.put(REVERSE, 0.25);
+    mechMap.put(NORMAL, 0.25);
+
+    NavigableMap<Double, Map<Double, Double>> magDepthMap = new TreeMap<>();
+    magDepthMap.put(6.5, ImmutableMap.of(5.0, 1.0));
+    magDepthMap.put(10.0, ImmutableMap.of(1.0, 1.0));
+
+    GridSourceSet.Builder builder = new GridSourceSet.Builder();
+    builder.name("Synthetic Grid")
+        .id(-1)
+        .weight(1.0)
+        .gmms(gmmSet());
+    builder.strike(Double.NaN)
+        .sourceType(PointSourceType.FINITE)
+        .ruptureScaling(RuptureScaling.NSHM_POINT_WC94_LENGTH)
+        .depthMap(magDepthMap, GRID)
+        .maxDepth(14.0, GRID)
+        .mechs(mechMap)
+        .mfdData(mMin, mMax, Δm);
+
+    int n = (int) Math.round(extent / spacing);
+    for (int i = -n; i <= n; i++) {
+      for (int j = -n; j <= n; j++) {
+        Location loc = Location.create(
+            CENTER.lat() + i * spacing,
+            CENTER.lon() + j * spacing);
+        builder.location(loc, XySequence.create(mags, rates));
+      }
+    }
+    return builder.build();
+  }
+
+  /*
+   * A system of sectionCount vertical fault sections arranged end to end
+   * northward from CENTER, with ruptures on every run of 2 to maxSections
+   * contiguous sections.
+   */
+  static SystemSourceSet systemSourceSet(int sectionCount, int maxSections) {
+
+    double sectionLength = 7.0;
+    double width = 12.0;
+    double Δlat = sectionLength / 111.2;
+
+    List<GriddedSurface> sections = new ArrayList<>(sectionCount);
+    List<String> names = new ArrayList<>(sectionCount);
+    for (int i = 0; i < sectionCount; i++) {
+      LocationList trace = LocationList.create(
+          Location.create(CENTER.lat() + i * Δlat, CENTER.lon()),
+          Location.create(CENTER.lat() + (i + 1) * Δlat, CENTER.lon()));
+      sections.add(DefaultGriddedSurface.builder()
+          .trace(trace)
+          .depth(0.0)
+          .dip(90.0)
+          .width(width)
+          .spacing(1.0)
+          .build());
+      names.add("Section " + i);
+    }
+
+    SystemSourceSet.Builder builder = new SystemSourceSet.Builder();
+    builder.name("Synthetic System")
+        .id(-1)
+        .weight(1.0)
+        .gmms(gmmSet());
+    builder.sections(sections)
+        .sectionNames(names);
+
+    for (int count = 2; count <= maxSections; count++) {
+      double mag = 4.0 + Math.log10(count * sectionLength * width);
+      for (int start = 0; start + count <= sectionCount; start++) {
+        List<Integer> indices = new ArrayList<>(count);
+        for (int i = start; i < start + count; i++) {
+          indices.add(i);
+        }
+        builder.indices(indices)
+            .mag(mag)
+            .rate(1e-5 / count)
+            .depth(0.0)
+            .dip(90.0)
+            .width(width)
+            .rake(0.0);
+      }
+    }
+    return builder.build();
+  }
+}
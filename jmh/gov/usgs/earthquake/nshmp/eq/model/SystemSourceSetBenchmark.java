@@ -0,0 +1,55 @@
+package gov.usgs.earthquake.nshmp.eq.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.usgs.earthquake.nshmp.calc.InputList;
+import gov.usgs.earthquake.nshmp.calc.Site;
+
+/**
+ * Benchmark the creation of ground motion model inputs for a
+ * {@link SystemSourceSet} (see {@link SystemSourceSet#toInputsFunction(Site)}).
+ * The synthetic system comprises 200 end to end fault sections with ruptures
+ * on every run of 2 to 20 contiguous sections (~3600 ruptures).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SystemSourceSetBenchmark {
+
+  /* Site offset east of system, in degrees. */
+  @Param({ "0.1", "1.0" })
+  double offset;
+
+  private SystemSourceSet sources;
+  private Site site;
+
+  @Setup
+  public void setup() {
+    sources = SyntheticSources.systemSourceSet(200, 20);
+    site = Site.builder()
+        .location(
+            SyntheticSources.CENTER.lat() + 0.5,
+            SyntheticSources.CENTER.lon() + offset)
+        .build();
+  }
+
+  @Benchmark
+  public InputList inputs() {
+    return SystemSourceSet.toInputsFunction(site).apply(sources);
+  }
+}
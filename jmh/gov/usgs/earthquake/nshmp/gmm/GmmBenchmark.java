@@ -0,0 +1,53 @@
+package gov.usgs.earthquake.nshmp.gmm;
+
+import static gov.usgs.earthquake.nshmp.gmm.Imt.PGA;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark {@link GroundMotionModel#calc(GmmInput)} for every {@link Gmm}. By
+ * default, all models are run at {@code PGA}, or the first supported
+ * {@code Imt} if a model does not support {@code PGA}, using
+ * {@link GmmInput.Builder#withDefaults() default} inputs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GmmBenchmark {
+
+  /* All Gmms if not otherwise specified. */
+  @Param
+  Gmm gmm;
+
+  private GroundMotionModel model;
+  private GmmInput input;
+
+  @Setup
+  public void setup() {
+    Set<Imt> imts = gmm.supportedIMTs();
+    Imt imt = imts.contains(PGA) ? PGA : imts.iterator().next();
+    model = gmm.instance(imt);
+    input = GmmInput.builder().withDefaults().build();
+  }
+
+  @Benchmark
+  public ScalarGroundMotion calc() {
+    return model.calc(input);
+  }
+}
@@ -0,0 +1,122 @@
+package gov.usgs.earthquake.nshmp;
+
+import static gov.usgs.earthquake.nshmp.internal.Parsing.splitToDoubleList;
+import static gov.usgs.earthquake.nshmp.internal.TextUtils.NEWLINE;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import com.google.common.base.Throwables;
+
+import gov.usgs.earthquake.nshmp.calc.CurveFile;
+import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.geo.Location;
+import gov.usgs.earthquake.nshmp.internal.Parsing.Delimiter;
+
+/**
+ * Query binary hazard curve files ({@code curves.bin}) written by
+ * {@link HazardCalc}.
+ * @see CurveFile
+ */
+public class CurveQuery {
+
+  /**
+   * Entry point for a curve file query.
+   *
+   * <p>Queries require 2 arguments: the path to a binary curve file and
+   * either a location, in the form {@code lon,lat}, or a return period in
+   * years. A location query prints the hazard curve at the closest map node.
+   * A return period query prints, in CSV format, the ground motion at that
+   * return period for every map node for which a curve was written.
+   *
+   * @param args query arguments
+   */
+  public static void main(String[] args) {
+    Optional<String> status = run(args, System.out);
+    if (status.isPresent()) {
+      System.err.print(status.get());
+      System.exit(1);
+    }
+    System.exit(0);
+  }
+
+  static Optional<String> run(String[] args, PrintStream out) {
+    if (args.length != 2) {
+      return Optional.of(USAGE);
+    }
+    try {
+      Path path = Paths.get(args[0]);
+      CurveFile file = CurveFile.open(path);
+      String query = args[1];
+      if (query.contains(",")) {
+        List<Double> lonLat = splitToDoubleList(query, Delimiter.COMMA);
+        Location location = Location.create(lonLat.get(1), lonLat.get(0));
+        writeCurve(file, location, out);
+      } else {
+        writeMap(file, Double.valueOf(query), out);
+      }
+      return Optional.empty();
+    } catch (Exception e) {
+      StringBuilder sb = new StringBuilder()
+          .append(NEWLINE)
+          .append(PROGRAM + ": error").append(NEWLINE)
+          .append(" Arguments: ").append(Arrays.toString(args)).append(NEWLINE)
+          .append(NEWLINE)
+          .append(Throwables.getStackTraceAsString(e))
+          .append(USAGE);
+      return Optional.of(sb.toString());
+    }
+  }
+
+  private static void writeCurve(CurveFile file, Location location, PrintStream out) {
+    XySequence curve = file.curve(location);
+    Location node = file.location(file.index(location));
+    out.println(String.format("# %s %.5f,%.5f", file.imt().name(), node.lon(), node.lat()));
+    out.println("iml,rate");
+    for (int i = 0; i < curve.size(); i++) {
+      out.println(curve.x(i) + "," + curve.y(i));
+    }
+  }
+
+  private static void writeMap(CurveFile file, double returnPeriod, PrintStream out) {
+    double[] groundMotions = file.groundMotions(returnPeriod);
+    out.println("lon,lat," + file.imt().name());
+    for (int i = 0; i < groundMotions.length; i++) {
+      if (!file.hasCurve(i)) {
+        continue;
+      }
+      Location location = file.location(i);
+      out.println(String.format(
+          "%.5f,%.5f,%.6g", location.lon(), location.lat(), groundMotions[i]));
+    }
+  }
+
+  private static final String PROGRAM = CurveQuery.class.getSimpleName();
+  private static final String USAGE_COMMAND =
+      "java -cp nshmp-haz.jar gov.usgs.earthquake.nshmp.CurveQuery file query";
+
+  private static final String USAGE = new StringBuilder()
+      .append(NEWLINE)
+      .append(PROGRAM).append(" [").append(HazardCalc.VERSION).append("]").append(NEWLINE)
+      .append(NEWLINE)
+      .append("Usage:").append(NEWLINE)
+      .append("  ").append(USAGE_COMMAND).append(NEWLINE)
+      .append(NEWLINE)
+      .append("Where:").append(NEWLINE)
+      .append("  'file' is a binary hazard curve file (curves.bin)")
+      .append(NEWLINE)
+      .append("  'query' is either:")
+      .append(NEWLINE)
+      .append("     - a location string, e.g. lon,lat, to print the curve at a map node")
+      .append(NEWLINE)
+      .append("     - or a return period in years, to print the ground motion at")
+      .append(NEWLINE)
+      .append("       every map node")
+      .append(NEWLINE)
+      .append(NEWLINE)
+      .toString();
+}
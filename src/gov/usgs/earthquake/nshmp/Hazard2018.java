@@ -12,13 +12,16 @@ import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.FileHandler;
 import java.util.logging.Logger;
 
@@ -152,30 +155,80 @@ public class Hazard2018 {
 
     int threadCount = models.wusConfig.performance.threadCount.value();
     final ExecutorService exec = initExecutor(threadCount);
-    log.info("Threads: " + ((ThreadPoolExecutor) exec).getCorePoolSize());
+    log.info("Threads: " + threadCount);
+
+    /*
+     * Several sites are calculated at once so that the calculation executor
+     * stays busy between sites, and the CEUS model is calculated alongside the
+     * WUS model in the region where they overlap. Results are written, in site
+     * order, on a dedicated thread. The write queue is bounded so that no more
+     * than a few results are held in memory at once.
+     */
+    int siteCount = Math.min(threadCount, MAX_SITES_IN_FLIGHT);
+    final ExecutorService siteExec = initExecutor(siteCount);
+    final ExecutorService regionExec = initExecutor(siteCount);
+    final ExecutorService writeExec = Executors.newSingleThreadExecutor();
+    BlockingQueue<Future<Hazard>> writeQueue = new ArrayBlockingQueue<>(siteCount);
 
-    HazardExport handler = HazardExport.create(models.wusModel, models.wusConfig, sites, log);
+    try {
+      HazardExport handler = HazardExport.create(models.wusModel, models.wusConfig, sites, log);
+
+      log.info(PROGRAM + ": calculating ...");
+
+      CalcTask.Builder calcTask = new CalcTask.Builder(models, exec, regionExec);
+      Future<Path> out = (threadCount == 1)
+          ? null
+          : writeExec.submit(new WriteTask(handler, writeQueue));
+
+      for (Site site : sites) {
+        Future<Hazard> hazard = siteExec.submit(calcTask.withSite(site));
+        if (out == null) {
+          /* Single threaded; write immediately. */
+          handler.write(hazard.get());
+        } else {
+          enqueue(writeQueue, hazard, out);
+        }
+      }
+      Path outputDir = handler.outputDir();
+      if (out != null) {
+        enqueue(writeQueue, WriteTask.END, out);
+        /* Block shutdown until last result is written. */
+        outputDir = out.get();
+      }
 
-    log.info(PROGRAM + ": calculating ...");
+      handler.expire();
+      log.info(String.format(
+          PROGRAM + ": %s sites completed in %s",
+          handler.resultCount(), handler.elapsedTime()));
 
-    CalcTask.Builder calcTask = new CalcTask.Builder(models, exec);
-    WriteTask.Builder writeTask = new WriteTask.Builder(handler);
+      return outputDir;
 
-    Future<Path> out = null;
-    for (Site site : sites) {
-      Hazard hazard = calcTask.withSite(site).call();
-      out = exec.submit(writeTask.withResult(hazard));
+    } finally {
+      siteExec.shutdownNow();
+      regionExec.shutdownNow();
+      writeExec.shutdownNow();
+      exec.shutdown();
     }
-    /* Block shutdown until last task is returned. */
-    Path outputDir = out.get();
+  }
 
-    handler.expire();
-    exec.shutdown();
-    log.info(String.format(
-        PROGRAM + ": %s sites completed in %s",
-        handler.resultCount(), handler.elapsedTime()));
+  private static final int MAX_SITES_IN_FLIGHT = 4;
 
-    return outputDir;
+  /*
+   * Add a result to the write queue, waiting for space as necessary. If the
+   * writer fails while we wait, rethrow its exception rather than blocking
+   * indefinitely.
+   */
+  private static void enqueue(
+      BlockingQueue<Future<Hazard>> queue,
+      Future<Hazard> hazard,
+      Future<Path> writer) throws InterruptedException, ExecutionException {
+
+    while (!queue.offer(hazard, 1, TimeUnit.SECONDS)) {
+      if (writer.isDone()) {
+        writer.get();
+        throw new IllegalStateException("Writer stopped before all results were written");
+      }
+    }
   }
 
   private static ExecutorService initExecutor(int threadCount) {
@@ -206,34 +259,25 @@ public class Hazard2018 {
     }
   }
 
+  /* Writes queued results in order until END is received. */
   private static final class WriteTask implements Callable<Path> {
 
+    static final Future<Hazard> END = CompletableFuture.completedFuture(null);
+
     final HazardExport handler;
-    final Hazard hazard;
+    final BlockingQueue<Future<Hazard>> queue;
 
-    WriteTask(HazardExport handler, Hazard hazard) {
+    WriteTask(HazardExport handler, BlockingQueue<Future<Hazard>> queue) {
       this.handler = handler;
-      this.hazard = hazard;
+      this.queue = queue;
     }
 
     @Override
-    public Path call() throws IOException {
-      handler.write(hazard);
-      return handler.outputDir();
-    }
-
-    static class Builder {
-
-      final HazardExport handler;
-
-      Builder(HazardExport handler) {
-        this.handler = handler;
-      }
-
-      /* Builds and returns the task. */
-      WriteTask withResult(Hazard hazard) {
-        return new WriteTask(handler, hazard);
+    public Path call() throws IOException, InterruptedException, ExecutionException {
+      for (Future<Hazard> hazard = queue.take(); hazard != END; hazard = queue.take()) {
+        handler.write(hazard.get());
       }
+      return handler.outputDir();
     }
   }
 
@@ -241,22 +285,35 @@ public class Hazard2018 {
 
     final Models models;
     final Executor exec;
+    final ExecutorService regionExec;
     final Site site;
 
-    CalcTask(Models models, Executor exec, Site site) {
+    CalcTask(Models models, Executor exec, ExecutorService regionExec, Site site) {
       this.models = models;
       this.exec = exec;
+      this.regionExec = regionExec;
       this.site = site;
     }
 
     @Override
-    public Hazard call() {
+    public Hazard call() throws InterruptedException, ExecutionException {
+      boolean wus = site.location.lon() <= -100.0;
+      boolean ceus = site.location.lon() > -115.0;
+
+      /* In the overlap region, calculate CEUS hazard concurrently. */
+      Future<Hazard> ceusFuture = null;
+      if (wus && ceus) {
+        ceusFuture = regionExec.submit(
+            () -> HazardCalcs.hazard(models.ceusModel, models.ceusConfig, site, exec));
+      }
       Hazard wusHazard = null;
-      if (site.location.lon() <= -100.0) {
+      if (wus) {
         wusHazard = HazardCalcs.hazard(models.wusModel, models.wusConfig, site, exec);
       }
       Hazard ceusHazard = null;
-      if (site.location.lon() > -115.0) {
+      if (ceusFuture != null) {
+        ceusHazard = ceusFuture.get();
+      } else if (ceus) {
         ceusHazard = HazardCalcs.hazard(models.ceusModel, models.ceusConfig, site, exec);
       }
       Hazard cousHazard = (wusHazard == null)
@@ -271,15 +328,17 @@ public class Hazard2018 {
 
       final Models models;
       final Executor exec;
+      final ExecutorService regionExec;
 
-      Builder(Models models, Executor exec) {
+      Builder(Models models, Executor exec, ExecutorService regionExec) {
         this.models = models;
         this.exec = exec;
+        this.regionExec = regionExec;
       }
 
       /* Builds and returns the task. */
       CalcTask withSite(Site site) {
-        return new CalcTask(models, exec, site);
+        return new CalcTask(models, exec, regionExec, site);
       }
     }
   }
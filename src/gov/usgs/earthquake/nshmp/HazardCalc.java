@@ -21,11 +21,14 @@ import java.util.logging.Logger;
 import com.google.common.base.Throwables;
 import com.google.common.util.concurrent.MoreExecutors;
 
+import gov.usgs.earthquake.nshmp.calc.AdaptiveMap;
 import gov.usgs.earthquake.nshmp.calc.CalcConfig;
+import gov.usgs.earthquake.nshmp.calc.CalcMetrics;
 import gov.usgs.earthquake.nshmp.calc.Hazard;
 import gov.usgs.earthquake.nshmp.calc.HazardCalcs;
 import gov.usgs.earthquake.nshmp.calc.HazardExport;
 import gov.usgs.earthquake.nshmp.calc.Site;
+import gov.usgs.earthquake.nshmp.calc.SiteSweep;
 import gov.usgs.earthquake.nshmp.calc.Sites;
 import gov.usgs.earthquake.nshmp.calc.ThreadCount;
 import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
@@ -82,6 +85,7 @@ public class HazardCalc {
     }
 
     Logging.init();
+    CalcMetrics.reset();
     Logger log = Logger.getLogger(HazardCalc.class.getName());
     Path tmpLog = createTempLog();
 
@@ -110,10 +114,11 @@ public class HazardCalc {
       Path out = calc(model, config, sites, log);
       log.info(PROGRAM + ": finished");
 
-      /* Transfer log and write config, windows requires fh.close() */
+      /* Transfer log and write config and metrics, windows requires fh.close() */
       fh.close();
       Files.move(tmpLog, out.resolve(PROGRAM + ".log"));
       config.write(out);
+      CalcMetrics.write(out);
 
       return Optional.empty();
 
@@ -165,11 +170,24 @@ public class HazardCalc {
 
     log.info(PROGRAM + ": calculating ...");
 
+    if (SiteSweep.supports(config)) {
+      Path out = SiteSweep.calc(model, config, sites, exec, log);
+      exec.shutdown();
+      return out;
+    }
+
     HazardExport handler = HazardExport.create(model, config, sites, log);
-    for (Site site : sites) {
-      Hazard hazard = HazardCalcs.hazard(model, config, site, exec);
-      handler.write(hazard);
-      log.fine(hazard.toString());
+    if (AdaptiveMap.supports(config, sites)) {
+      int computed = AdaptiveMap.calc(model, config, sites, exec, handler);
+      log.info(String.format(
+          PROGRAM + ": computed %s of %s sites; remainder interpolated",
+          computed, sites.size()));
+    } else {
+      for (Site site : sites) {
+        Hazard hazard = HazardCalcs.hazard(model, config, site, exec);
+        handler.write(hazard);
+        log.fine(hazard.toString());
+      }
     }
     handler.expire();
 
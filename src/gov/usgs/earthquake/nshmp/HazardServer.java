@@ -0,0 +1,620 @@
+package gov.usgs.earthquake.nshmp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static gov.usgs.earthquake.nshmp.calc.ValueFormat.POISSON_PROBABILITY;
+import static gov.usgs.earthquake.nshmp.internal.TextUtils.NEWLINE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.common.base.Throwables;
+import com.google.common.primitives.Doubles;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import gov.usgs.earthquake.nshmp.calc.CalcConfig;
+import gov.usgs.earthquake.nshmp.calc.CalcMetrics;
+import gov.usgs.earthquake.nshmp.calc.Deaggregation;
+import gov.usgs.earthquake.nshmp.calc.Hazard;
+import gov.usgs.earthquake.nshmp.calc.HazardCalcs;
+import gov.usgs.earthquake.nshmp.calc.HazardExport;
+import gov.usgs.earthquake.nshmp.calc.Site;
+import gov.usgs.earthquake.nshmp.calc.ThreadCount;
+import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
+import gov.usgs.earthquake.nshmp.eq.model.SourceType;
+import gov.usgs.earthquake.nshmp.gmm.Imt;
+import gov.usgs.earthquake.nshmp.internal.Logging;
+import gov.usgs.earthquake.nshmp.internal.Parsing;
+import gov.usgs.earthquake.nshmp.internal.Parsing.Delimiter;
+import gov.usgs.earthquake.nshmp.mfd.Mfds;
+
+/**
+ * Serve probabilisitic seismic hazard curves and deaggregations from one or
+ * more {@link HazardModel}s that are loaded once and held in memory.
+ */
+public class HazardServer {
+
+  /**
+   * Entry point for a local hazard server.
+   *
+   * <p>Starting a server requires at least 2 arguments: the port on which to
+   * listen for requests and the path to one or more model zip files or
+   * directories. Models are loaded once, at startup, and are identified in
+   * requests by their file name (less any '.zip' extension). The server uses
+   * the JDK built-in HTTP server and supports the following GET requests:
+   *
+   * <ul><li>{@code /models} lists the available models.</li>
+   *
+   * <li>{@code /hazard?model=&lon=&lat=} returns the total and source type
+   * hazard curves for a site. Optional {@code vs30}, {@code vsInf},
+   * {@code z1p0}, {@code z2p5}, and {@code name} parameters define the site
+   * further; any missing site parameters take the model default. An optional,
+   * comma-delimited {@code imt} parameter limits the intensity measures
+   * considered. The {@code model} parameter may be omitted if only one model is
+   * loaded.</li>
+   *
+   * <li>{@code /deagg?model=&lon=&lat=&returnPeriod=} additionally returns
+   * deaggregations at a return period (in years) of interest.</li>
+   *
+   * <li>{@code /metrics} returns the {@link CalcMetrics} accumulated since the
+   * server was started.</li></ul>
+   *
+   * <p>Requests are not calculated directly. Rather, the requests that arrive
+   * within a short window are collected into a batch, identical site
+   * calculations in a batch (or still running from an earlier batch) are
+   * combined, and the distinct calculations in a batch are then run
+   * concurrently using a single, shared thread pool. A hazard request and any
+   * number of deaggregation requests for the same model, site, and IMTs
+   * therefore require only one hazard calculation. Site names do not affect
+   * calculations; requests for sites that differ only by name share a
+   * calculation and each response carries the name supplied in its request.
+   *
+   * <p>Please refer to the nshmp-haz <a
+   * href="https://github.com/usgs/nshmp-haz/wiki" target="_top">wiki</a> for
+   * comprehensive descriptions of source models, configuration files, and
+   * hazard calculations.
+   */
+  public static void main(String[] args) {
+
+    /* Delegate to run which has a return value for testing. */
+
+    Optional<String> status = run(args);
+    if (status.isPresent()) {
+      System.err.print(status.get());
+      System.exit(1);
+    }
+  }
+
+  static Optional<String> run(String[] args) {
+    int argCount = args.length;
+
+    if (argCount < 2) {
+      return Optional.of(USAGE);
+    }
+
+    Logging.init();
+    CalcMetrics.reset();
+    Logger log = Logger.getLogger(HazardServer.class.getName());
+
+    try {
+      log.info(PROGRAM + ": " + HazardCalc.VERSION);
+      int port = Integer.valueOf(args[0]);
+
+      Map<String, HazardModel> models = new LinkedHashMap<>();
+      for (int i = 1; i < argCount; i++) {
+        Path modelPath = Paths.get(args[i]);
+        String id = modelId(modelPath);
+        checkArgument(!models.containsKey(id), "Duplicate model id: %s", id);
+        models.put(id, HazardModel.load(modelPath));
+        log.info("Model: " + id);
+      }
+
+      HazardServer server = new HazardServer(models, port, log);
+      server.start();
+      Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+      log.info(PROGRAM + ": listening on port " + port);
+      return Optional.empty();
+
+    } catch (Exception e) {
+      log.severe(NEWLINE + "** Exiting **");
+      StringBuilder sb = new StringBuilder()
+          .append(NEWLINE)
+          .append(PROGRAM + ": error").append(NEWLINE)
+          .append(" Arguments: ").append(String.join(" ", args)).append(NEWLINE)
+          .append(NEWLINE)
+          .append(Throwables.getStackTraceAsString(e))
+          .append(USAGE);
+      return Optional.of(sb.toString());
+    }
+  }
+
+  /* Strip any trailing separator and zip extension from a model path. */
+  private static String modelId(Path path) {
+    String name = path.toAbsolutePath().normalize().getFileName().toString();
+    return name.endsWith(".zip") ? name.substring(0, name.length() - 4) : name;
+  }
+
+  /*
+   * Collect requests arriving within BATCH_WINDOW of the first request in a
+   * batch, up to BATCH_SIZE requests.
+   */
+  private static final long BATCH_WINDOW = 5; // ms
+  private static final int BATCH_SIZE = 256;
+
+  private final Map<String, HazardModel> models;
+  private final Map<String, CalcConfig> configs;
+  private final Logger log;
+
+  private final HttpServer http;
+  private final BlockingQueue<Request> queue;
+  private final Thread batcher;
+  private final Map<String, CompletableFuture<Hazard>> running;
+
+  /* Shared by all hazard calculations. */
+  private final ExecutorService calcExecutor;
+
+  /* Runs the distinct site calculations in a batch. */
+  private final ExecutorService siteExecutor;
+
+  HazardServer(Map<String, HazardModel> models, int port, Logger log)
+      throws IOException {
+
+    this.models = models;
+    this.configs = new ConcurrentHashMap<>();
+    this.log = log;
+
+    /*
+     * Site calculations block until the calculation tasks they submit to the
+     * shared executor complete, so the two pools must be separate.
+     */
+    calcExecutor = Executors.newFixedThreadPool(ThreadCount.ALL.value());
+    siteExecutor = Executors.newFixedThreadPool(ThreadCount.HALF.value());
+
+    queue = new LinkedBlockingQueue<>();
+    running = new ConcurrentHashMap<>();
+    batcher = new Thread(this::processBatches, PROGRAM + "-batcher");
+    batcher.setDaemon(true);
+
+    /* Request handlers block until their result is available. */
+    http = HttpServer.create(new InetSocketAddress(port), 0);
+    http.setExecutor(Executors.newCachedThreadPool());
+    http.createContext("/models", new Handler(this::models));
+    http.createContext("/hazard", new Handler(query -> submit(query, false)));
+    http.createContext("/deagg", new Handler(query -> submit(query, true)));
+    http.createContext("/metrics", new Handler(query -> CalcMetrics.toJson()));
+  }
+
+  private void start() {
+    batcher.start();
+    http.start();
+  }
+
+  void stop() {
+    http.stop(0);
+    batcher.interrupt();
+    siteExecutor.shutdownNow();
+    calcExecutor.shutdownNow();
+  }
+
+  private String models(Map<String, String> query) {
+    JsonArray modelList = new JsonArray();
+    for (Entry<String, HazardModel> entry : models.entrySet()) {
+      HazardModel model = entry.getValue();
+      JsonObject json = new JsonObject();
+      json.addProperty("id", entry.getKey());
+      json.addProperty("name", model.name());
+      JsonArray imts = new JsonArray();
+      model.config().hazard.imts.forEach(imt -> imts.add(imt.name()));
+      json.add("imts", imts);
+      modelList.add(json);
+    }
+    JsonObject json = new JsonObject();
+    json.add("models", modelList);
+    return GSON.toJson(json);
+  }
+
+  /* Queue a request and wait for the batch containing it to complete. */
+  private String submit(Map<String, String> query, boolean deagg)
+      throws InterruptedException, ExecutionException {
+
+    Request request = new Request(query, deagg);
+    queue.put(request);
+    return request.result.get();
+  }
+
+  private void processBatches() {
+    try {
+      while (true) {
+        List<Request> batch = new ArrayList<>();
+        batch.add(queue.take());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BATCH_WINDOW);
+        while (batch.size() < BATCH_SIZE) {
+          Request request = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+          if (request == null) {
+            break;
+          }
+          batch.add(request);
+        }
+        dispatch(batch);
+      }
+    } catch (InterruptedException ie) {
+      /* Server stopped. */
+    }
+  }
+
+  /*
+   * Group a batch by model, site, and IMTs and submit the hazard calculation
+   * for each group. If an identical calculation from an earlier batch is still
+   * running, a group waits on that calculation instead.
+   */
+  void dispatch(List<Request> batch) {
+    Map<String, List<Request>> groups = new LinkedHashMap<>();
+    for (Request request : batch) {
+      groups.computeIfAbsent(request.key, k -> new ArrayList<>()).add(request);
+    }
+    log.fine(String.format(
+        "Batch: %s requests, %s calculations",
+        batch.size(), groups.size()));
+
+    for (Entry<String, List<Request>> entry : groups.entrySet()) {
+      String key = entry.getKey();
+      List<Request> group = entry.getValue();
+
+      /* Only the batcher thread adds calculations. */
+      CompletableFuture<Hazard> hazard = running.get(key);
+      if (hazard == null) {
+        CompletableFuture<Hazard> calc = new CompletableFuture<>();
+        running.put(key, calc);
+        Request first = group.get(0);
+        siteExecutor.execute(() -> {
+          try {
+            calc.complete(HazardCalcs.hazard(
+                first.model,
+                first.config,
+                first.site,
+                calcExecutor));
+          } catch (Exception e) {
+            calc.completeExceptionally(e);
+          } finally {
+            running.remove(key, calc);
+          }
+        });
+        hazard = calc;
+      }
+      hazard.whenCompleteAsync(
+          (result, e) -> respond(group, result, e),
+          siteExecutor);
+    }
+  }
+
+  /*
+   * Complete each request in a group, sharing any deaggregations. A failure
+   * while responding to one request does not affect the others.
+   */
+  private void respond(List<Request> group, Hazard hazard, Throwable error) {
+    if (error != null) {
+      for (Request request : group) {
+        request.result.completeExceptionally(error);
+      }
+      return;
+    }
+    Map<Double, Deaggregation> deaggs = new HashMap<>();
+    for (Request request : group) {
+      try {
+        Optional<Deaggregation> deagg = Optional.empty();
+        if (request.returnPeriod.isPresent()) {
+          deagg = Optional.of(deaggs.computeIfAbsent(
+              request.returnPeriod.get(),
+              rp -> HazardCalcs.deaggReturnPeriod(hazard, rp, calcExecutor)));
+        }
+        request.result.complete(toJson(request, hazard, deagg));
+      } catch (Throwable e) {
+        request.result.completeExceptionally(e);
+      }
+    }
+  }
+
+  private static String toJson(
+      Request request,
+      Hazard hazard,
+      Optional<Deaggregation> deagg) {
+
+    CalcConfig config = request.config;
+    Function<Double, Double> valueFunction = (config.hazard.valueFormat == POISSON_PROBABILITY)
+        ? Mfds.annualRateToProbabilityConverter()
+        : Function.identity();
+
+    JsonObject json = new JsonObject();
+    json.addProperty("model", request.modelId);
+    json.add("site", toJson(request.site));
+    json.addProperty("valueFormat", config.hazard.valueFormat.name());
+
+    Map<Imt, Map<SourceType, XySequence>> typeCurves = HazardExport.curvesBySource(hazard);
+    JsonObject curves = new JsonObject();
+    for (Entry<Imt, XySequence> entry : hazard.curves().entrySet()) {
+      Imt imt = entry.getKey();
+      JsonObject imtCurves = new JsonObject();
+      imtCurves.add("imls", toJson(config.hazard.modelCurve(imt).xValues(), Function.identity()));
+      imtCurves.add("total", toJson(entry.getValue().yValues(), valueFunction));
+      for (Entry<SourceType, XySequence> typeEntry : typeCurves.get(imt).entrySet()) {
+        imtCurves.add(
+            typeEntry.getKey().name(),
+            toJson(typeEntry.getValue().yValues(), valueFunction));
+      }
+      curves.add(imt.name(), imtCurves);
+    }
+    json.add("curves", curves);
+
+    if (deagg.isPresent()) {
+      JsonObject deaggJson = new JsonObject();
+      deaggJson.addProperty("returnPeriod", request.returnPeriod.get());
+      for (Imt imt : hazard.curves().keySet()) {
+        deaggJson.add(imt.name(), GSON.toJsonTree(deagg.get().toJson(imt)));
+      }
+      json.add("deagg", deaggJson);
+    }
+    return GSON.toJson(json);
+  }
+
+  /* JSON prohibits NaN; unset basin terms are omitted. */
+  private static JsonObject toJson(Site site) {
+    JsonObject json = new JsonObject();
+    json.addProperty("name", site.name);
+    json.addProperty("lon", site.location.lon());
+    json.addProperty("lat", site.location.lat());
+    json.addProperty("vs30", site.vs30);
+    json.addProperty("vsInf", site.vsInferred);
+    if (!Double.isNaN(site.z1p0)) {
+      json.addProperty("z1p0", site.z1p0);
+    }
+    if (!Double.isNaN(site.z2p5)) {
+      json.addProperty("z2p5", site.z2p5);
+    }
+    return json;
+  }
+
+  private static JsonArray toJson(Iterable<Double> values, Function<Double, Double> function) {
+    JsonArray json = new JsonArray();
+    values.forEach(value -> json.add(function.apply(value)));
+    return json;
+  }
+
+  /*
+   * Configs are only created once per model and IMT set so that they (and their
+   * model curves) may be shared by all requests.
+   */
+  private CalcConfig config(String modelId, Set<Imt> imts) {
+    return configs.computeIfAbsent(
+        modelId + ":" + imts,
+        key -> CalcConfig.Builder.copyOf(models.get(modelId).config())
+            .imts(imts)
+            .threadCount(ThreadCount.ALL)
+            .build());
+  }
+
+  /* A parsed request and its eventual JSON result. */
+  final class Request {
+
+    final String modelId;
+    final HazardModel model;
+    final CalcConfig config;
+    final Site site;
+    final Optional<Double> returnPeriod;
+
+    /*
+     * Requests with the same key share a hazard calculation; the key includes
+     * all site properties other than name.
+     */
+    final String key;
+
+    final CompletableFuture<String> result = new CompletableFuture<>();
+
+    Request(Map<String, String> query, boolean deagg) {
+      if (query.containsKey(Key.MODEL)) {
+        modelId = query.get(Key.MODEL);
+      } else {
+        checkArgument(models.size() == 1, "Missing parameter: %s", Key.MODEL);
+        modelId = models.keySet().iterator().next();
+      }
+      model = models.get(modelId);
+      checkArgument(model != null, "Unknown model: %s", modelId);
+
+      Set<Imt> imts = model.config().hazard.imts;
+      if (query.containsKey(Key.IMT)) {
+        imts = EnumSet.noneOf(Imt.class);
+        for (String imt : Parsing.splitToList(query.get(Key.IMT), Delimiter.COMMA)) {
+          imts.add(Imt.valueOf(imt));
+        }
+      }
+      config = config(modelId, imts);
+
+      Site.Builder builder = Site.builder()
+          .location(requiredDouble(query, Key.LAT), requiredDouble(query, Key.LON))
+          .vs30(optionalDouble(query, Key.VS30, config.site.vs30))
+          .vsInferred(query.containsKey(Key.VS_INF)
+              ? Boolean.valueOf(query.get(Key.VS_INF))
+              : config.site.vsInferred)
+          .z1p0(optionalDouble(query, Key.Z1P0, config.site.z1p0))
+          .z2p5(optionalDouble(query, Key.Z2P5, config.site.z2p5));
+      if (query.containsKey(Key.NAME)) {
+        builder.name(query.get(Key.NAME));
+      }
+      site = builder.build();
+
+      returnPeriod = deagg
+          ? Optional.of(HazardCalcs.checkReturnPeriod(
+              requiredDouble(query, Key.RETURN_PERIOD)))
+          : Optional.empty();
+
+      key = String.join(":",
+          modelId,
+          imts.toString(),
+          Double.toString(site.location.lon()),
+          Double.toString(site.location.lat()),
+          Double.toString(site.vs30),
+          Boolean.toString(site.vsInferred),
+          Double.toString(site.z1p0),
+          Double.toString(site.z2p5));
+    }
+  }
+
+  private static double requiredDouble(Map<String, String> query, String key) {
+    String value = query.get(key);
+    checkArgument(value != null, "Missing parameter: %s", key);
+    Double d = Doubles.tryParse(value);
+    checkArgument(d != null, "Invalid parameter: %s=%s", key, value);
+    return d;
+  }
+
+  private static double optionalDouble(
+      Map<String, String> query,
+      String key,
+      double defaultValue) {
+
+    return query.containsKey(key) ? requiredDouble(query, key) : defaultValue;
+  }
+
+  private static final class Key {
+    static final String MODEL = "model";
+    static final String IMT = "imt";
+    static final String RETURN_PERIOD = "returnPeriod";
+    static final String NAME = "name";
+    static final String LAT = "lat";
+    static final String LON = "lon";
+    static final String VS30 = "vs30";
+    static final String VS_INF = "vsInf";
+    static final String Z1P0 = "z1p0";
+    static final String Z2P5 = "z2p5";
+  }
+
+  @FunctionalInterface
+  private interface Service {
+    String apply(Map<String, String> query) throws Exception;
+  }
+
+  /* Parse a GET request and write the JSON result or error. */
+  private final class Handler implements HttpHandler {
+
+    private final Service service;
+
+    Handler(Service service) {
+      this.service = service;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+      int status = 200;
+      String response;
+      try {
+        checkArgument(
+            exchange.getRequestMethod().equals("GET"),
+            "Unsupported method: %s", exchange.getRequestMethod());
+        response = service.apply(parseQuery(exchange.getRequestURI().getRawQuery()));
+      } catch (Exception e) {
+        Throwable cause = (e instanceof ExecutionException) ? e.getCause() : e;
+        boolean badRequest = cause instanceof IllegalArgumentException;
+        status = badRequest ? 400 : 500;
+        if (!badRequest) {
+          log.log(Level.WARNING, "Request failed: " + exchange.getRequestURI(), cause);
+        }
+        JsonObject json = new JsonObject();
+        json.addProperty("status", "error");
+        json.addProperty("message", String.valueOf(cause.getMessage()));
+        response = GSON.toJson(json);
+      }
+      byte[] bytes = response.getBytes(UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+      exchange.sendResponseHeaders(status, bytes.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(bytes);
+      }
+    }
+  }
+
+  static Map<String, String> parseQuery(String query)
+      throws UnsupportedEncodingException {
+
+    Map<String, String> params = new HashMap<>();
+    if (query == null || query.isEmpty()) {
+      return params;
+    }
+    for (String param : query.split("&")) {
+      int index = param.indexOf('=');
+      if (index < 1) {
+        continue;
+      }
+      params.put(
+          URLDecoder.decode(param.substring(0, index), UTF_8.name()),
+          URLDecoder.decode(param.substring(index + 1), UTF_8.name()));
+    }
+    return params;
+  }
+
+  private static final Gson GSON = new GsonBuilder()
+      .setPrettyPrinting()
+      .create();
+
+  private static final String PROGRAM = HazardServer.class.getSimpleName();
+  private static final String USAGE_COMMAND =
+      "java -cp nshmp-haz.jar gov.usgs.earthquake.nshmp.HazardServer port model [model ...]";
+  private static final String USAGE_URL1 = "https://github.com/usgs/nshmp-haz/wiki";
+  private static final String USAGE_URL2 = "https://github.com/usgs/nshmp-haz/tree/master/etc";
+
+  private static final String USAGE = new StringBuilder()
+      .append(NEWLINE)
+      .append(PROGRAM).append(" [").append(HazardCalc.VERSION).append("]").append(NEWLINE)
+      .append(NEWLINE)
+      .append("Usage:").append(NEWLINE)
+      .append("  ").append(USAGE_COMMAND).append(NEWLINE)
+      .append(NEWLINE)
+      .append("Where:").append(NEWLINE)
+      .append("  'port' is the port on which to listen for requests")
+      .append(NEWLINE)
+      .append("  'model' is one or more model zip files or directories")
+      .append(NEWLINE)
+      .append(NEWLINE)
+      .append("Requests:").append(NEWLINE)
+      .append("  /models").append(NEWLINE)
+      .append("  /hazard?model=&lon=&lat=[&vs30=&vsInf=&z1p0=&z2p5=&imt=]").append(NEWLINE)
+      .append("  /deagg?model=&lon=&lat=&returnPeriod=[&vs30=&vsInf=&z1p0=&z2p5=&imt=]")
+      .append(NEWLINE)
+      .append("  /metrics").append(NEWLINE)
+      .append(NEWLINE)
+      .append("For more information, see:").append(NEWLINE)
+      .append("  ").append(USAGE_URL1).append(NEWLINE)
+      .append("  ").append(USAGE_URL2).append(NEWLINE)
+      .append(NEWLINE)
+      .toString();
+}
@@ -0,0 +1,428 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static gov.usgs.earthquake.nshmp.data.XySequence.emptyCopyOf;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Executor;
+
+import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
+import gov.usgs.earthquake.nshmp.eq.model.Source;
+import gov.usgs.earthquake.nshmp.eq.model.SourceSet;
+import gov.usgs.earthquake.nshmp.geo.GriddedRegion;
+import gov.usgs.earthquake.nshmp.geo.Location;
+import gov.usgs.earthquake.nshmp.gmm.Gmm;
+import gov.usgs.earthquake.nshmp.gmm.Imt;
+
+/**
+ * Gridded hazard map calculation with adaptive mesh refinement.
+ *
+ * <p>Hazard is first computed at the corners of square cells that span
+ * {@code 2^n} map nodes, where {@code n} is the
+ * {@linkplain CalcConfig.Performance#mapRefinement refinement level}. Hazard is
+ * then computed at the center and edge midpoints of each cell and compared
+ * with hazard interpolated from the cell corners. Where all total curves agree
+ * to within the {@linkplain CalcConfig.Performance#mapTolerance tolerance}, the
+ * map nodes in the cell are interpolated; otherwise the cell is subdivided and
+ * the process repeated until cells span a single node. In regions where hazard
+ * varies smoothly, only a fraction of the map nodes are computed.
+ *
+ * <p>Results are supplied to a {@link HazardExport} for every node in the map,
+ * in map order, so output files, including {@code curves.bin}, have the same
+ * layout as those of a conventional map calculation. Interpolated results
+ * include curves for each source type and {@code Gmm}, but no ground motions,
+ * and so may not be deaggregated.
+ *
+ * <p>Rows of cells are processed in turn, and only the results required by the
+ * next row are retained, so memory use is proportional to map width.
+ */
+public final class AdaptiveMap {
+
+  /*
+   * Rates below this are of no consequence to hazard maps and are ignored when
+   * comparing interpolated and computed curves.
+   */
+  private static final double RATE_FLOOR = 1e-5;
+
+  private final HazardModel model;
+  private final CalcConfig config;
+  private final GriddedRegion region;
+  private final Site.Builder siteBuilder;
+  private final Executor exec;
+  private final Map<Imt, XySequence> modelCurves;
+  private final double tolerance;
+
+  private final double minLat;
+  private final double minLon;
+  private final double latSpacing;
+  private final double lonSpacing;
+  private final int rows;
+  private final int cols;
+  private final int step;
+
+  /* Computed results keyed by grid position. */
+  private final Map<Long, Hazard> computed = new HashMap<>();
+  private int computeCount;
+
+  private AdaptiveMap(
+      HazardModel model,
+      CalcConfig config,
+      Sites.RegionIterable sites,
+      Executor exec) {
+
+    this.model = model;
+    this.config = config;
+    this.region = sites.region;
+    this.siteBuilder = sites.siteBuilder;
+    this.exec = exec;
+    this.modelCurves = config.hazard.logModelCurves();
+    this.tolerance = config.performance.mapTolerance;
+
+    this.minLat = region.minGridLat();
+    this.minLon = region.minGridLon();
+    this.latSpacing = region.latSpacing();
+    this.lonSpacing = region.lonSpacing();
+    this.rows = (int) Math.round((region.maxGridLat() - minLat) / latSpacing) + 1;
+    this.cols = (int) Math.round((region.maxGridLon() - minLon) / lonSpacing) + 1;
+    this.step = 1 << config.performance.mapRefinement;
+  }
+
+  /**
+   * Returns {@code true} if adaptive refinement has been requested in the
+   * supplied {@code config} and {@code sites} define a gridded map.
+   *
+   * @param config calculation configuration
+   * @param sites of interest
+   */
+  public static boolean supports(CalcConfig config, Sites sites) {
+    return config.performance.mapRefinement > 0 &&
+        sites instanceof Sites.RegionIterable &&
+        !((Sites.RegionIterable) sites).region.isEmpty();
+  }
+
+  /**
+   * Compute a hazard map, writing the results for each map node to the supplied
+   * {@code export}. Returns the number of sites at which hazard was computed.
+   *
+   * @param model to use
+   * @param config calculation configuration
+   * @param sites gridded map sites
+   * @param exec {@code Executor} to distribute each site calculation
+   * @param export handler to receive results
+   * @throws IllegalArgumentException if adaptive refinement is not supported
+   *         for the supplied {@code config} and {@code sites}
+   * @see #supports(CalcConfig, Sites)
+   */
+  public static int calc(
+      HazardModel model,
+      CalcConfig config,
+      Sites sites,
+      Executor exec,
+      HazardExport export) throws IOException {
+
+    return calc(model, config, sites, exec, export::write);
+  }
+
+  /* Receives results in map order; supplied by tests in lieu of an export. */
+  @FunctionalInterface
+  interface ResultWriter {
+    void write(Hazard hazard) throws IOException;
+  }
+
+  static int calc(
+      HazardModel model,
+      CalcConfig config,
+      Sites sites,
+      Executor exec,
+      ResultWriter writer) throws IOException {
+
+    checkArgument(supports(config, sites), "Adaptive refinement not supported for sites");
+    AdaptiveMap map = new AdaptiveMap(model, config, (Sites.RegionIterable) sites, exec);
+    map.run(writer);
+    return map.computeCount;
+  }
+
+  private void run(ResultWriter writer) throws IOException {
+    for (int r0 = 0; r0 < rows; r0 += step) {
+
+      /*
+       * Rows r0 through r0 + step - 1 are written; row r0 + step is shared
+       * with the next band of cells and is written with it.
+       */
+      int rowMax = Math.min(r0 + step - 1, rows - 1);
+      Cell[][] leaves = new Cell[rowMax - r0 + 1][cols];
+      for (int c0 = 0; c0 < cols; c0 += step) {
+        Cell cell = new Cell(r0, c0, step);
+        if (cell.containsNodes()) {
+          refine(cell, leaves, r0);
+        }
+      }
+
+      for (int r = r0; r <= rowMax; r++) {
+        for (int c = 0; c < cols; c++) {
+          int index = region.indexForLocation(location(r, c));
+          if (index == -1) {
+            continue;
+          }
+          Hazard hazard = computed.get(key(r, c));
+          if (hazard == null) {
+            Site site = site(region.locationForIndex(index));
+            hazard = leaves[r - r0][c].interpolate(r, c, site);
+          }
+          writer.write(hazard);
+        }
+      }
+
+      int nextRow = r0 + step;
+      computed.keySet().removeIf(key -> row(key) < nextRow);
+    }
+  }
+
+  /*
+   * Compute hazard at the midpoints of a cell. If interpolation reproduces
+   * them, the four subcells are filled by interpolation, otherwise each
+   * subcell is refined in turn.
+   */
+  private void refine(Cell cell, Cell[][] leaves, int bandRow) {
+    if (cell.size == 1) {
+      cell.assignTo(leaves, bandRow);
+      return;
+    }
+    int half = cell.size / 2;
+    int rm = cell.r0 + half;
+    int cm = cell.c0 + half;
+    int r1 = cell.r0 + cell.size;
+    int c1 = cell.c0 + cell.size;
+
+    boolean accept = true;
+    accept &= agrees(cell, cell.r0, cm);
+    accept &= agrees(cell, rm, cell.c0);
+    accept &= agrees(cell, rm, cm);
+    accept &= agrees(cell, rm, c1);
+    accept &= agrees(cell, r1, cm);
+
+    Cell[] subcells = {
+        new Cell(cell.r0, cell.c0, half),
+        new Cell(cell.r0, cm, half),
+        new Cell(rm, cell.c0, half),
+        new Cell(rm, cm, half)
+    };
+    for (Cell subcell : subcells) {
+      if (!subcell.containsNodes()) {
+        continue;
+      }
+      if (accept) {
+        subcell.assignTo(leaves, bandRow);
+      } else {
+        refine(subcell, leaves, bandRow);
+      }
+    }
+  }
+
+  /*
+   * Compare computed and interpolated total curves at a grid position.
+   * Positions beyond the map grid, which only arise in cells on its upper and
+   * right edges, are not written and need not be computed or compared.
+   */
+  private boolean agrees(Cell cell, int r, int c) {
+    if (r >= rows || c >= cols) {
+      return true;
+    }
+    Map<Imt, XySequence> curves = hazard(r, c).totalCurves;
+    double[] weights = cell.weights(r, c);
+    Hazard[] corners = cell.corners(weights);
+    for (Entry<Imt, XySequence> entry : curves.entrySet()) {
+      XySequence curve = entry.getValue();
+      for (int i = 0; i < curve.size(); i++) {
+        double y = 0.0;
+        for (int j = 0; j < corners.length; j++) {
+          if (weights[j] != 0.0) {
+            y += weights[j] * corners[j].totalCurves.get(entry.getKey()).y(i);
+          }
+        }
+        double yComputed = curve.y(i);
+        if (Math.max(y, yComputed) < RATE_FLOOR) {
+          continue;
+        }
+        if (Math.abs(y - yComputed) > tolerance * yComputed) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /* Computed hazard at a grid position, which may lie outside the region. */
+  private Hazard hazard(int r, int c) {
+    Long key = key(r, c);
+    Hazard hazard = computed.get(key);
+    if (hazard == null) {
+      int index = region.indexForLocation(location(r, c));
+      Location location = (index == -1) ? location(r, c) : region.locationForIndex(index);
+      hazard = curvesOnly(HazardCalcs.hazard(model, config, site(location), exec));
+      computed.put(key, hazard);
+      computeCount++;
+    }
+    return hazard;
+  }
+
+  /* Discard ground motions, which are not needed, to limit memory use. */
+  private Hazard curvesOnly(Hazard hazard) {
+    Hazard.Builder builder = Hazard.builder(config)
+        .model(model)
+        .site(hazard.site);
+    for (HazardCurveSet curveSet : hazard.sourceSetCurves.values()) {
+      builder.addCurveSet(curveSet.isCached() ? curveSet : HazardCurveSet.fromCurves(
+          curveSet.sourceSet,
+          curveSet.curveMap,
+          modelCurves));
+    }
+    return builder.totalCurves(hazard.totalCurves).build();
+  }
+
+  /* Sites are created on the calling thread only. */
+  private Site site(Location location) {
+    return siteBuilder.location(location).build();
+  }
+
+  private Location location(int r, int c) {
+    return Location.create(minLat + r * latSpacing, minLon + c * lonSpacing);
+  }
+
+  private static Long key(int r, int c) {
+    return ((long) r << 32) | c;
+  }
+
+  private static int row(long key) {
+    return (int) (key >>> 32);
+  }
+
+  /* A square block of grid positions. */
+  private final class Cell {
+
+    final int r0;
+    final int c0;
+    final int size;
+
+    Cell(int r0, int c0, int size) {
+      this.r0 = r0;
+      this.c0 = c0;
+      this.size = size;
+    }
+
+    /* Whether any map nodes fall within or on the edges of this cell. */
+    boolean containsNodes() {
+      int rMax = Math.min(r0 + size, rows - 1);
+      int cMax = Math.min(c0 + size, cols - 1);
+      for (int r = r0; r <= rMax; r++) {
+        for (int c = c0; c <= cMax; c++) {
+          if (region.indexForLocation(location(r, c)) != -1) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    /* Set this as the source of interpolated values for nodes in the band. */
+    void assignTo(Cell[][] leaves, int bandRow) {
+      int rMax = Math.min(r0 + size, bandRow + leaves.length - 1);
+      int cMax = Math.min(c0 + size, cols - 1);
+      for (int r = r0; r <= rMax; r++) {
+        for (int c = c0; c <= cMax; c++) {
+          leaves[r - bandRow][c] = this;
+        }
+      }
+    }
+
+    /*
+     * Corners in the order: lower-left, lower-right, upper-left, upper-right.
+     * Corners with no weight are null; they are not computed as, in cells on
+     * the upper and right edges of the map, they may lie beyond the grid.
+     */
+    Hazard[] corners(double[] weights) {
+      int[][] positions = {
+          { r0, c0 },
+          { r0, c0 + size },
+          { r0 + size, c0 },
+          { r0 + size, c0 + size }
+      };
+      Hazard[] corners = new Hazard[positions.length];
+      for (int i = 0; i < positions.length; i++) {
+        if (weights[i] != 0.0) {
+          corners[i] = hazard(positions[i][0], positions[i][1]);
+        }
+      }
+      return corners;
+    }
+
+    /* Bilinear interpolation weights of the corners at a grid position. */
+    double[] weights(int r, int c) {
+      double fr = (r - r0) / (double) size;
+      double fc = (c - c0) / (double) size;
+      return new double[] {
+          (1.0 - fr) * (1.0 - fc),
+          (1.0 - fr) * fc,
+          fr * (1.0 - fc),
+          fr * fc
+      };
+    }
+
+    /*
+     * Interpolate all curves in the corner results. Source sets are matched by
+     * type, id, and name as grid and area tables are unique to each site.
+     */
+    Hazard interpolate(int r, int c, Site site) {
+      double[] weights = weights(r, c);
+      Hazard[] corners = corners(weights);
+      Map<String, SourceSet<? extends Source>> sourceSets = new LinkedHashMap<>();
+      Map<String, Map<Imt, Map<Gmm, XySequence>>> curveMaps = new HashMap<>();
+      for (int i = 0; i < corners.length; i++) {
+        double weight = weights[i];
+        if (weight == 0.0) {
+          continue;
+        }
+        for (HazardCurveSet curveSet : corners[i].sourceSetCurves.values()) {
+          SourceSet<? extends Source> sourceSet = curveSet.sourceSet;
+          String id = sourceSet.type() + ":" + sourceSet.id() + ":" + sourceSet.name();
+          sourceSets.putIfAbsent(id, sourceSet);
+          Map<Imt, Map<Gmm, XySequence>> curveMap = curveMaps.computeIfAbsent(
+              id,
+              k -> new EnumMap<>(Imt.class));
+          for (Entry<Imt, Map<Gmm, XySequence>> imtEntry : curveSet.curveMap.entrySet()) {
+            Imt imt = imtEntry.getKey();
+            Map<Gmm, XySequence> gmmCurves = curveMap.computeIfAbsent(
+                imt,
+                k -> new EnumMap<>(Gmm.class));
+            for (Entry<Gmm, XySequence> gmmEntry : imtEntry.getValue().entrySet()) {
+              XySequence curve = gmmCurves.computeIfAbsent(
+                  gmmEntry.getKey(),
+                  k -> emptyCopyOf(modelCurves.get(imt)));
+              XySequence term = gmmEntry.getValue();
+              for (int j = 0; j < curve.size(); j++) {
+                curve.set(j, curve.y(j) + weight * term.y(j));
+              }
+            }
+          }
+        }
+      }
+
+      Hazard.Builder builder = Hazard.builder(config)
+          .model(model)
+          .site(site);
+      for (Entry<String, SourceSet<? extends Source>> entry : sourceSets.entrySet()) {
+        builder.addCurveSet(HazardCurveSet.fromCurves(
+            entry.getValue(),
+            curveMaps.get(entry.getKey()),
+            modelCurves));
+      }
+      return builder.build();
+    }
+  }
+}
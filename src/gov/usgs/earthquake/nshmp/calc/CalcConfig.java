@@ -35,6 +35,7 @@ import java.util.Set;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Range;
 import com.google.common.collect.Sets;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -842,16 +843,30 @@ public final class CalcConfig {
      */
     public final double z2p5;
 
+    /**
+     * The Vs30 values of a site class sweep. If any values are supplied, hazard
+     * at every site is computed for each Vs30 in a single pass: rupture
+     * iteration and distance calculations are shared and only ground motions
+     * and exceedance curves are computed per Vs30. Results for each Vs30 are
+     * written to a separate subdirectory of the output directory. Any Vs30
+     * values supplied with sites are ignored; basin terms are retained.
+     *
+     * <p><b>Default:</b> [ {@code (empty)} ]
+     */
+    public final List<Double> vs30Sweep;
+
     private SiteDefaults(
         double vs30,
         boolean vsInferred,
         double z1p0,
-        double z2p5) {
+        double z2p5,
+        List<Double> vs30Sweep) {
 
       this.vs30 = vs30;
       this.vsInferred = vsInferred;
       this.z1p0 = z1p0;
       this.z2p5 = z2p5;
+      this.vs30Sweep = vs30Sweep;
     }
 
     private StringBuilder asString() {
@@ -860,7 +875,8 @@ public final class CalcConfig {
           .append(formatEntry(Key.VS30, vs30))
           .append(formatEntry(Key.VS_INF, vsInferred))
           .append(formatEntry(Key.Z1P0, z1p0))
-          .append(formatEntry(Key.Z2P5, z2p5));
+          .append(formatEntry(Key.Z2P5, z2p5))
+          .append(formatEntry(Key.VS30_SWEEP, vs30Sweep));
     }
 
     private static final class Builder {
@@ -869,13 +885,15 @@ public final class CalcConfig {
       Boolean vsInferred;
       Double z1p0;
       Double z2p5;
+      List<Double> vs30Sweep;
 
       SiteDefaults build() {
         return new SiteDefaults(
             vs30,
             vsInferred,
             z1p0,
-            z2p5);
+            z2p5,
+            ImmutableList.copyOf(vs30Sweep));
       }
 
       void copy(SiteDefaults that) {
@@ -883,6 +901,7 @@ public final class CalcConfig {
         this.vsInferred = that.vsInferred;
         this.z1p0 = that.z1p0;
         this.z2p5 = that.z2p5;
+        this.vs30Sweep = that.vs30Sweep;
       }
 
       void extend(Builder that) {
@@ -898,6 +917,9 @@ public final class CalcConfig {
         if (that.z2p5 != null) {
           this.z2p5 = that.z2p5;
         }
+        if (that.vs30Sweep != null) {
+          this.vs30Sweep = that.vs30Sweep;
+        }
       }
 
       static Builder defaults() {
@@ -906,6 +928,7 @@ public final class CalcConfig {
         b.vsInferred = Site.VS_INF_DEFAULT;
         b.z1p0 = Site.Z1P0_DEFAULT;
         b.z2p5 = Site.Z2P5_DEFAULT;
+        b.vs30Sweep = ImmutableList.of();
         return b;
       }
 
@@ -914,6 +937,10 @@ public final class CalcConfig {
         checkNotNull(vsInferred, STATE_ERROR, SiteDefaults.ID, Key.VS_INF);
         checkNotNull(z1p0, STATE_ERROR, SiteDefaults.ID, Key.Z1P0);
         checkNotNull(z2p5, STATE_ERROR, SiteDefaults.ID, Key.Z2P5);
+        checkNotNull(vs30Sweep, STATE_ERROR, SiteDefaults.ID, Key.VS30_SWEEP);
+        for (double vs : vs30Sweep) {
+          checkInRange(Site.VS30_RANGE, Key.VS30_SWEEP.toString(), vs);
+        }
       }
     }
   }
@@ -1006,8 +1033,12 @@ public final class CalcConfig {
 
     static final String ID = CalcConfig.ID + "." + Performance.class.getSimpleName();
 
+    /* Refinement beyond 10 levels (cells of 1024 nodes) is of no use. */
+    static final Range<Double> MAP_REFINEMENT_RANGE = Range.closed(0.0, 10.0);
+    static final Range<Double> MAP_TOLERANCE_RANGE = Range.greaterThan(0.0);
+
     /**
-     * Whether to optimize grid source sets, or not.
+     * Whether to optimize grid and area source sets, or not.
      *
      * <p><b>Default:</b> {@code true}
      */
@@ -1030,8 +1061,12 @@ public final class CalcConfig {
     public final boolean collapseMfds;
 
     /**
-     * The partition or batch size to use when distributing
-     * {@link SourceType#SYSTEM} calculations.
+     * The partition or batch size to use when distributing large
+     * {@link SourceType#AREA} calculations, and the maximum partition size to
+     * use when distributing {@link SourceType#SYSTEM} calculations. The size of
+     * {@code SYSTEM} partitions is otherwise chosen for each site from the
+     * number of ground motion calculations required and the number of threads
+     * available.
      *
      * <p><b>Default:</b> {@code 1000}
      */
@@ -1043,19 +1078,66 @@ public final class CalcConfig {
      * <p><b>Default:</b> {@link ThreadCount#ALL}
      */
     public final ThreadCount threadCount;
-    
+
+    /**
+     * The directory in which to cache hazard results. When set, results are
+     * read from, and saved to, the cache keyed on the model, the settings that
+     * affect hazard, and the site. Cached results are shared by all programs
+     * and runs that use the same directory.
+     *
+     * <p><b>Default:</b> {@code null} (no cache)
+     */
+    public final Path cacheDirectory;
+
+    /**
+     * The maximum size of the hazard result cache, in megabytes. The least
+     * recently used results are removed when this size is exceeded.
+     *
+     * <p><b>Default:</b> {@code 1024}
+     */
+    public final int cacheSize;
+
+    /**
+     * The number of levels of adaptive refinement to use when computing a
+     * gridded map. Hazard is first computed on a grid that is coarser than the
+     * map spacing by a factor of {@code 2^mapRefinement}. Grid cells are then
+     * subdivided until hazard interpolated across a cell agrees with hazard
+     * computed within it to within the {@link #mapTolerance}; any remaining
+     * sites are interpolated. A value of {@code 0} computes hazard at every
+     * site.
+     *
+     * <p><b>Default:</b> {@code 0}<br><b>Range:</b> {@code 0} to {@code 10}
+     */
+    public final int mapRefinement;
+
+    /**
+     * The maximum relative difference between interpolated and computed
+     * exceedance rates that is permitted before a map grid cell is refined.
+     *
+     * <p><b>Default:</b> {@code 0.02}<br><b>Range:</b> {@code > 0.0}
+     */
+    public final double mapTolerance;
+
     private Performance(
         boolean optimizeGrids,
         boolean smoothGrids,
         boolean collapseMfds,
         int systemPartition,
-        ThreadCount threadCount) {
+        ThreadCount threadCount,
+        Path cacheDirectory,
+        int cacheSize,
+        int mapRefinement,
+        double mapTolerance) {
 
       this.optimizeGrids = optimizeGrids;
       this.smoothGrids = smoothGrids;
       this.collapseMfds = collapseMfds;
       this.systemPartition = systemPartition;
       this.threadCount = threadCount;
+      this.cacheDirectory = cacheDirectory;
+      this.cacheSize = cacheSize;
+      this.mapRefinement = mapRefinement;
+      this.mapTolerance = mapTolerance;
     }
 
     private StringBuilder asString() {
@@ -1065,7 +1147,13 @@ public final class CalcConfig {
           .append(formatEntry(Key.SMOOTH_GRIDS, smoothGrids))
           .append(formatEntry(Key.COLLAPSE_MFDS, collapseMfds))
           .append(formatEntry(Key.SYSTEM_PARTITION, systemPartition))
-          .append(formatEntry(Key.THREAD_COUNT, threadCount.name()));
+          .append(formatEntry(Key.THREAD_COUNT, threadCount.name()))
+          .append(formatEntry(Key.CACHE_DIRECTORY, (cacheDirectory == null)
+              ? null
+              : cacheDirectory.toAbsolutePath().normalize()))
+          .append(formatEntry(Key.CACHE_SIZE, cacheSize))
+          .append(formatEntry(Key.MAP_REFINEMENT, mapRefinement))
+          .append(formatEntry(Key.MAP_TOLERANCE, mapTolerance));
     }
 
     private static final class Builder {
@@ -1075,6 +1163,10 @@ public final class CalcConfig {
       Boolean collapseMfds;
       Integer systemPartition;
       ThreadCount threadCount;
+      Path cacheDirectory;
+      Integer cacheSize;
+      Integer mapRefinement;
+      Double mapTolerance;
 
       Performance build() {
         return new Performance(
@@ -1082,7 +1174,11 @@ public final class CalcConfig {
             smoothGrids,
             collapseMfds,
             systemPartition,
-            threadCount);
+            threadCount,
+            cacheDirectory,
+            cacheSize,
+            mapRefinement,
+            mapTolerance);
       }
 
       void copy(Performance that) {
@@ -1091,6 +1187,10 @@ public final class CalcConfig {
         this.collapseMfds = that.collapseMfds;
         this.systemPartition = that.systemPartition;
         this.threadCount = that.threadCount;
+        this.cacheDirectory = that.cacheDirectory;
+        this.cacheSize = that.cacheSize;
+        this.mapRefinement = that.mapRefinement;
+        this.mapTolerance = that.mapTolerance;
       }
 
       void extend(Builder that) {
@@ -1109,6 +1209,18 @@ public final class CalcConfig {
         if (that.threadCount != null) {
           this.threadCount = that.threadCount;
         }
+        if (that.cacheDirectory != null) {
+          this.cacheDirectory = that.cacheDirectory;
+        }
+        if (that.cacheSize != null) {
+          this.cacheSize = that.cacheSize;
+        }
+        if (that.mapRefinement != null) {
+          this.mapRefinement = that.mapRefinement;
+        }
+        if (that.mapTolerance != null) {
+          this.mapTolerance = that.mapTolerance;
+        }
       }
 
       static Builder defaults() {
@@ -1118,6 +1230,10 @@ public final class CalcConfig {
         b.collapseMfds = true;
         b.systemPartition = 1000;
         b.threadCount = ThreadCount.ALL;
+        b.cacheDirectory = null;
+        b.cacheSize = 1024;
+        b.mapRefinement = 0;
+        b.mapTolerance = 0.02;
         return b;
       }
 
@@ -1127,6 +1243,11 @@ public final class CalcConfig {
         checkNotNull(collapseMfds, STATE_ERROR, Performance.ID, Key.COLLAPSE_MFDS);
         checkNotNull(systemPartition, STATE_ERROR, Performance.ID, Key.SYSTEM_PARTITION);
         checkNotNull(threadCount, STATE_ERROR, Performance.ID, Key.THREAD_COUNT);
+        checkNotNull(cacheSize, STATE_ERROR, Performance.ID, Key.CACHE_SIZE);
+        checkNotNull(mapRefinement, STATE_ERROR, Performance.ID, Key.MAP_REFINEMENT);
+        checkInRange(MAP_REFINEMENT_RANGE, Key.MAP_REFINEMENT.toString(), mapRefinement);
+        checkNotNull(mapTolerance, STATE_ERROR, Performance.ID, Key.MAP_TOLERANCE);
+        checkInRange(MAP_TOLERANCE_RANGE, Key.MAP_TOLERANCE.toString(), mapTolerance);
       }
     }
   }
@@ -1149,6 +1270,7 @@ public final class CalcConfig {
     VS_INF,
     Z1P0,
     Z2P5,
+    VS30_SWEEP,
     BASIN_DATA_PROVIDER,
     /* performance */
     OPTIMIZE_GRIDS,
@@ -1157,6 +1279,10 @@ public final class CalcConfig {
     SYSTEM_PARTITION,
     THREAD_COUNT,
     QUEUE_SIZE,
+    CACHE_DIRECTORY,
+    CACHE_SIZE,
+    MAP_REFINEMENT,
+    MAP_TOLERANCE,
     /* output */
     DIRECTORY,
     DATA_TYPES,
@@ -1424,6 +1550,16 @@ public final class CalcConfig {
       return this;
     }
 
+    /**
+     * Set the number of threads to use in a calculation.
+     *
+     * @see Performance#threadCount
+     */
+    public Builder threadCount(ThreadCount threadCount) {
+      this.performance.threadCount = checkNotNull(threadCount);
+      return this;
+    }
+
     private void validateState() {
       checkState(!built, "This %s instance as already been used", ID + ".Builder");
       hazard.validate();
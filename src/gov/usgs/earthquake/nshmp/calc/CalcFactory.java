@@ -3,20 +3,26 @@ package gov.usgs.earthquake.nshmp.calc;
 import static com.google.common.util.concurrent.Futures.allAsList;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.Futures.transform;
+import static com.google.common.util.concurrent.Futures.transformAsync;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.function.Function;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import gov.usgs.earthquake.nshmp.calc.Transforms.ClusterCurveConsolidator;
 import gov.usgs.earthquake.nshmp.calc.Transforms.ClusterToCurves;
 import gov.usgs.earthquake.nshmp.calc.Transforms.CurveConsolidator;
 import gov.usgs.earthquake.nshmp.calc.Transforms.CurveSetConsolidator;
+import gov.usgs.earthquake.nshmp.calc.Transforms.InputsToCurves;
 import gov.usgs.earthquake.nshmp.calc.Transforms.ParallelSystemToCurves;
 import gov.usgs.earthquake.nshmp.calc.Transforms.SourceToCurves;
+import gov.usgs.earthquake.nshmp.calc.Transforms.SourceToInputs;
 import gov.usgs.earthquake.nshmp.calc.Transforms.SystemToCurves;
 import gov.usgs.earthquake.nshmp.eq.model.ClusterSource;
 import gov.usgs.earthquake.nshmp.eq.model.ClusterSourceSet;
@@ -29,6 +35,10 @@ import gov.usgs.earthquake.nshmp.eq.model.SystemSourceSet;
  * Static utility methods for performing single-threaded and asynchronous hazard
  * calculations via functions in {@link Transforms}.
  *
+ * <p>All methods compute hazard at one or more sites that share a location but
+ * may differ in site terms (see {@link SiteSweep}). Work that depends only on
+ * location is done once and results are returned in site order.
+ *
  * @author Peter Powers
  * @see Transforms
  * @see AsyncList
@@ -38,122 +48,309 @@ final class CalcFactory {
   private CalcFactory() {}
 
   /* Compute hazard curves for a SourceSet. */
-  static HazardCurveSet sourcesToCurves(
+  static List<HazardCurveSet> sourcesToCurves(
       SourceSet<? extends Source> sources,
       CalcConfig config,
-      Site site) {
+      List<Site> sites) {
 
-    SourceToCurves sourceToCurves = new SourceToCurves(sources, config, site);
-    List<HazardCurves> curvesList = new ArrayList<>();
-    for (Source source : sources.iterableForLocation(site.location)) {
+    SourceToCurves sourceToCurves = new SourceToCurves(sources, config, sites);
+    List<List<HazardCurves>> curvesList = new ArrayList<>();
+    for (Source source : sources.iterableForLocation(sites.get(0).location)) {
       curvesList.add(sourceToCurves.apply(source));
     }
+    CalcMetrics.sources(sources, curvesList.size());
     CurveConsolidator consolidateFn = new CurveConsolidator(sources, config);
-    return consolidateFn.apply(curvesList);
+    return consolidate(curvesList, sites.size(), consolidateFn);
+  }
+
+  /*
+   * Target cost of a single task submitted by sourcesToCurves(), in ground
+   * motion calculations (ruptures × GMMs × IMTs) per site.
+   */
+  private static final int TASK_COST = 100000;
+
+  /*
+   * Asynchronously compute hazard curves for a SourceSet. Task granularity is
+   * governed by the estimated cost of each source, its rupture count times the
+   * number of GMMs and IMTs: consecutive sources that are cheaper than
+   * TASK_COST are processed in batches, and the input lists of sources that
+   * cost more than twice TASK_COST are partitioned and processed as independent
+   * tasks. This avoids submitting tens of thousands of tiny tasks for grid
+   * sources while large fault and interface sources no longer run as single,
+   * long tasks.
+   *
+   * Task size does not depend on the number of sites: partitioning a source
+   * changes the order in which its curves are summed, so each site of a sweep
+   * must be partitioned exactly as it would be on its own for results to be
+   * identical. Sweep tasks are therefore proportionally more costly.
+   */
+  static ListenableFuture<List<HazardCurveSet>> sourcesToCurves(
+      SourceSet<? extends Source> sources,
+      CalcConfig config,
+      List<Site> sites,
+      Executor ex) {
+
+    SourceToCurves sourceToCurves = new SourceToCurves(sources, config, sites);
+    int gmCount = sources.groundMotionModels().gmms().size() * config.hazard.imts.size();
+    int taskSize = Math.max(1, TASK_COST / gmCount);
+
+    AsyncList<List<List<HazardCurves>>> curvesList = AsyncList.create();
+    List<Source> batch = new ArrayList<>();
+    int batchSize = 0;
+    SourceToInputs sourceToInputs = null;
+    InputsToCurves inputsToCurves = null;
+    int sourceCount = 0;
+
+    for (Source source : sources.iterableForLocation(sites.get(0).location)) {
+      int size = source.size();
+      sourceCount++;
+
+      if (size > 2 * taskSize) {
+        if (!batch.isEmpty()) {
+          curvesList.add(sourcesToCurves(batch, sourceToCurves, ex));
+          batch = new ArrayList<>();
+          batchSize = 0;
+        }
+        if (inputsToCurves == null) {
+          sourceToInputs = new SourceToInputs(sites.get(0));
+          inputsToCurves = new InputsToCurves(sources, config);
+        }
+        curvesList.add(transform(
+            sourceToPartitionedCurves(source, sites, sourceToInputs, inputsToCurves, taskSize, ex),
+            ImmutableList::of,
+            ex));
+        continue;
+      }
+
+      batch.add(source);
+      batchSize += size;
+      if (batchSize >= taskSize) {
+        curvesList.add(sourcesToCurves(batch, sourceToCurves, ex));
+        batch = new ArrayList<>();
+        batchSize = 0;
+      }
+    }
+    if (!batch.isEmpty()) {
+      curvesList.add(sourcesToCurves(batch, sourceToCurves, ex));
+    }
+    CalcMetrics.sources(sources, sourceCount);
+
+    CurveConsolidator consolidateFn = new CurveConsolidator(sources, config);
+    return transform(
+        allAsList(curvesList),
+        batches -> consolidate(
+            ImmutableList.copyOf(Iterables.concat(batches)),
+            sites.size(),
+            consolidateFn),
+        ex);
+  }
+
+  private static ListenableFuture<List<List<HazardCurves>>> sourcesToCurves(
+      List<Source> batch,
+      SourceToCurves sourceToCurves,
+      Executor ex) {
+
+    return transform(
+        immediateFuture(batch),
+        sources -> {
+          List<List<HazardCurves>> curvesList = new ArrayList<>(sources.size());
+          for (Source source : sources) {
+            curvesList.add(sourceToCurves.apply(source));
+          }
+          return curvesList;
+        },
+        ex);
   }
 
-  /* Asynchronously compute hazard curves for a SourceSet. */
-  static ListenableFuture<HazardCurveSet> sourcesToCurves(
+  /*
+   * Asynchronously compute the hazard curves of a single source at each site by
+   * partitioning the input list of each site.
+   */
+  private static ListenableFuture<List<HazardCurves>> sourceToPartitionedCurves(
+      Source source,
+      List<Site> sites,
+      SourceToInputs sourceToInputs,
+      InputsToCurves inputsToCurves,
+      int size,
+      Executor ex) {
+
+    ListenableFuture<SourceInputList> inputs = transform(
+        immediateFuture(source),
+        sourceToInputs.andThen(SourceInputList::deduplicate)::apply,
+        ex);
+    return transformAsync(
+        inputs,
+        list -> {
+          AsyncList<HazardCurves> curvesList = AsyncList.createWithCapacity(sites.size());
+          for (int i = 0; i < sites.size(); i++) {
+            InputList siteInputs = (i == 0) ? list : list.forSite(sites.get(i));
+            curvesList.add(partitionedInputsToCurves(siteInputs, inputsToCurves, size, ex));
+          }
+          return allAsList(curvesList);
+        },
+        ex);
+  }
+
+  /*
+   * Asynchronously compute hazard curves for an AreaSourceSet. The input lists
+   * of large area sources are partitioned and processed as independent tasks
+   * before being recombined into a single HazardCurves for each source.
+   */
+  static ListenableFuture<List<HazardCurveSet>> areasToCurves(
       SourceSet<? extends Source> sources,
       CalcConfig config,
-      Site site,
+      List<Site> sites,
       Executor ex) {
 
-    SourceToCurves sourceToCurves = new SourceToCurves(sources, config, site);
+    SourceToInputs sourceToInputs = new SourceToInputs(sites.get(0));
+    InputsToCurves inputsToCurves = new InputsToCurves(sources, config);
+    int size = config.performance.systemPartition;
+    AsyncList<List<HazardCurves>> curvesList = AsyncList.create();
+    for (Source source : sources.iterableForLocation(sites.get(0).location)) {
+      curvesList.add(sourceToPartitionedCurves(
+          source, sites, sourceToInputs, inputsToCurves, size, ex));
+    }
+    CalcMetrics.sources(sources, curvesList.size());
+    CurveConsolidator consolidateFn = new CurveConsolidator(sources, config);
+    return transform(
+        allAsList(curvesList),
+        sourceCurves -> consolidate(sourceCurves, sites.size(), consolidateFn),
+        ex);
+  }
+
+  private static ListenableFuture<HazardCurves> partitionedInputsToCurves(
+      InputList inputs,
+      InputsToCurves inputsToCurves,
+      int size,
+      Executor ex) {
+
+    if (inputs.size() <= size) {
+      return immediateFuture(inputsToCurves.apply(inputs));
+    }
     AsyncList<HazardCurves> curvesList = AsyncList.create();
-    for (Source source : sources.iterableForLocation(site.location)) {
-      ListenableFuture<HazardCurves> curves = transform(
-          immediateFuture(source),
-          sourceToCurves::apply,
-          ex);
-      curvesList.add(curves);
+    for (InputList partition : inputs.partition(size)) {
+      curvesList.add(transform(
+          immediateFuture(partition),
+          inputsToCurves::apply,
+          ex));
     }
     return transform(
         allAsList(curvesList),
-        new CurveConsolidator(sources, config)::apply,
+        partitionCurves -> HazardCurves.combine(inputs, partitionCurves),
         ex);
   }
 
   /* Compute hazard curves for a SystemSourceSet. */
-  static HazardCurveSet systemToCurves(
+  static List<HazardCurveSet> systemToCurves(
       SystemSourceSet sources,
       CalcConfig config,
-      Site site) {
+      List<Site> sites) {
 
-    return new SystemToCurves(config, site).apply(sources);
+    return new SystemToCurves(config, sites).apply(sources);
   }
 
   /* Asynchronously compute hazard curves for a SystemSourceSet. */
-  static ListenableFuture<HazardCurveSet> systemToCurves(
+  static ListenableFuture<List<HazardCurveSet>> systemToCurves(
       SystemSourceSet sources,
       CalcConfig config,
-      Site site,
+      List<Site> sites,
       final Executor ex) {
 
     return transform(
         immediateFuture(sources),
-        new ParallelSystemToCurves(site, config, ex)::apply,
+        new ParallelSystemToCurves(sites, config, ex)::apply,
         ex);
   }
 
   /* Compute hazard curves for a ClusterSourceSet. */
-  static HazardCurveSet clustersToCurves(
+  static List<HazardCurveSet> clustersToCurves(
       ClusterSourceSet sources,
       CalcConfig config,
-      Site site) {
+      List<Site> sites) {
 
-    ClusterToCurves clusterToCurves = new ClusterToCurves(sources, config, site);
-    List<ClusterCurves> curvesList = new ArrayList<>();
-    for (ClusterSource source : sources.iterableForLocation(site.location)) {
+    ClusterToCurves clusterToCurves = new ClusterToCurves(sources, config, sites);
+    List<List<ClusterCurves>> curvesList = new ArrayList<>();
+    for (ClusterSource source : sources.iterableForLocation(sites.get(0).location)) {
       curvesList.add(clusterToCurves.apply(source));
     }
+    CalcMetrics.sources(sources, curvesList.size());
     ClusterCurveConsolidator consolidateFn = new ClusterCurveConsolidator(sources, config);
-    return consolidateFn.apply(curvesList);
+    return consolidate(curvesList, sites.size(), consolidateFn);
   }
 
   /* Asynchronously compute hazard curves for a ClusterSourceSet. */
-  static ListenableFuture<HazardCurveSet> clustersToCurves(
+  static ListenableFuture<List<HazardCurveSet>> clustersToCurves(
       ClusterSourceSet sources,
       CalcConfig config,
-      Site site,
+      List<Site> sites,
       Executor ex) {
 
-    ClusterToCurves clusterToCurves = new ClusterToCurves(sources, config, site);
-    AsyncList<ClusterCurves> curvesList = AsyncList.create();
-    for (ClusterSource source : sources.iterableForLocation(site.location)) {
-      ListenableFuture<ClusterCurves> curves = transform(
+    ClusterToCurves clusterToCurves = new ClusterToCurves(sources, config, sites);
+    AsyncList<List<ClusterCurves>> curvesList = AsyncList.create();
+    for (ClusterSource source : sources.iterableForLocation(sites.get(0).location)) {
+      ListenableFuture<List<ClusterCurves>> curves = transform(
           immediateFuture(source),
           clusterToCurves::apply,
           ex);
       curvesList.add(curves);
     }
+    CalcMetrics.sources(sources, curvesList.size());
+    ClusterCurveConsolidator consolidateFn = new ClusterCurveConsolidator(sources, config);
     return transform(
         allAsList(curvesList),
-        new ClusterCurveConsolidator(sources, config)::apply,
+        sourceCurves -> consolidate(sourceCurves, sites.size(), consolidateFn),
         ex);
   }
 
-  /* Reduce hazard curves to a result. */
-  static Hazard toHazardResult(
+  /*
+   * Reduce source curves, supplied as a list of per-site curves for each
+   * source, to a curve set for each site.
+   */
+  private static <T> List<HazardCurveSet> consolidate(
+      List<List<T>> sourceCurves,
+      int siteCount,
+      Function<List<T>, HazardCurveSet> consolidateFn) {
+
+    List<HazardCurveSet> curveSets = new ArrayList<>(siteCount);
+    for (int i = 0; i < siteCount; i++) {
+      List<T> siteCurves = new ArrayList<>(sourceCurves.size());
+      for (List<T> curves : sourceCurves) {
+        siteCurves.add(curves.get(i));
+      }
+      curveSets.add(consolidateFn.apply(siteCurves));
+    }
+    return curveSets;
+  }
+
+  /* Reduce hazard curves to a result for each site. */
+  static List<Hazard> toHazardResult(
       HazardModel model,
       CalcConfig config,
-      Site site,
-      List<HazardCurveSet> curveSets) {
+      List<Site> sites,
+      List<List<HazardCurveSet>> curveSets) {
 
-    return new CurveSetConsolidator(model, config, site).apply(curveSets);
+    List<Hazard> hazards = new ArrayList<>(sites.size());
+    for (int i = 0; i < sites.size(); i++) {
+      List<HazardCurveSet> siteCurveSets = new ArrayList<>(curveSets.size());
+      for (List<HazardCurveSet> curveSetList : curveSets) {
+        siteCurveSets.add(curveSetList.get(i));
+      }
+      hazards.add(new CurveSetConsolidator(model, config, sites.get(i)).apply(siteCurveSets));
+    }
+    return hazards;
   }
 
-  /* Asynchronously reduce hazard curves to a result. */
-  static Hazard toHazardResult(
+  /* Asynchronously reduce hazard curves to a result for each site. */
+  static List<Hazard> toHazardResult(
       HazardModel model,
       CalcConfig config,
-      Site site,
-      AsyncList<HazardCurveSet> curveSets,
+      List<Site> sites,
+      AsyncList<List<HazardCurveSet>> curveSets,
       Executor ex) throws InterruptedException, ExecutionException {
 
     return transform(
         allAsList(curveSets),
-        new CurveSetConsolidator(model, config, site)::apply,
+        curveSetLists -> toHazardResult(model, config, sites, curveSetLists),
         ex).get();
   }
 
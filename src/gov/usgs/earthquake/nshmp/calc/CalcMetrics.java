@@ -0,0 +1,241 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import gov.usgs.earthquake.nshmp.eq.model.Source;
+import gov.usgs.earthquake.nshmp.eq.model.SourceSet;
+import gov.usgs.earthquake.nshmp.gmm.Gmm;
+import gov.usgs.earthquake.nshmp.gmm.Imt;
+
+/**
+ * Process-wide counters and timers of the hazard calculation pipeline. Metrics
+ * cover the number of sources used and skipped (by distance) at each site,
+ * hazard inputs generated and collapsed by deduplication, ground motion model
+ * evaluations by {@link Gmm} and {@link Imt}, exceedance curve evaluations,
+ * grid and area table builds, exported bytes, and the wall time spent on each
+ * {@link SourceSet}.
+ *
+ * <p>All metrics are backed by {@link LongAdder}s and are generally recorded
+ * once per task rather than once per rupture or ground motion, so collection
+ * is always enabled and contention between calculation threads is negligible.
+ * Metrics accumulate across all calculations run in a JVM until
+ * {@link #reset()} is called; command line programs reset metrics on startup
+ * and {@link #write(Path) write} a JSON summary alongside their log file.
+ */
+public final class CalcMetrics {
+
+  /** Metrics summary file name. */
+  public static final String FILE_NAME = "metrics.json";
+
+  private static final LongAdder sources = new LongAdder();
+  private static final LongAdder sourcesSkipped = new LongAdder();
+  private static final LongAdder inputs = new LongAdder();
+  private static final LongAdder inputsCollapsed = new LongAdder();
+  private static final LongAdder exceedances = new LongAdder();
+  private static final LongAdder exportBytes = new LongAdder();
+  private static final LongAdder cacheHits = new LongAdder();
+  private static final LongAdder cacheMisses = new LongAdder();
+  private static final LongAdder[][] gmmEvaluations = initGmmEvaluations();
+
+  private static final Timer gridTables = new Timer();
+  private static final Timer areaTables = new Timer();
+  private static final ConcurrentMap<String, Timer> sourceSets = new ConcurrentHashMap<>();
+
+  private CalcMetrics() {}
+
+  private static LongAdder[][] initGmmEvaluations() {
+    LongAdder[][] adders = new LongAdder[Gmm.values().length][Imt.values().length];
+    for (LongAdder[] imtAdders : adders) {
+      for (int i = 0; i < imtAdders.length; i++) {
+        imtAdders[i] = new LongAdder();
+      }
+    }
+    return adders;
+  }
+
+  /**
+   * Reset all metrics.
+   */
+  public static void reset() {
+    sources.reset();
+    sourcesSkipped.reset();
+    inputs.reset();
+    inputsCollapsed.reset();
+    exceedances.reset();
+    exportBytes.reset();
+    cacheHits.reset();
+    cacheMisses.reset();
+    for (LongAdder[] imtAdders : gmmEvaluations) {
+      for (LongAdder adder : imtAdders) {
+        adder.reset();
+      }
+    }
+    gridTables.reset();
+    areaTables.reset();
+    sourceSets.clear();
+  }
+
+  /* Sources supplied to, and skipped by, SourceSet.iterableForLocation(). */
+  static void sources(SourceSet<? extends Source> sourceSet, int used) {
+    sources.add(used);
+    sourcesSkipped.add(Math.max(0, sourceSet.size() - used));
+  }
+
+  static void inputs(int count) {
+    inputs.add(count);
+  }
+
+  /* Inputs removed by SourceInputList.deduplicate(). */
+  static void inputsCollapsed(int count) {
+    inputsCollapsed.add(count);
+  }
+
+  static void gmmEvaluations(Gmm gmm, Imt imt, int count) {
+    gmmEvaluations[gmm.ordinal()][imt.ordinal()].add(count);
+  }
+
+  static void exceedances(long count) {
+    exceedances.add(count);
+  }
+
+  static void exportBytes(long count) {
+    exportBytes.add(count);
+  }
+
+  static void cacheHit() {
+    cacheHits.increment();
+  }
+
+  static void cacheMiss() {
+    cacheMisses.increment();
+  }
+
+  static void gridTable(long start) {
+    gridTables.add(System.nanoTime() - start);
+  }
+
+  static void areaTable(long start) {
+    areaTables.add(System.nanoTime() - start);
+  }
+
+  /*
+   * Wall time from submission to completion of the calculation of a SourceSet
+   * at a site. For asynchronous calculations, this includes time spent waiting
+   * for a thread.
+   */
+  static void sourceSet(SourceSet<? extends Source> sourceSet, long start) {
+    long nanos = System.nanoTime() - start;
+    String key = sourceSet.type() + ": " + sourceSet.name();
+    sourceSets.computeIfAbsent(key, k -> new Timer()).add(nanos);
+  }
+
+  /**
+   * Return a JSON representation of the current state of all metrics.
+   */
+  public static String toJson() {
+    return GSON.toJson(toJsonObject());
+  }
+
+  /**
+   * Write a JSON summary of all metrics to {@link #FILE_NAME} in the supplied
+   * directory.
+   *
+   * @param dir to write to
+   */
+  public static void write(Path dir) throws IOException {
+    Path file = dir.resolve(FILE_NAME);
+    try (Writer writer = Files.newBufferedWriter(file, UTF_8)) {
+      GSON.toJson(toJsonObject(), writer);
+    }
+  }
+
+  private static JsonObject toJsonObject() {
+    JsonObject counts = new JsonObject();
+    counts.addProperty("sources", sources.sum());
+    counts.addProperty("sourcesSkipped", sourcesSkipped.sum());
+    counts.addProperty("inputs", inputs.sum());
+    counts.addProperty("inputsCollapsed", inputsCollapsed.sum());
+    counts.addProperty("exceedanceEvaluations", exceedances.sum());
+    counts.addProperty("exportBytes", exportBytes.sum());
+    counts.addProperty("cacheHits", cacheHits.sum());
+    counts.addProperty("cacheMisses", cacheMisses.sum());
+
+    JsonObject gmms = new JsonObject();
+    for (Gmm gmm : Gmm.values()) {
+      JsonObject imts = new JsonObject();
+      for (Imt imt : Imt.values()) {
+        long count = gmmEvaluations[gmm.ordinal()][imt.ordinal()].sum();
+        if (count > 0) {
+          imts.addProperty(imt.name(), count);
+        }
+      }
+      if (imts.size() > 0) {
+        gmms.add(gmm.name(), imts);
+      }
+    }
+
+    JsonObject tables = new JsonObject();
+    tables.add("grid", gridTables.toJson());
+    tables.add("area", areaTables.toJson());
+
+    JsonObject sets = new JsonObject();
+    for (Entry<String, Timer> entry : new TreeMap<>(sourceSets).entrySet()) {
+      sets.add(entry.getKey(), entry.getValue().toJson());
+    }
+
+    JsonObject root = new JsonObject();
+    root.add("counts", counts);
+    root.add("gmmEvaluations", gmms);
+    root.add("tableBuilds", tables);
+    root.add("sourceSets", sets);
+    return root;
+  }
+
+  /* Count, total, and maximum duration of a repeated operation. */
+  private static final class Timer {
+
+    final LongAdder count = new LongAdder();
+    final LongAdder nanos = new LongAdder();
+    final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    void add(long duration) {
+      count.increment();
+      nanos.add(duration);
+      max.accumulate(duration);
+    }
+
+    void reset() {
+      count.reset();
+      nanos.reset();
+      max.reset();
+    }
+
+    JsonObject toJson() {
+      JsonObject json = new JsonObject();
+      json.addProperty("count", count.sum());
+      json.addProperty("totalMs", TimeUnit.NANOSECONDS.toMillis(nanos.sum()));
+      json.addProperty("maxMs", TimeUnit.NANOSECONDS.toMillis(max.get()));
+      return json;
+    }
+  }
+
+  private static final Gson GSON = new GsonBuilder()
+      .setPrettyPrinting()
+      .create();
+}
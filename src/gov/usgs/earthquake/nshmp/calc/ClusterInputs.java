@@ -29,6 +29,18 @@ final class ClusterInputs extends AbstractList<SourceInputList> {
     delegate = new ArrayList<>();
   }
 
+  /*
+   * Return a copy of these inputs with the site terms of every input replaced
+   * by those of the supplied site.
+   */
+  ClusterInputs forSite(Site site) {
+    ClusterInputs copy = new ClusterInputs(parent);
+    for (SourceInputList inputs : delegate) {
+      copy.add(inputs.forSite(site));
+    }
+    return copy;
+  }
+
   @Override
   public boolean add(SourceInputList inputs) {
     return delegate.add(inputs);
@@ -0,0 +1,285 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static gov.usgs.earthquake.nshmp.calc.HazardExport.HEADER_MAX_IMLS;
+import static gov.usgs.earthquake.nshmp.calc.HazardExport.HEADER_OFFSET;
+import static gov.usgs.earthquake.nshmp.calc.HazardExport.INFO_LINE_SIZE;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Doubles;
+
+import gov.usgs.earthquake.nshmp.data.Interpolator;
+import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.geo.Bounds;
+import gov.usgs.earthquake.nshmp.geo.Location;
+import gov.usgs.earthquake.nshmp.geo.Locations;
+import gov.usgs.earthquake.nshmp.gmm.Imt;
+import gov.usgs.earthquake.nshmp.util.Maths;
+
+/**
+ * Random-access reader of the binary hazard curve files ({@code curves.bin})
+ * written by {@link HazardExport}. Files are memory-mapped rather than read
+ * into the heap so that curves at individual locations may be retrieved
+ * quickly from very large maps, and bulk operations over every map node read
+ * only the data they need.
+ *
+ * <p>A binary curve file consists of a header describing the map grid and
+ * intensity measure levels (IMLs), followed by a curve of single precision
+ * annual rates for every node in the map grid, ordered by ascending longitude
+ * and then descending latitude. Nodes for which no result was written have
+ * curves of zeros.
+ *
+ * <p>Instances are thread-safe.
+ */
+public final class CurveFile {
+
+  /* Ground motion at rate; curves have linear IMLs. */
+  private static final Interpolator IML_INTERPOLATER = Interpolator.builder()
+      .logx()
+      .logy()
+      .decreasingX()
+      .build();
+
+  /* Header values are single precision. */
+  private static final int ROUND = 5;
+
+  private final String description;
+  private final String timestamp;
+  private final Imt imt;
+  private final double[] imls;
+  private final Bounds bounds;
+  private final double spacing;
+  private final double vs30;
+  private final int columns;
+  private final int rows;
+  private final FloatBuffer curves;
+
+  private CurveFile(ByteBuffer buffer) {
+    buffer.order(LITTLE_ENDIAN);
+
+    byte[] line = new byte[INFO_LINE_SIZE];
+    buffer.get(line);
+    this.description = new String(line, UTF_8).trim();
+    buffer.get(line);
+    this.timestamp = new String(line, UTF_8).trim();
+    buffer.position(6 * INFO_LINE_SIZE);
+
+    double period = buffer.getFloat();
+    this.imt = (period == 0.0) ? Imt.PGA : (period == -1.0) ? Imt.PGV : Imt.fromPeriod(period);
+    int imlCount = buffer.getInt();
+    checkArgument(
+        imlCount > 0 && imlCount <= HEADER_MAX_IMLS,
+        "Invalid IML count: %s", imlCount);
+    this.imls = new double[imlCount];
+    for (int i = 0; i < HEADER_MAX_IMLS; i++) {
+      double iml = buffer.getFloat();
+      if (i < imlCount) {
+        imls[i] = Maths.round(iml, ROUND);
+      }
+    }
+
+    buffer.getFloat(); // empty
+    double minLon = Maths.round(buffer.getFloat(), ROUND);
+    double maxLon = Maths.round(buffer.getFloat(), ROUND);
+    this.spacing = Maths.round(buffer.getFloat(), ROUND);
+    double minLat = Maths.round(buffer.getFloat(), ROUND);
+    double maxLat = Maths.round(buffer.getFloat(), ROUND);
+    buffer.getFloat(); // lat spacing
+    int gridSize = (int) buffer.getFloat();
+    this.vs30 = Maths.round(buffer.getFloat(), ROUND);
+
+    this.bounds = Locations.bounds(ImmutableList.of(
+        Location.create(minLat, minLon),
+        Location.create(maxLat, maxLon)));
+    this.columns = (int) Math.rint((maxLon - minLon) / spacing) + 1;
+    this.rows = (int) Math.rint((maxLat - minLat) / spacing) + 1;
+    checkArgument(
+        gridSize == HazardExport.gridSize(bounds, spacing),
+        "Grid size [%s] inconsistent with map extents", gridSize);
+
+    buffer.position(HEADER_OFFSET);
+    ByteBuffer data = buffer.slice().order(LITTLE_ENDIAN);
+    checkArgument(
+        data.remaining() >= (long) gridSize * imlCount * Float.BYTES,
+        "File is truncated; expected %s curves", gridSize);
+    this.curves = data.asFloatBuffer();
+  }
+
+  /**
+   * Open a binary curve file for reading.
+   *
+   * @param path to file
+   * @throws IOException if the file can not be read
+   * @throws IllegalArgumentException if the file is not a valid curve file
+   */
+  public static CurveFile open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, READ)) {
+      checkArgument(
+          channel.size() >= HEADER_OFFSET && channel.size() <= Integer.MAX_VALUE,
+          "Invalid file size: %s", channel.size());
+      /* Mapping remains valid after the channel is closed. */
+      return new CurveFile(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /** The file description. */
+  public String description() {
+    return description;
+  }
+
+  /** The time at which the file was created. */
+  public String timestamp() {
+    return timestamp;
+  }
+
+  /** The intensity measure type of the curves in the file. */
+  public Imt imt() {
+    return imt;
+  }
+
+  /** The intensity measure levels of every curve in the file. */
+  public List<Double> imls() {
+    return Doubles.asList(imls.clone());
+  }
+
+  /** The extents of the map grid. */
+  public Bounds bounds() {
+    return bounds;
+  }
+
+  /** The spacing of the map grid, in decimal degrees. */
+  public double spacing() {
+    return spacing;
+  }
+
+  /** The site Vs30 used to compute the curves in the file. */
+  public double vs30() {
+    return vs30;
+  }
+
+  /** The number of nodes in the map grid. */
+  public int size() {
+    return columns * rows;
+  }
+
+  /**
+   * The index of the map node at the supplied location, or -1 if the location
+   * is outside the map extents. Locations are matched to the closest node.
+   *
+   * @param location of interest
+   */
+  public int index(Location location) {
+    int column = (int) Math.rint((location.lon() - bounds.min().lon()) / spacing);
+    int row = (int) Math.rint((bounds.max().lat() - location.lat()) / spacing);
+    if (column < 0 || column >= columns || row < 0 || row >= rows) {
+      return -1;
+    }
+    return row * columns + column;
+  }
+
+  /**
+   * The location of the map node at the supplied index.
+   *
+   * @param index of node
+   */
+  public Location location(int index) {
+    checkElementIndex(index, size());
+    int row = index / columns;
+    int column = index % columns;
+    return Location.create(
+        Maths.round(bounds.max().lat() - row * spacing, ROUND),
+        Maths.round(bounds.min().lon() + column * spacing, ROUND));
+  }
+
+  /**
+   * The hazard curve, in annual rate, of the map node at the supplied index.
+   *
+   * @param index of node
+   */
+  public XySequence curve(int index) {
+    checkElementIndex(index, size());
+    return XySequence.create(imls, read(index));
+  }
+
+  /**
+   * The hazard curve, in annual rate, of the map node closest to the supplied
+   * location.
+   *
+   * @param location of interest
+   * @throws IllegalArgumentException if the location is outside the map
+   */
+  public XySequence curve(Location location) {
+    int index = index(location);
+    checkArgument(index != -1, "Location %s is outside map extents", location);
+    return curve(index);
+  }
+
+  /**
+   * Whether a curve was written for the map node at the supplied index. Curves
+   * that are all zeros are assumed to be nodes outside the calculation region.
+   *
+   * @param index of node
+   */
+  public boolean hasCurve(int index) {
+    checkElementIndex(index, size());
+    int offset = index * imls.length;
+    for (int i = 0; i < imls.length; i++) {
+      if (curves.get(offset + i) != 0.0f) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Compute the ground motion at the supplied return period for every node in
+   * the map. Nodes are processed in parallel. Nodes with hazard that is below
+   * the target rate at all IMLs, including those outside the calculation
+   * region, have a ground motion of 0.0.
+   *
+   * @param returnPeriod in years
+   * @return an array of ground motions indexed as the nodes of this file
+   */
+  public double[] groundMotions(double returnPeriod) {
+    checkArgument(returnPeriod > 0.0, "Return period must be positive");
+    double rate = 1.0 / returnPeriod;
+    double[] groundMotions = new double[size()];
+    IntStream.range(0, size()).parallel().forEach(
+        i -> groundMotions[i] = IML_INTERPOLATER.findX(imls, read(i), rate));
+    return groundMotions;
+  }
+
+  /* Absolute gets on the shared buffer are thread-safe. */
+  private double[] read(int index) {
+    double[] ys = new double[imls.length];
+    int offset = index * imls.length;
+    for (int i = 0; i < ys.length; i++) {
+      ys[i] = curves.get(offset + i);
+    }
+    return ys;
+  }
+
+  @Override
+  public String toString() {
+    return new StringBuilder(getClass().getSimpleName())
+        .append(" [").append(imt)
+        .append(", ").append(columns).append("x").append(rows)
+        .append(", spacing=").append(spacing)
+        .append(", bounds=").append(bounds)
+        .append("]")
+        .toString();
+  }
+}
@@ -4,6 +4,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static gov.usgs.earthquake.nshmp.data.Data.checkInRange;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -265,10 +266,26 @@ final class DeaggDataset {
     }
   }
 
+  /*
+   * Common interface of dense and sparse builders that accept rupture data and
+   * child contributors.
+   */
+  interface Accumulator {
+
+    Accumulator addRate(
+        int ri, int mi, int εi,
+        double rw, double mw, double εw,
+        double rate);
+
+    Accumulator addResidual(double residual);
+
+    Accumulator addChildContributor(DeaggContributor.Builder contributor);
+  }
+
   /*
    * Base DeaggDataset builder for which parent contributor can be of any type.
    */
-  static class Builder extends AbstractBuilder {
+  static class Builder extends AbstractBuilder implements Accumulator {
 
     /* Primary contributor for this dataset. */
     DeaggContributor.Builder parent;
@@ -293,7 +310,8 @@ final class DeaggDataset {
      * values, deaggregation is being performed across each Gmm, so precomputing
      * indices and scaled values in the calling method brings some efficiency.
      */
-    Builder addRate(
+    @Override
+    public Builder addRate(
         int ri, int mi, int εi,
         double rw, double mw, double εw,
         double rate) {
@@ -310,11 +328,31 @@ final class DeaggDataset {
      * Add residual rate for events falling outside distance and magnitude
      * ranges supported by this deaggregation.
      */
-    Builder addResidual(double residual) {
+    @Override
+    public Builder addResidual(double residual) {
       this.residual += residual;
       return this;
     }
 
+    /*
+     * Add the data accumulated in a sparse builder. Child contributors of the
+     * sparse builder are not transferred; see SparseBuilder.parent.
+     */
+    Builder add(SparseBuilder sparse) {
+      for (int i = 0, j = 0, k = 0; i < sparse.size; i++, j += 3, k += 4) {
+        int ri = sparse.indices[j];
+        int mi = sparse.indices[j + 1];
+        int εi = sparse.indices[j + 2];
+        rmε.add(ri, mi, εi, sparse.values[k]);
+        rScaled.add(ri, mi, εi, sparse.values[k + 1]);
+        mScaled.add(ri, mi, εi, sparse.values[k + 2]);
+        εScaled.add(ri, mi, εi, sparse.values[k + 3]);
+      }
+      binned += sparse.binned;
+      residual += sparse.residual;
+      return this;
+    }
+
     Builder setParentContributor(DeaggContributor.Builder parent) {
       this.parent = parent;
       return this;
@@ -325,7 +363,8 @@ final class DeaggDataset {
      * added after multiple calls to add(data...) for the ruptures it represents
      * wioth the total rate for the source having been tracked externally.
      */
-    Builder addChildContributor(DeaggContributor.Builder contributor) {
+    @Override
+    public Builder addChildContributor(DeaggContributor.Builder contributor) {
       checkState(parent != null, "Parent contributor has not been set");
       parent.addChild(contributor);
       return this;
@@ -372,6 +411,101 @@ final class DeaggDataset {
     }
   }
 
+  /*
+   * Sparse builder used to accumulate the rupture data of a single source, or
+   * group of sources such as a ClusterSource, that will only populate a small
+   * fraction of the bins of a dense dataset. Bin indices and values are stored
+   * in parallel, growable arrays and are merged into a source set level
+   * Builder via Builder.add(SparseBuilder). Once merged, a sparse builder may
+   * be reset and reused.
+   */
+  static final class SparseBuilder implements Accumulator {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /* [ri, mi, εi] triplets */
+    private int[] indices = new int[INITIAL_CAPACITY * 3];
+
+    /* [rate, rScaled, mScaled, εScaled] quads */
+    private double[] values = new double[INITIAL_CAPACITY * 4];
+
+    private int size;
+    private double binned;
+    private double residual;
+
+    /* Primary contributor for the source(s) being accumulated. */
+    DeaggContributor.Builder parent;
+
+    @Override
+    public SparseBuilder addRate(
+        int ri, int mi, int εi,
+        double rw, double mw, double εw,
+        double rate) {
+
+      if (size * 3 == indices.length) {
+        indices = Arrays.copyOf(indices, indices.length * 2);
+        values = Arrays.copyOf(values, values.length * 2);
+      }
+      int j = size * 3;
+      indices[j] = ri;
+      indices[j + 1] = mi;
+      indices[j + 2] = εi;
+      int k = size * 4;
+      values[k] = rate;
+      values[k + 1] = rw;
+      values[k + 2] = mw;
+      values[k + 3] = εw;
+      size++;
+      binned += rate;
+      return this;
+    }
+
+    @Override
+    public SparseBuilder addResidual(double residual) {
+      this.residual += residual;
+      return this;
+    }
+
+    SparseBuilder setParentContributor(DeaggContributor.Builder parent) {
+      this.parent = parent;
+      return this;
+    }
+
+    @Override
+    public SparseBuilder addChildContributor(DeaggContributor.Builder contributor) {
+      checkState(parent != null, "Parent contributor has not been set");
+      parent.addChild(contributor);
+      return this;
+    }
+
+    /*
+     * Return the current total rate of ruptures added to this builder thus far.
+     */
+    double rate() {
+      return binned + residual;
+    }
+
+    /* Scale all values, cascading to the parent contributor. */
+    SparseBuilder multiply(double scale) {
+      for (int i = 0; i < size * 4; i++) {
+        values[i] *= scale;
+      }
+      binned *= scale;
+      residual *= scale;
+      parent.multiply(scale);
+      return this;
+    }
+
+    /* Clear all data, retaining storage, for reuse. */
+    SparseBuilder reset() {
+      size = 0;
+      binned = 0.0;
+      residual = 0.0;
+      parent = null;
+      return this;
+    }
+  }
+
   private abstract static class AbstractCombiner extends AbstractBuilder {
 
     private AbstractCombiner(DeaggDataset model) {
@@ -107,6 +107,8 @@ public final class Deaggregation {
       double returnPeriod,
       Executor exec) {
 
+    /* Cached results lack the ground motions required to deaggregate. */
+    hazard = HazardCache.recalculate(hazard, exec);
     double rate = 1.0 / returnPeriod;
     Set<Imt> imtsToDeagg = hazard.totalCurves.keySet();
 
@@ -137,6 +139,8 @@ public final class Deaggregation {
       double iml,
       Executor exec) {
 
+    /* Cached results lack the ground motions required to deaggregate. */
+    hazard = HazardCache.recalculate(hazard, exec);
     Set<Imt> imtsToDeagg = hazard.totalCurves.keySet();
 
     DeaggConfig.Builder cb = DeaggConfig.builder(hazard);
@@ -169,6 +173,8 @@ public final class Deaggregation {
       Map<Imt, Double> imtImls,
       Executor exec) {
 
+    /* Cached results lack the ground motions required to deaggregate. */
+    hazard = HazardCache.recalculate(hazard, exec);
     DeaggConfig.Builder cb = DeaggConfig.builder(hazard);
     HazardToDeagg transform = new HazardToDeagg(hazard);
     AsyncList<ImtDeagg> futureImtDeaggs = AsyncList.createWithCapacity(imtImls.size());
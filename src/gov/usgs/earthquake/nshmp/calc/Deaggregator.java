@@ -1,7 +1,5 @@
 package gov.usgs.earthquake.nshmp.calc;
 
-import static gov.usgs.earthquake.nshmp.calc.DeaggDataset.SOURCE_CONSOLIDATOR;
-
 import java.math.RoundingMode;
 import java.util.BitSet;
 import java.util.EnumMap;
@@ -15,10 +13,7 @@ import java.util.Set;
 import java.util.function.Function;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
-import com.google.common.collect.MultimapBuilder;
-import com.google.common.collect.Multimaps;
 import com.google.common.primitives.Ints;
 
 import gov.usgs.earthquake.nshmp.calc.DeaggContributor.ClusterContributor;
@@ -115,46 +110,56 @@ final class Deaggregator {
     return buildDatasets(builders);
   }
 
+  /*
+   * Rupture data for each ClusterSource are accumulated in sparse builders
+   * that are scaled to the rate of the cluster and merged into dense, source
+   * set level builders. The sparse builders are reused for each cluster.
+   */
   private Map<Gmm, DeaggDataset> processClusterSources() {
 
     List<Map<Gmm, XySequence>> clusterCurveList = curves.clusterCurveLists.get(imt);
 
-    ListMultimap<Gmm, DeaggDataset> datasets = MultimapBuilder
-        .enumKeys(Gmm.class)
-        .arrayListValues(clusterCurveList.size())
-        .build();
+    /* SourceSet level builders. */
+    Map<Gmm, DeaggDataset.Builder> builders = createBuilders(gmmSet.gmms(), model);
+    for (DeaggDataset.Builder builder : builders.values()) {
+      SourceSetContributor.Builder parent = new SourceSetContributor.Builder();
+      builder.setParentContributor(parent.sourceSet(sources));
+    }
+
+    /* ClusterSource level builders. */
+    Map<Gmm, DeaggDataset.SparseBuilder> clusterBuilders = Maps.newEnumMap(Gmm.class);
+    for (Gmm gmm : gmmSet.gmms()) {
+      clusterBuilders.put(gmm, new DeaggDataset.SparseBuilder());
+    }
 
     for (int i = 0; i < curves.clusterGroundMotionsList.size(); i++) {
       ClusterGroundMotions cgms = curves.clusterGroundMotionsList.get(i);
 
-      /* ClusterSource level builders. */
-      Map<Gmm, DeaggDataset.Builder> datasetBuilders = createBuilders(gmmSet.gmms(), model);
-      for (DeaggDataset.Builder datasetBuilder : datasetBuilders.values()) {
-
-        /*
-         * Fetch site-specific source attributes so that they don't need to be
-         * recalculated multiple times downstream.
-         */
-        ClusterSource cluster = cgms.parent;
-        Location location = cluster.location(site.location);
-        double azimuth = Locations.azimuth(site.location, location);
+      /*
+       * Fetch site-specific source attributes so that they don't need to be
+       * recalculated multiple times downstream.
+       */
+      ClusterSource cluster = cgms.parent;
+      Location location = cluster.location(site.location);
+      double azimuth = Locations.azimuth(site.location, location);
 
+      for (DeaggDataset.SparseBuilder clusterBuilder : clusterBuilders.values()) {
         ClusterContributor.Builder clusterContributor = new ClusterContributor.Builder()
             .cluster(cluster, location, azimuth);
-        datasetBuilder.setParentContributor(clusterContributor);
+        clusterBuilder.reset().setParentContributor(clusterContributor);
       }
 
       /* Process the individual sources in a cluster. */
       for (GroundMotions gms : cgms) {
-        processSource(gms, datasetBuilders);
+        processSource(gms, clusterBuilders);
       }
 
       /*
-       * Scale builders to the rate/contribution of the cluster and attach
-       * ClusterContributors to parent SourceSetContributors and swap.
+       * Scale builders to the rate/contribution of the cluster and merge into
+       * SourceSet level builders.
        */
       Map<Gmm, XySequence> clusterCurves = clusterCurveList.get(i);
-      for (Entry<Gmm, DeaggDataset.Builder> entry : datasetBuilders.entrySet()) {
+      for (Entry<Gmm, DeaggDataset.SparseBuilder> entry : clusterBuilders.entrySet()) {
 
         /*
          * Due to Gmm variations with distance, cluster curves for some GMMs may
@@ -164,7 +169,7 @@ final class Deaggregator {
          * but that end below the target deagg iml.
          */
         Gmm gmm = entry.getKey();
-        DeaggDataset.Builder clusterBuilder = entry.getValue();
+        DeaggDataset.SparseBuilder clusterBuilder = entry.getValue();
         if (clusterCurves.containsKey(gmm)) {
           XySequence clusterCurve = clusterCurves.get(gmm);
           double clusterRate = Deaggregation.RATE_INTERPOLATER.findY(clusterCurve, iml);
@@ -173,24 +178,18 @@ final class Deaggregator {
           }
         }
 
-        /* Swap parents. */
-        DeaggContributor.Builder sourceSetContributor = new SourceSetContributor.Builder()
-            .sourceSet(curves.sourceSet)
-            .addChild(clusterBuilder.parent);
-        clusterBuilder.setParentContributor(sourceSetContributor);
+        builders.get(gmm)
+            .add(clusterBuilder)
+            .addChildContributor(clusterBuilder.parent);
       }
-
-      /* Combine cluster datasets. */
-      Map<Gmm, DeaggDataset> clusterDatasets = buildDatasets(datasetBuilders);
-      datasets.putAll(Multimaps.forMap(clusterDatasets));
     }
 
-    return ImmutableMap.copyOf(Maps.transformValues(
-        Multimaps.asMap(datasets),
-        SOURCE_CONSOLIDATOR::apply));
+    return buildDatasets(builders);
   }
 
-  private void processSource(GroundMotions gms, Map<Gmm, DeaggDataset.Builder> builders) {
+  private void processSource(
+      GroundMotions gms,
+      Map<Gmm, ? extends DeaggDataset.Accumulator> builders) {
 
     /* Local references from argument. */
     InputList inputs = gms.inputs;
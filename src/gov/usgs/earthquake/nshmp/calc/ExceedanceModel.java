@@ -7,6 +7,7 @@ import static gov.usgs.earthquake.nshmp.gmm.Imt.SA0P75;
 import static java.lang.Double.isNaN;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import gov.usgs.earthquake.nshmp.data.XyPoint;
@@ -58,6 +59,11 @@ public enum ExceedanceModel {
       }
       return sequence;
     }
+
+    @Override
+    void addExceedance(double μ, double σ, double n, Imt imt, double[] xs, double w, double[] ys) {
+      addSaturated(xs, windowIndex(xs, μ), w, ys);
+    }
   },
 
   /**
@@ -75,6 +81,11 @@ public enum ExceedanceModel {
     XySequence exceedance(double μ, double σ, double n, Imt imt, XySequence sequence) {
       return boundedCcdFn(μ, σ, sequence, 0.0, 1.0);
     }
+
+    @Override
+    void addExceedance(double μ, double σ, double n, Imt imt, double[] xs, double w, double[] ys) {
+      addBoundedCcdFn(μ, σ, xs, 0.0, 1.0, saturation(μ, σ), Double.POSITIVE_INFINITY, w, ys);
+    }
   },
 
   /**
@@ -92,6 +103,11 @@ public enum ExceedanceModel {
     XySequence exceedance(double μ, double σ, double n, Imt imt, XySequence sequence) {
       return boundedCcdFn(μ, σ, sequence, prob(μ, σ, n), 1.0);
     }
+
+    @Override
+    void addExceedance(double μ, double σ, double n, Imt imt, double[] xs, double w, double[] ys) {
+      addBoundedCcdFn(μ, σ, xs, prob(μ, σ, n), 1.0, saturation(μ, σ), μ + n * σ, w, ys);
+    }
   },
 
   /**
@@ -111,11 +127,22 @@ public enum ExceedanceModel {
       double pHi = prob(μ, σ, n);
       return boundedCcdFn(μ, σ, sequence, pHi, 1.0 - pHi);
     }
+
+    @Override
+    void addExceedance(double μ, double σ, double n, Imt imt, double[] xs, double w, double[] ys) {
+      double pHi = prob(μ, σ, n);
+      addBoundedCcdFn(μ, σ, xs, pHi, 1.0 - pHi, μ - n * σ, μ + n * σ, w, ys);
+    }
   },
 
   /**
    * Fast implementation of upper truncation fixed at 3σ.
    * 
+   * <p>Probabilities are interpolated from a small table and are within ~3.3e-9
+   * of {@link #TRUNCATION_UPPER_ONLY} with {@code n = 3}; they may differ from
+   * results computed with earlier versions, which used a large direct-lookup
+   * table, by up to ~1.4e-7 (see {@link #TRUNCATION_3SIGMA_UPPER_ARRAY}).
+   * 
    * <p>Model ignores truncation level, {@code n}, and {@code imt}.
    */
   TRUNCATION_3SIGMA_UPPER {
@@ -128,6 +155,36 @@ public enum ExceedanceModel {
     XySequence exceedance(double μ, double σ, double n, Imt imt, XySequence sequence) {
       return Ccdfs.UPPER_3SIGMA.get(μ, σ, sequence);
     }
+
+    @Override
+    void addExceedance(double μ, double σ, double n, Imt imt, double[] xs, double w, double[] ys) {
+      Ccdfs.UPPER_3SIGMA.add(μ, σ, xs, w, ys);
+    }
+  },
+
+  /**
+   * Upper truncation fixed at 3σ using the large (~80 MB) direct-lookup table
+   * of earlier versions, which is initialized on first use. Use this model to
+   * reproduce results computed prior to the introduction of the interpolated
+   * table used by {@link #TRUNCATION_3SIGMA_UPPER}.
+   * 
+   * <p>Model ignores truncation level, {@code n}, and {@code imt}.
+   */
+  TRUNCATION_3SIGMA_UPPER_ARRAY {
+    @Override
+    double exceedance(double μ, double σ, double n, Imt imt, double value) {
+      return CcdfArrays.UPPER_3SIGMA.get(μ, σ, value);
+    }
+
+    @Override
+    XySequence exceedance(double μ, double σ, double n, Imt imt, XySequence sequence) {
+      return CcdfArrays.UPPER_3SIGMA.get(μ, σ, sequence);
+    }
+
+    @Override
+    void addExceedance(double μ, double σ, double n, Imt imt, double[] xs, double w, double[] ys) {
+      CcdfArrays.UPPER_3SIGMA.add(μ, σ, xs, w, ys);
+    }
   },
 
   /*
@@ -193,10 +250,19 @@ public enum ExceedanceModel {
       double pHi = prob(μ, σ, n, Math.log(ceusMaxValue(imt)));
       return boundedCcdFn(μ, σ, sequence, pHi, 1.0);
     }
+
+    @Override
+    void addExceedance(double μ, double σ, double n, Imt imt, double[] xs, double w, double[] ys) {
+      double xHi = Math.min(μ + n * σ, Math.log(ceusMaxValue(imt)));
+      double pHi = Maths.normalCcdf(μ, σ, xHi);
+      addBoundedCcdFn(μ, σ, xs, pHi, 1.0, saturation(μ, σ), xHi, w, ys);
+    }
   },
 
   /**
    * Same as {@link #NSHM_CEUS_MAX_INTENSITY}, except that {@code n = 3}.
+   * Where the clamp is not reached, probabilities are those of
+   * {@link #TRUNCATION_3SIGMA_UPPER}.
    * 
    * <p>Model ignores truncation level, {@code n}, and {@code imt}.
    */
@@ -222,6 +288,18 @@ public enum ExceedanceModel {
       double pHi = Maths.normalCcdf(μ, σ, lnMaxGm);
       return boundedCcdFn(μ, σ, sequence, pHi, 1.0);
     }
+
+    @Override
+    void addExceedance(double μ, double σ, double n, Imt imt, double[] xs, double w, double[] ys) {
+      double lnMaxGm = Math.log(ceusMaxValue(imt));
+      double ln3σGm = μ + 3.0 * σ;
+      if (ln3σGm < lnMaxGm) {
+        Ccdfs.UPPER_3SIGMA.add(μ, σ, xs, w, ys);
+        return;
+      }
+      double pHi = Maths.normalCcdf(μ, σ, lnMaxGm);
+      addBoundedCcdFn(μ, σ, xs, pHi, 1.0, saturation(μ, σ), lnMaxGm, w, ys);
+    }
   };
 
   private static double ceusMaxValue(Imt imt) {
@@ -268,6 +346,27 @@ public enum ExceedanceModel {
    */
   abstract XySequence exceedance(double μ, double σ, double n, Imt imt, XySequence sequence);
 
+  /*
+   * Compute the probabilities of exceeding each of the supplied x-values, scale
+   * them by a weight, w, and add them to the corresponding y-values. This is an
+   * allocation-free variant of exceedance(XySequence) for use in inner loops
+   * where the result is immediately weighted and summed; for each x-value, the
+   * value added is identical to that obtained by computing, scaling and adding
+   * a sequence. Models that compute truncation limits once per sequence
+   * override this method to do the same.
+   *
+   * The supplied x-values must be in ascending order. Most overrides are
+   * sparse: they locate the window of x-values for which the probability of
+   * exceedance is neither exactly 1 (far below μ) nor exactly 0 (above an
+   * upper truncation), evaluate only that window, and add w in bulk to the
+   * y-values below it. Y-values above the window are not touched.
+   */
+  void addExceedance(double μ, double σ, double n, Imt imt, double[] xs, double w, double[] ys) {
+    for (int i = 0; i < xs.length; i++) {
+      ys[i] += w * exceedance(μ, σ, n, imt, xs[i]);
+    }
+  }
+
   /*
    * Return a list of exceedance curves, one for each tree branch in the
    * supplied MultiScalarGroundMotion. NOTE that returned curves have NOT been
@@ -359,6 +458,59 @@ public enum ExceedanceModel {
     return sequence;
   }
 
+  /*
+   * Bounded complementary cumulative distribution over an array of ascending
+   * x-values; weighted probabilities are added to the supplied y-values. The
+   * bounded distribution must be exactly 1 below xLo and exactly 0 above xHi;
+   * only the x-values in between are evaluated.
+   */
+  private static void addBoundedCcdFn(
+      double μ,
+      double σ,
+      double[] xs,
+      double pHi,
+      double pLo,
+      double xLo,
+      double xHi,
+      double w,
+      double[] ys) {
+
+    double margin = WINDOW_MARGIN * σ;
+    int lo = windowIndex(xs, xLo - margin);
+    int hi = windowIndex(xs, xHi + margin);
+    addSaturated(xs, lo, w, ys);
+    for (int i = lo; i < hi; i++) {
+      ys[i] += w * boundedCcdFn(μ, σ, xs[i], pHi, pLo);
+    }
+  }
+
+  /*
+   * Add w to the y-values below index lo, where the probability of exceedance
+   * is exactly 1.
+   */
+  private static void addSaturated(double[] xs, int lo, double w, double[] ys) {
+    for (int i = 0; i < lo; i++) {
+      ys[i] += w;
+    }
+  }
+
+  /*
+   * The index of the first of the ascending x-values that is greater than or
+   * equal to x, or xs.length if there is none.
+   */
+  private static int windowIndex(double[] xs, double x) {
+    int i = Arrays.binarySearch(xs, x);
+    return (i < 0) ? -i - 1 : i;
+  }
+
+  /*
+   * The value below which Maths.normalCcdf() returns exactly 1 for the
+   * supplied μ and σ.
+   */
+  private static double saturation(double μ, double σ) {
+    return μ + EPS_SATURATION * σ;
+  }
+
   /*
    * For truncated distributions, p may be out of range. For upper truncations,
    * p may be less than pHi, yielding a negative value in boundedCcdFn(); for
@@ -398,38 +550,54 @@ public enum ExceedanceModel {
     return combined.complement();
   }
 
-  /* Wrapper class avoids unnecessary initialization of array(s). */
+  /* Wrapper classes avoid unnecessary initialization of table(s). */
   private static final class Ccdfs {
+    static final CcdfTable UPPER_3SIGMA = new CcdfTable(Double.NaN, 3.0);
+  }
+
+  private static final class CcdfArrays {
     static final CcdfArray UPPER_3SIGMA = new CcdfArray(Double.NaN, 3.0);
   }
 
+  /*
+   * The error function approximation rounds the complementary cumulative
+   * normal distribution to exactly 1 at about -8.25σ; EPS_SATURATION is a safe
+   * bound on that limit. Windows of x-values are widened by WINDOW_MARGIN·σ on
+   * each side so that truncation limits computed in x- and ε-space round to
+   * the same probabilities; points in the margins are simply evaluated.
+   */
+  private static final double EPS_SATURATION = -8.5;
+  private static final double WINDOW_MARGIN = 1e-6;
+
+  private static final int CCDF_TABLE_SIZE = 512;
+  private static final double EMAX = 4.0;
+
   /* Ensures a clean Δ. */
   private static final int PRECISION = 8;
   private static final int CCND_ARRAY_SIZE = 10000001;
-  private static final double EMAX = 4.0;
 
   /*
-   * Complementary cumulative standard normal distribution. Array may be
-   * initialized with truncated values (lower and/or upper) supplied in units of
-   * σ. Any truncations must fall with in the discretization limits of the
-   * table, which are currently set at EMAX = ±4.0. For no lower or upper
-   * truncation, supply a value of Double.NaN for εMin or εMax.
-   * 
-   * Probabilities below -EMAX are set to 1, and probabilities above EMAX are
+   * Complementary cumulative standard normal distribution, truncated (lower
+   * and/or upper) at limits supplied in units of σ. Any truncations must fall
+   * with in the discretization limits of the table, which are currently set at
+   * EMAX = ±4.0. For no lower or upper truncation, supply a value of Double.NaN
+   * for εMin or εMax.
+   *
+   * Probabilities below εMin are set to 1, and probabilities above εMax are
    * set to 0.
-   * 
+   *
    * The use of 'Lo' or 'Hi' in variable names refers to the lower
    * (probabilities closer to 1) and upper (probabilities closer to 0) ends of
    * the ccdn, respectively.
    */
-  private static final class CcdfArray {
+  private static abstract class Ccdf {
 
-    private final double[] p;
-    private final double Δε;
-    private final double εMin;
-    private final double εMax;
+    final double εMin;
+    final double εMax;
+    final double pLo;
+    final double pHi;
 
-    CcdfArray(double εMin, double εMax) {
+    Ccdf(double εMin, double εMax) {
 
       checkArgument(isNaN(εMin) || εMin >= -EMAX, "εMin [%s] < [%s]", εMin, -EMAX);
       checkArgument(isNaN(εMax) || εMax <= EMAX, "εMax [%s] > [%s]", εMax, EMAX);
@@ -439,11 +607,45 @@ public enum ExceedanceModel {
 
       checkArgument(this.εMin < this.εMax, "εMin [%s] ≥ εMax [%s]", this.εMin, this.εMax);
 
-      p = new double[CCND_ARRAY_SIZE];
+      pLo = isNaN(εMin) ? 1.0 : Maths.normalCcdf(0.0, 1.0, this.εMin);
+      pHi = isNaN(εMax) ? 0.0 : Maths.normalCcdf(0.0, 1.0, this.εMax);
+    }
+
+    abstract double get(double μ, double σ, double x);
+
+    XySequence get(double μ, double σ, XySequence sequence) {
+      for (XyPoint p : sequence) {
+        p.set(get(μ, σ, p.x()));
+      }
+      return sequence;
+    }
+
+    /* Sparse, weighted sum over ascending x-values. */
+    void add(double μ, double σ, double[] xs, double w, double[] ys) {
+      double margin = WINDOW_MARGIN * σ;
+      int lo = windowIndex(xs, μ + εMin * σ - margin);
+      int hi = windowIndex(xs, μ + εMax * σ + margin);
+      addSaturated(xs, lo, w, ys);
+      for (int i = lo; i < hi; i++) {
+        ys[i] += w * get(μ, σ, xs[i]);
+      }
+    }
+  }
+
+  /*
+   * Direct-lookup Ccdf of CCND_ARRAY_SIZE values (~80 MB) indexed by the
+   * rounded ε-value. Probabilities differ from the equivalent bounded
+   * Maths.normalCcdf() by up to ~1.4e-7 due to rounding. Retained to reproduce
+   * earlier results; see CcdfTable.
+   */
+  private static final class CcdfArray extends Ccdf {
 
-      double pLo = isNaN(εMin) ? 1.0 : Maths.normalCcdf(0.0, 1.0, this.εMin);
-      double pHi = isNaN(εMax) ? 0.0 : Maths.normalCcdf(0.0, 1.0, this.εMax);
+    private final double[] p;
+    private final double Δε;
 
+    CcdfArray(double εMin, double εMax) {
+      super(εMin, εMax);
+      p = new double[CCND_ARRAY_SIZE];
       double Δ = Maths.round(1.0 / (CCND_ARRAY_SIZE - 1), PRECISION);
       Δε = Δ * (this.εMax - this.εMin);
 
@@ -455,6 +657,7 @@ public enum ExceedanceModel {
       p[CCND_ARRAY_SIZE - 1] = 0.0;
     }
 
+    @Override
     double get(double μ, double σ, double x) {
       double ε = Maths.epsilon(μ, σ, x);
       if (ε < this.εMin) {
@@ -466,12 +669,58 @@ public enum ExceedanceModel {
       }
       return 0.0;
     }
+  }
 
-    XySequence get(double μ, double σ, XySequence sequence) {
-      for (XyPoint p : sequence) {
-        p.set(get(μ, σ, p.x()));
+  /*
+   * Interpolated Ccdf. Rather than a very large array of values that is
+   * indexed directly, the table stores the distribution and its slope at
+   * CCDF_TABLE_SIZE + 1 evenly spaced nodes and evaluates a cubic Hermite
+   * interpolant between them. Values and slopes are interleaved so that a
+   * lookup reads four adjacent doubles; the whole table occupies ~8 KB and
+   * stays resident in L1/L2 cache when many threads evaluate it concurrently.
+   * The maximum absolute difference from the equivalent bounded
+   * Maths.normalCcdf() is ~3.3e-9 over [-4σ, 3σ], below both the error of the
+   * erf approximation (~1.5e-7) and the rounding error of CcdfArray (~1.4e-7).
+   */
+  private static final class CcdfTable extends Ccdf {
+
+    /* [p0, h·dp0, p1, h·dp1, ...] */
+    private final double[] table;
+    private final double scale;
+
+    CcdfTable(double εMin, double εMax) {
+      super(εMin, εMax);
+      double Δp = pLo - pHi;
+      double Δε = (this.εMax - this.εMin) / CCDF_TABLE_SIZE;
+      scale = 1.0 / Δε;
+      table = new double[2 * (CCDF_TABLE_SIZE + 1)];
+      for (int i = 0; i <= CCDF_TABLE_SIZE; i++) {
+        double ε = this.εMin + Δε * i;
+        table[2 * i] = (Maths.normalCcdf(0.0, 1.0, ε) - pHi) / Δp;
+        table[2 * i + 1] = -Δε * Maths.normalPdf(0.0, 1.0, ε) / Δp;
       }
-      return sequence;
+    }
+
+    @Override
+    double get(double μ, double σ, double x) {
+      double ε = Maths.epsilon(μ, σ, x);
+      if (ε < this.εMin) {
+        return 1.0;
+      }
+      if (ε < this.εMax) {
+        double u = (ε - this.εMin) * scale;
+        int i = Math.min((int) u, CCDF_TABLE_SIZE - 1);
+        double t = u - i;
+        int k = 2 * i;
+        double p0 = table[k];
+        double m0 = table[k + 1];
+        double p1 = table[k + 2];
+        double m1 = table[k + 3];
+        double c2 = 3.0 * (p1 - p0) - 2.0 * m0 - m1;
+        double c3 = 2.0 * (p0 - p1) + m0 + m1;
+        return probBoundsCheck(p0 + t * (m0 + t * (c2 + t * c3)));
+      }
+      return 0.0;
     }
   }
 
@@ -64,10 +64,22 @@ public final class Hazard {
     sb.append(LF);
     for (SourceType type : sourceSetCurves.keySet()) {
       sb.append(type).append("SourceSet:").append(LF);
+      int uniqueInputs = 0;
+      int totalInputs = 0;
       for (HazardCurveSet curveSet : sourceSetCurves.get(type)) {
+        if (curveSet.hazardGroundMotionsList != null) {
+          for (GroundMotions gms : curveSet.hazardGroundMotionsList) {
+            uniqueInputs += gms.inputs.size();
+            totalInputs += gms.inputs.inputCount();
+          }
+        }
         SourceSet<? extends Source> ss = curveSet.sourceSet;
         sb.append("  ").append(ss);
         sb.append("Used: ");
+        if (curveSet.isCached()) {
+          sb.append("cached").append(LF);
+          continue;
+        }
         switch (type) {
           case CLUSTER:
             sb.append(curveSet.clusterGroundMotionsList.size());
@@ -85,6 +97,11 @@ public final class Hazard {
         }
         sb.append(LF);
       }
+      if (totalInputs > 0) {
+        sb.append(String.format("  Inputs: %s of %s unique (%.1f%%)",
+            uniqueInputs, totalInputs, 100.0 * uniqueInputs / totalInputs));
+        sb.append(LF);
+      }
     }
     return sb.toString();
   }
@@ -194,6 +211,19 @@ public final class Hazard {
       return this;
     }
 
+    /*
+     * Replace the total curves summed by addCurveSet(). Used when restoring a
+     * cached result to preserve the summation order of the original
+     * calculation.
+     */
+    Builder totalCurves(Map<Imt, XySequence> totalCurves) {
+      for (Entry<Imt, XySequence> entry : totalCurves.entrySet()) {
+        checkState(this.totalCurves.containsKey(entry.getKey()), "%s invalid IMT", ID);
+        this.totalCurves.put(entry.getKey(), entry.getValue());
+      }
+      return this;
+    }
+
     private void validateState(String mssgID) {
       checkState(!built, "This %s instance has already been used", mssgID);
       checkState(site != null, "%s site not set", mssgID);
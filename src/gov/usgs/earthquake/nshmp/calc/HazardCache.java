@@ -0,0 +1,491 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
+import gov.usgs.earthquake.nshmp.eq.model.Source;
+import gov.usgs.earthquake.nshmp.eq.model.SourceSet;
+import gov.usgs.earthquake.nshmp.eq.model.SourceType;
+import gov.usgs.earthquake.nshmp.gmm.Gmm;
+import gov.usgs.earthquake.nshmp.gmm.GmmPostProcessor;
+import gov.usgs.earthquake.nshmp.gmm.Imt;
+
+/**
+ * A persistent, size-bounded cache of {@link Hazard} results. Results are
+ * stored one per file, named by a hash of the compiled code, the
+ * {@linkplain HazardModel#fingerprint() model fingerprint}, those
+ * {@link CalcConfig} settings that affect hazard curves, and the {@link Site}
+ * properties (excluding the name). The code hash covers the jar or class
+ * directory from which this class was loaded, so results computed by any
+ * other build, including one with uncommitted changes, are never returned. If
+ * the code can not be read, a warning is logged and results are not cached.
+ * Each file holds the total curves and the curves for each {@code Gmm} of each
+ * {@code SourceSet}, from which total, {@code SourceType}, and {@code Gmm}
+ * curves may all be recovered.
+ *
+ * <p>Files are written to a temporary file and moved into place so that
+ * concurrent programs sharing a cache directory never see partial results.
+ * When the cache exceeds its maximum size, the least recently used results are
+ * deleted; file modification times record use across runs.
+ *
+ * <p>Results read from the cache do not include the ground motions required
+ * for deaggregation; see {@link #recalculate(Hazard, Executor)}.
+ */
+final class HazardCache {
+
+  /* Increment on any change to the key or file format. */
+  private static final int VERSION = 1;
+
+  /*
+   * Identifies the code that computed a result; computed on first use of a
+   * cache because hashing a jar or class directory takes some time.
+   */
+  private static final class CodeVersion {
+    static final Optional<String> VALUE = codeVersion();
+  }
+
+  private static final String EXTENSION = ".bin";
+  private static final long MB = 1024 * 1024;
+
+  private static final Logger log = Logger.getLogger(HazardCache.class.getName());
+
+  /* One instance per directory per JVM. */
+  private static final ConcurrentMap<Path, HazardCache> caches = new ConcurrentHashMap<>();
+
+  private final Path dir;
+  private final long maxSize;
+
+  /* Result files and sizes in least to most recently used order. */
+  private final LinkedHashMap<Path, Long> index;
+  private long size;
+
+  private HazardCache(Path dir, long maxSize) {
+    this.dir = dir;
+    this.maxSize = maxSize;
+    this.index = new LinkedHashMap<>(16, 0.75f, true);
+    try {
+      Files.createDirectories(dir);
+      try (Stream<Path> paths = Files.walk(dir, 2)) {
+        List<Path> files = paths
+            .filter(path -> path.getFileName().toString().endsWith(EXTENSION))
+            .collect(Collectors.toList());
+        Map<Path, FileTime> times = new HashMap<>();
+        for (Path file : files) {
+          times.put(file, Files.getLastModifiedTime(file));
+        }
+        files.sort(Comparator.comparing(times::get));
+        for (Path file : files) {
+          long fileSize = Files.size(file);
+          index.put(file, fileSize);
+          size += fileSize;
+        }
+      }
+    } catch (IOException ioe) {
+      throw new UncheckedIOException(ioe);
+    }
+  }
+
+  /*
+   * The cache specified by a config, if any. If multiple configs specify the
+   * same directory, the size of the first is used.
+   */
+  static Optional<HazardCache> forConfig(CalcConfig config) {
+    Path dir = config.performance.cacheDirectory;
+    if (dir == null || !CodeVersion.VALUE.isPresent()) {
+      return Optional.empty();
+    }
+    return Optional.of(caches.computeIfAbsent(
+        dir.toAbsolutePath().normalize(),
+        key -> new HazardCache(key, config.performance.cacheSize * MB)));
+  }
+
+  /*
+   * Cached results lack ground motions; recalculate hazard prior to
+   * deaggregation. Hazard combined from multiple models can not be
+   * recalculated.
+   */
+  static Hazard recalculate(Hazard hazard, Executor exec) {
+    if (!isCached(hazard)) {
+      return hazard;
+    }
+    checkState(
+        hazard.model != null,
+        "Combined hazard read from a cache can not be deaggregated");
+    return HazardCalcs.calculate(hazard.model, hazard.config, hazard.site, exec);
+  }
+
+  private static boolean isCached(Hazard hazard) {
+    for (HazardCurveSet curveSet : hazard.sourceSetCurves.values()) {
+      if (curveSet.isCached()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /* Return a cached result, if present. */
+  Optional<Hazard> get(HazardModel model, CalcConfig config, Site site) {
+    Optional<String> key = key(model, config, site);
+    if (!key.isPresent()) {
+      return Optional.empty();
+    }
+    Path file = path(key.get());
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+        new GZIPInputStream(Files.newInputStream(file))))) {
+      Optional<Hazard> hazard = read(in, model, config, site);
+      if (hazard.isPresent()) {
+        touch(file);
+        CalcMetrics.cacheHit();
+        return hazard;
+      }
+    } catch (NoSuchFileException nsfe) {
+      /* Miss */
+    } catch (IOException | RuntimeException e) {
+      log.log(Level.WARNING, "Removing unreadable cache file: " + file, e);
+      remove(file);
+    }
+    CalcMetrics.cacheMiss();
+    return Optional.empty();
+  }
+
+  /* Save a result, evicting least recently used results as necessary. */
+  void put(HazardModel model, CalcConfig config, Site site, Hazard hazard) {
+    Optional<String> key = key(model, config, site);
+    if (!key.isPresent() || isCached(hazard)) {
+      return;
+    }
+    Path file = path(key.get());
+    try {
+      Files.createDirectories(file.getParent());
+      Path tmp = Files.createTempFile(file.getParent(), key.get(), ".tmp");
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+          new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+        write(out, hazard);
+      }
+      long fileSize = Files.size(tmp);
+      Files.move(tmp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+      add(file, fileSize);
+    } catch (IOException ioe) {
+      /* A cache failure should never fail a calculation. */
+      log.log(Level.WARNING, "Unable to write cache file: " + file, ioe);
+    }
+  }
+
+  private Path path(String key) {
+    return dir.resolve(key.substring(0, 2)).resolve(key + EXTENSION);
+  }
+
+  private synchronized void add(Path file, long fileSize) {
+    Long previous = index.put(file, fileSize);
+    size += fileSize - ((previous == null) ? 0 : previous);
+    Iterator<Entry<Path, Long>> entries = index.entrySet().iterator();
+    while (size > maxSize && entries.hasNext()) {
+      Entry<Path, Long> eldest = entries.next();
+      if (eldest.getKey().equals(file)) {
+        continue;
+      }
+      entries.remove();
+      size -= eldest.getValue();
+      delete(eldest.getKey());
+    }
+  }
+
+  private synchronized void remove(Path file) {
+    Long previous = index.remove(file);
+    if (previous != null) {
+      size -= previous;
+    }
+    delete(file);
+  }
+
+  /* Mark a file as most recently used, here and for subsequent runs. */
+  private void touch(Path file) {
+    synchronized (this) {
+      if (!index.containsKey(file)) {
+        /* Written by another program. */
+        try {
+          long fileSize = Files.size(file);
+          index.put(file, fileSize);
+          size += fileSize;
+        } catch (IOException ioe) {
+          return;
+        }
+      }
+      index.get(file);
+    }
+    try {
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException ioe) {
+      /* Recency is only lost across runs. */
+    }
+  }
+
+  private static void delete(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException ioe) {
+      /* Another program may still be reading the file; ignore. */
+    }
+  }
+
+  /*
+   * The cache key. Only those settings that change hazard curves are
+   * considered; thread count, output, and deaggregation settings, for example,
+   * are not. The site name is ignored. Models that were not loaded from files
+   * have no fingerprint and are never cached.
+   */
+  private static Optional<String> key(HazardModel model, CalcConfig config, Site site) {
+    return key(CodeVersion.VALUE.get(), model, config, site);
+  }
+
+  private static Optional<String> codeVersion() {
+    try {
+      Path location = Paths.get(
+          HazardCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+      return Optional.of(codeVersion(location));
+    } catch (Exception e) {
+      log.log(Level.WARNING, "Unable to identify code version; hazard cache disabled", e);
+      return Optional.empty();
+    }
+  }
+
+  /*
+   * A hash of a jar file or of the relative paths and contents of the class
+   * files in a directory, in path order.
+   */
+  static String codeVersion(Path location) throws IOException {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    if (Files.isRegularFile(location)) {
+      hasher.putBytes(Files.readAllBytes(location));
+      return hasher.hash().toString();
+    }
+    checkState(Files.isDirectory(location), "Code location not found: %s", location);
+    List<Path> classes;
+    try (Stream<Path> paths = Files.walk(location)) {
+      classes = paths
+          .filter(path -> path.getFileName().toString().endsWith(".class"))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+    checkState(!classes.isEmpty(), "No classes found: %s", location);
+    for (Path file : classes) {
+      hasher.putString(location.relativize(file).toString(), UTF_8)
+          .putBytes(Files.readAllBytes(file));
+    }
+    return hasher.hash().toString();
+  }
+
+  static Optional<String> key(
+      String codeVersion,
+      HazardModel model,
+      CalcConfig config,
+      Site site) {
+
+    Optional<String> fingerprint = model.fingerprint();
+    if (!fingerprint.isPresent()) {
+      return Optional.empty();
+    }
+    CalcConfig.Hazard h = config.hazard;
+    CalcConfig.Performance p = config.performance;
+    Hasher hasher = Hashing.murmur3_128().newHasher()
+        .putInt(VERSION)
+        .putString(codeVersion, UTF_8)
+        .putString(fingerprint.get(), UTF_8)
+        .putString(h.exceedanceModel.name(), UTF_8)
+        .putDouble(h.truncationLevel);
+    for (Imt imt : h.imts) {
+      hasher.putString(imt.name(), UTF_8);
+      for (double x : h.modelCurve(imt).xValues()) {
+        hasher.putDouble(x);
+      }
+    }
+    for (GmmPostProcessor.Model processor : h.gmmPostProcessors) {
+      hasher.putString(processor.name(), UTF_8);
+    }
+    hasher.putDouble(h.gmmDampingRatio)
+        .putBoolean(h.gmmDampingSigma)
+        .putBoolean(h.gmmUncertainty)
+        .putBoolean(p.optimizeGrids)
+        .putBoolean(p.smoothGrids)
+        .putBoolean(p.collapseMfds)
+        .putDouble(site.location.lat())
+        .putDouble(site.location.lon())
+        .putDouble(site.vs30)
+        .putBoolean(site.vsInferred)
+        .putDouble(site.z1p0)
+        .putDouble(site.z2p5);
+    return Optional.of(hasher.hash().toString());
+  }
+
+  /*
+   * File format (compressed):
+   *
+   * version
+   * imt count; [imt ordinal, curve size]
+   * total curves: [values]
+   * curve set count;
+   * [type ordinal, name, id, gmm count, [gmm ordinal], [imt [gmm [values]]]]
+   */
+
+  private static void write(DataOutputStream out, Hazard hazard) throws IOException {
+    out.writeInt(VERSION);
+    Map<Imt, XySequence> totals = hazard.totalCurves;
+    out.writeInt(totals.size());
+    for (Entry<Imt, XySequence> entry : totals.entrySet()) {
+      out.writeInt(entry.getKey().ordinal());
+      out.writeInt(entry.getValue().size());
+    }
+    for (XySequence curve : totals.values()) {
+      writeValues(out, curve);
+    }
+    out.writeInt(hazard.sourceSetCurves.size());
+    for (HazardCurveSet curveSet : hazard.sourceSetCurves.values()) {
+      SourceSet<? extends Source> sourceSet = curveSet.sourceSet;
+      out.writeInt(sourceSet.type().ordinal());
+      out.writeUTF(sourceSet.name());
+      out.writeInt(sourceSet.id());
+      Set<Gmm> gmms = curveSet.curveMap.values().iterator().next().keySet();
+      out.writeInt(gmms.size());
+      for (Gmm gmm : gmms) {
+        out.writeInt(gmm.ordinal());
+      }
+      for (Imt imt : totals.keySet()) {
+        Map<Gmm, XySequence> gmmCurves = curveSet.curveMap.get(imt);
+        for (Gmm gmm : gmms) {
+          writeValues(out, gmmCurves.get(gmm));
+        }
+      }
+    }
+  }
+
+  private static void writeValues(DataOutputStream out, XySequence curve) throws IOException {
+    for (double y : curve.yValues()) {
+      out.writeDouble(y);
+    }
+  }
+
+  /*
+   * Recreate a result. Returns empty if the file does not match the IMTs or
+   * curves of the supplied config, or if a source set can not be found in the
+   * supplied model, neither of which should occur unless the hash collides.
+   */
+  private static Optional<Hazard> read(
+      DataInputStream in,
+      HazardModel model,
+      CalcConfig config,
+      Site site) throws IOException {
+
+    if (in.readInt() != VERSION) {
+      return Optional.empty();
+    }
+    Map<Imt, XySequence> modelCurves = config.hazard.logModelCurves();
+    Imt[] imtValues = Imt.values();
+    List<Imt> imts = new ArrayList<>();
+    int imtCount = in.readInt();
+    for (int i = 0; i < imtCount; i++) {
+      Imt imt = imtValues[in.readInt()];
+      int curveSize = in.readInt();
+      if (!modelCurves.containsKey(imt) || modelCurves.get(imt).size() != curveSize) {
+        return Optional.empty();
+      }
+      imts.add(imt);
+    }
+    if (imts.size() != modelCurves.size()) {
+      return Optional.empty();
+    }
+
+    Map<Imt, XySequence> totals = new EnumMap<>(Imt.class);
+    for (Imt imt : imts) {
+      totals.put(imt, readValues(in, modelCurves.get(imt)));
+    }
+
+    Map<String, SourceSet<? extends Source>> sourceSets = new HashMap<>();
+    for (SourceSet<? extends Source> sourceSet : model) {
+      sourceSets.putIfAbsent(sourceSetKey(sourceSet.type(), sourceSet.name(), sourceSet.id()),
+          sourceSet);
+    }
+
+    Hazard.Builder builder = Hazard.builder(config)
+        .model(model)
+        .site(site);
+    SourceType[] typeValues = SourceType.values();
+    Gmm[] gmmValues = Gmm.values();
+    int curveSetCount = in.readInt();
+    for (int i = 0; i < curveSetCount; i++) {
+      SourceType type = typeValues[in.readInt()];
+      String name = in.readUTF();
+      int id = in.readInt();
+      SourceSet<? extends Source> sourceSet = sourceSets.get(sourceSetKey(type, name, id));
+      if (sourceSet == null) {
+        return Optional.empty();
+      }
+      List<Gmm> gmms = new ArrayList<>();
+      int gmmCount = in.readInt();
+      for (int j = 0; j < gmmCount; j++) {
+        gmms.add(gmmValues[in.readInt()]);
+      }
+      Map<Imt, Map<Gmm, XySequence>> curveMap = new EnumMap<>(Imt.class);
+      for (Imt imt : imts) {
+        Map<Gmm, XySequence> gmmCurves = new EnumMap<>(Gmm.class);
+        for (Gmm gmm : gmms) {
+          gmmCurves.put(gmm, readValues(in, modelCurves.get(imt)));
+        }
+        curveMap.put(imt, gmmCurves);
+      }
+      builder.addCurveSet(HazardCurveSet.fromCurves(sourceSet, curveMap, modelCurves));
+    }
+    return Optional.of(builder.totalCurves(totals).build());
+  }
+
+  private static XySequence readValues(DataInputStream in, XySequence model) throws IOException {
+    XySequence curve = XySequence.emptyCopyOf(model);
+    double[] ys = new double[curve.size()];
+    for (int i = 0; i < ys.length; i++) {
+      ys[i] = in.readDouble();
+    }
+    return curve.add(ys);
+  }
+
+  private static String sourceSetKey(SourceType type, String name, int id) {
+    return type + ":" + id + ":" + name;
+  }
+}
@@ -1,9 +1,11 @@
 package gov.usgs.earthquake.nshmp.calc;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.util.concurrent.Futures.allAsList;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.Futures.transform;
+import static gov.usgs.earthquake.nshmp.calc.CalcFactory.areasToCurves;
 import static gov.usgs.earthquake.nshmp.calc.CalcFactory.clustersToCurves;
 import static gov.usgs.earthquake.nshmp.calc.CalcFactory.sourcesToCurves;
 import static gov.usgs.earthquake.nshmp.calc.CalcFactory.systemToCurves;
@@ -11,7 +13,9 @@ import static gov.usgs.earthquake.nshmp.calc.CalcFactory.toHazardResult;
 import static gov.usgs.earthquake.nshmp.data.Data.checkInRange;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.function.Function;
@@ -19,9 +23,13 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Range;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import gov.usgs.earthquake.nshmp.calc.Transforms.SourceToInputs;
+import gov.usgs.earthquake.nshmp.eq.model.AreaSourceSet;
 import gov.usgs.earthquake.nshmp.eq.model.ClusterSourceSet;
 import gov.usgs.earthquake.nshmp.eq.model.GridSourceSet;
 import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
@@ -88,6 +96,18 @@ public class HazardCalcs {
   private static Range<Double> rpRange = Range.closed(1.0, 20000.0);
   private static Range<Double> imlRange = Range.closed(0.0001, 8.0);
 
+  /**
+   * Ensure {@code returnPeriod} (in years) is one at which hazard may be
+   * deaggregated.
+   *
+   * @param returnPeriod to validate
+   * @return the supplied {@code returnPeriod}
+   * @throws IllegalArgumentException if {@code returnPeriod} is out of range
+   */
+  public static double checkReturnPeriod(double returnPeriod) {
+    return checkInRange(rpRange, "Return period", returnPeriod);
+  }
+
   /**
    * Deaggregate probabilistic seismic hazard at the supplied return period (in
    * years). Deaggregation will performed for all IMTs specified for hazard.
@@ -110,7 +130,7 @@ public class HazardCalcs {
       Executor exec) {
 
     checkNotNull(hazard);
-    checkInRange(rpRange, "Return period", returnPeriod);
+    checkReturnPeriod(returnPeriod);
 
     return Deaggregation.atReturnPeriod(hazard, returnPeriod, exec);
   }
@@ -170,6 +190,104 @@ public class HazardCalcs {
     checkNotNull(site);
     checkNotNull(exec);
 
+    Optional<HazardCache> cache = HazardCache.forConfig(config);
+    if (cache.isPresent()) {
+      Optional<Hazard> cached = cache.get().get(model, config, site);
+      if (cached.isPresent()) {
+        return cached.get();
+      }
+    }
+    Hazard hazard = calculate(model, config, site, exec);
+    if (cache.isPresent()) {
+      cache.get().put(model, config, site, hazard);
+    }
+    return hazard;
+  }
+
+  /**
+   * Compute probabilistic seismic hazard curves at multiple {@code sites} that
+   * share a location but differ in site terms, e.g. Vs30, using the supplied
+   * {@code model} and {@code config}. Source filtering, rupture iteration and
+   * distance calculations are performed once; only ground motions and hazard
+   * curves are computed for each site. Results are returned in site order.
+   *
+   * <p><b>Note:</b> any model initialization settings in {@code config} will be
+   * ignored as the supplied model will already have been initialized.
+   *
+   * @param model to use
+   * @param config calculation configuration
+   * @param sites of interest
+   * @param exec {@code Executor} to distribute calculation
+   * @throws IllegalArgumentException if {@code sites} is empty or the
+   *         {@code sites} do not share a location
+   * @see SiteSweep
+   */
+  public static List<Hazard> hazard(
+      HazardModel model,
+      CalcConfig config,
+      List<Site> sites,
+      Executor exec) {
+
+    checkNotNull(model);
+    checkNotNull(config);
+    checkArgument(!sites.isEmpty(), "No sites supplied");
+    checkNotNull(exec);
+
+    /* Only compute those sites that are not cached. */
+    Optional<HazardCache> cache = HazardCache.forConfig(config);
+    Hazard[] hazards = new Hazard[sites.size()];
+    List<Site> uncached = new ArrayList<>(sites.size());
+    for (int i = 0; i < sites.size(); i++) {
+      Optional<Hazard> cached = cache.isPresent()
+          ? cache.get().get(model, config, sites.get(i))
+          : Optional.empty();
+      if (cached.isPresent()) {
+        hazards[i] = cached.get();
+      } else {
+        uncached.add(sites.get(i));
+      }
+    }
+    if (!uncached.isEmpty()) {
+      List<Hazard> computed = calculate(model, config, uncached, exec);
+      for (int i = 0, j = 0; i < hazards.length; i++) {
+        if (hazards[i] == null) {
+          hazards[i] = computed.get(j++);
+          if (cache.isPresent()) {
+            cache.get().put(model, config, sites.get(i), hazards[i]);
+          }
+        }
+      }
+    }
+    return Arrays.asList(hazards);
+  }
+
+  /* Compute hazard, bypassing any cache. */
+  static Hazard calculate(
+      HazardModel model,
+      CalcConfig config,
+      Site site,
+      Executor exec) {
+
+    return calculate(model, config, ImmutableList.of(site), exec).get(0);
+  }
+
+  /*
+   * Compute hazard at sites that share a location, bypassing any cache. A
+   * single site is simply a list of one; both follow the same pipeline.
+   */
+  static List<Hazard> calculate(
+      HazardModel model,
+      CalcConfig config,
+      List<Site> sites,
+      Executor exec) {
+
+    Site site = sites.get(0);
+    for (Site s : sites) {
+      checkArgument(
+          s.location.equals(site.location),
+          "Sites must share a location: %s, %s", site.location, s.location);
+    }
+
     try {
       if (config.performance.threadCount == ThreadCount.ONE) {
         /*
@@ -179,9 +297,9 @@ public class HazardCalcs {
          * method.
          */
         Logger log = Logger.getLogger(HazardCalcs.class.getName());
-        return hazardCurve(model, config, site, log);
+        return hazardCurve(model, config, sites, log);
       }
-      return asyncHazardCurve(model, config, site, exec);
+      return asyncHazardCurve(model, config, sites, exec);
     } catch (ExecutionException | InterruptedException e) {
       throw new RuntimeException(e);
     }
@@ -190,69 +308,119 @@ public class HazardCalcs {
   /*
    * Run a hazard curve calculation in parallel.
    */
-  private static Hazard asyncHazardCurve(
+  private static List<Hazard> asyncHazardCurve(
       HazardModel model,
       CalcConfig config,
-      Site site,
+      List<Site> sites,
       Executor ex) throws InterruptedException, ExecutionException {
 
-    AsyncList<HazardCurveSet> curveSets = AsyncList.createWithCapacity(model.size());
+    Site site = sites.get(0);
+    AsyncList<List<HazardCurveSet>> curveSets = AsyncList.createWithCapacity(model.size());
     AsyncList<SourceSet<? extends Source>> gridTables = AsyncList.create();
+    AsyncList<SourceSet<? extends Source>> areaTables = AsyncList.create();
 
     for (SourceSet<? extends Source> sourceSet : model) {
 
+      long start = System.nanoTime();
+
       switch (sourceSet.type()) {
 
         case GRID:
           GridSourceSet gss = (GridSourceSet) sourceSet;
           if (config.performance.optimizeGrids && gss.optimizable()) {
+            Function<GridSourceSet, SourceSet<? extends Source>> gridOptimizer =
+                GridSourceSet.optimizer(site.location, config.performance.smoothGrids);
             gridTables.add(transform(
                 immediateFuture(gss),
-                GridSourceSet.optimizer(
-                    site.location,
-                    config.performance.smoothGrids)::apply,
+                grid -> {
+                  long tableStart = System.nanoTime();
+                  SourceSet<? extends Source> table = gridOptimizer.apply(grid);
+                  CalcMetrics.gridTable(tableStart);
+                  return table;
+                },
                 ex));
             break;
           }
-          curveSets.add(sourcesToCurves(sourceSet, config, site, ex));
+          curveSets.add(timed(sourceSet, start, sourcesToCurves(sourceSet, config, sites, ex)));
+          break;
+
+        case AREA:
+          if (config.performance.optimizeGrids) {
+            Function<AreaSourceSet, SourceSet<? extends Source>> areaOptimizer =
+                AreaSourceSet.optimizer(site.location);
+            areaTables.add(transform(
+                immediateFuture((AreaSourceSet) sourceSet),
+                area -> {
+                  long tableStart = System.nanoTime();
+                  SourceSet<? extends Source> table = areaOptimizer.apply(area);
+                  CalcMetrics.areaTable(tableStart);
+                  return table;
+                },
+                ex));
+            break;
+          }
+          curveSets.add(timed(sourceSet, start, areasToCurves(sourceSet, config, sites, ex)));
           break;
 
         case CLUSTER:
-          curveSets.add(clustersToCurves((ClusterSourceSet) sourceSet, config, site, ex));
+          curveSets.add(timed(sourceSet, start,
+              clustersToCurves((ClusterSourceSet) sourceSet, config, sites, ex)));
           break;
 
         case SYSTEM:
-          curveSets.add(systemToCurves((SystemSourceSet) sourceSet, config, site, ex));
+          curveSets.add(timed(sourceSet, start,
+              systemToCurves((SystemSourceSet) sourceSet, config, sites, ex)));
           break;
 
         default:
-          curveSets.add(sourcesToCurves(sourceSet, config, site, ex));
+          curveSets.add(timed(sourceSet, start, sourcesToCurves(sourceSet, config, sites, ex)));
           break;
       }
     }
 
     /*
-     * If grid optimization is enabled, grid calculations were deferred (above)
-     * while table based source sets were initialized. Submit once all other
-     * source types have been submitted.
+     * If grid optimization is enabled, grid and area calculations were deferred
+     * (above) while table based source sets were initialized. Submit once all
+     * other source types have been submitted.
      */
+    for (SourceSet<? extends Source> sourceSet : allAsList(areaTables).get()) {
+      long start = System.nanoTime();
+      curveSets.add(timed(sourceSet, start, areasToCurves(sourceSet, config, sites, ex)));
+    }
     for (SourceSet<? extends Source> sourceSet : allAsList(gridTables).get()) {
-      curveSets.add(sourcesToCurves(sourceSet, config, site, ex));
+      long start = System.nanoTime();
+      curveSets.add(timed(sourceSet, start, sourcesToCurves(sourceSet, config, sites, ex)));
     }
 
-    return toHazardResult(model, config, site, curveSets, ex);
+    return toHazardResult(model, config, sites, curveSets, ex);
+  }
+
+  /*
+   * Record the wall time between submission and completion of the calculation
+   * of a SourceSet.
+   */
+  private static ListenableFuture<List<HazardCurveSet>> timed(
+      SourceSet<? extends Source> sourceSet,
+      long start,
+      ListenableFuture<List<HazardCurveSet>> curveSets) {
+
+    curveSets.addListener(
+        () -> CalcMetrics.sourceSet(sourceSet, start),
+        MoreExecutors.directExecutor());
+    return curveSets;
   }
 
   /*
    * Run a hazard curve calculation on the current thread.
    */
-  private static Hazard hazardCurve(
+  private static List<Hazard> hazardCurve(
       HazardModel model,
       CalcConfig config,
-      Site site,
+      List<Site> sites,
       Logger log) {
 
-    List<HazardCurveSet> curveSets = new ArrayList<>(model.size());
+    Site site = sites.get(0);
+    List<List<HazardCurveSet>> curveSets = new ArrayList<>(model.size());
 
     log.info("HazardCurve: (single-threaded)");
     Stopwatch swTotal = Stopwatch.createStarted();
@@ -260,6 +428,8 @@ public class HazardCalcs {
 
     for (SourceSet<? extends Source> sourceSet : model) {
 
+      long start = System.nanoTime();
+
       switch (sourceSet.type()) {
         case GRID:
           GridSourceSet gss = (GridSourceSet) sourceSet;
@@ -267,33 +437,47 @@ public class HazardCalcs {
             sourceSet = GridSourceSet.optimizer(
                 site.location,
                 config.performance.smoothGrids).apply(gss);
+            CalcMetrics.gridTable(start);
+            start = System.nanoTime();
             log(log, MSSG_GRID_INIT, sourceSet.name(), duration(swSource));
           }
-          curveSets.add(sourcesToCurves(sourceSet, config, site));
+          curveSets.add(sourcesToCurves(sourceSet, config, sites));
+          log(log, MSSG_COMPLETED, sourceSet.name(), duration(swSource));
+          break;
+
+        case AREA:
+          if (config.performance.optimizeGrids) {
+            sourceSet = AreaSourceSet.optimizer(site.location).apply((AreaSourceSet) sourceSet);
+            CalcMetrics.areaTable(start);
+            start = System.nanoTime();
+            log(log, MSSG_AREA_INIT, sourceSet.name(), duration(swSource));
+          }
+          curveSets.add(sourcesToCurves(sourceSet, config, sites));
           log(log, MSSG_COMPLETED, sourceSet.name(), duration(swSource));
           break;
 
         case CLUSTER:
-          curveSets.add(clustersToCurves((ClusterSourceSet) sourceSet, config, site));
+          curveSets.add(clustersToCurves((ClusterSourceSet) sourceSet, config, sites));
           log(log, MSSG_COMPLETED, sourceSet.name(), duration(swSource));
           break;
 
         case SYSTEM:
-          curveSets.add(systemToCurves((SystemSourceSet) sourceSet, config, site));
+          curveSets.add(systemToCurves((SystemSourceSet) sourceSet, config, sites));
           log(log, MSSG_COMPLETED, sourceSet.name(), duration(swSource));
           break;
 
         default:
-          curveSets.add(sourcesToCurves(sourceSet, config, site));
+          curveSets.add(sourcesToCurves(sourceSet, config, sites));
           log(log, MSSG_COMPLETED, sourceSet.name(), duration(swSource));
           break;
       }
+      CalcMetrics.sourceSet(sourceSet, start);
     }
 
     log.log(Level.INFO, String.format(" %s: %s", MSSG_DURATION, duration(swTotal)));
     swTotal.stop();
     swSource.stop();
-    return toHazardResult(model, config, site, curveSets);
+    return toHazardResult(model, config, sites, curveSets);
   }
 
   /*
@@ -308,6 +492,7 @@ public class HazardCalcs {
   }
 
   private static final String MSSG_GRID_INIT = "Init grid table";
+  private static final String MSSG_AREA_INIT = "Init area table";
   private static final String MSSG_COMPLETED = "      Completed";
   private static final String MSSG_DURATION = "     Total time";
 
@@ -95,10 +95,38 @@ final class HazardCurveSet {
     return new HazardCurveSet(sourceSet, null, null, null, null, null);
   }
 
+  /*
+   * Recreate a HazardCurveSet from the Gmm curves of a cached result (see
+   * HazardCache). Total curves are summed as in Builder.computeFinal().
+   * Ground motions are not retained so such a curve set may not be
+   * deaggregated.
+   */
+  static HazardCurveSet fromCurves(
+      SourceSet<? extends Source> sourceSet,
+      Map<Imt, Map<Gmm, XySequence>> curveMap,
+      Map<Imt, XySequence> modelCurves) {
+
+    Map<Imt, XySequence> totalCurves = new EnumMap<>(Imt.class);
+    for (Entry<Imt, Map<Gmm, XySequence>> entry : curveMap.entrySet()) {
+      Imt imt = entry.getKey();
+      XySequence totalCurve = emptyCopyOf(modelCurves.get(imt));
+      for (XySequence curve : entry.getValue().values()) {
+        totalCurve.add(curve);
+      }
+      totalCurves.put(imt, immutableCopyOf(totalCurve));
+    }
+    return new HazardCurveSet(sourceSet, null, null, null, curveMap, totalCurves);
+  }
+
   boolean isEmpty() {
     return totalCurves == null;
   }
 
+  /* Curves are present but the ground motions used to compute them are not. */
+  boolean isCached() {
+    return !isEmpty() && hazardGroundMotionsList == null && clusterGroundMotionsList == null;
+  }
+
   static class Builder {
 
     private static final String ID = "HazardCurveSet.Builder";
@@ -98,10 +98,12 @@ public final class HazardExport {
       HazardModel model,
       CalcConfig config,
       Sites sites,
+      Path dir,
+      double vs30,
       Logger log) throws IOException {
 
     this.log = log;
-    this.dir = createOutputDir(config.output.directory);
+    this.dir = createOutputDir(dir);
     this.model = model;
     this.config = config;
     this.exportGmm = config.output.dataTypes.contains(DataType.GMM);
@@ -120,7 +122,7 @@ public final class HazardExport {
     this.totalWatch = Stopwatch.createStarted();
 
     this.metaMap = new EnumMap<>(Imt.class);
-    init(sites);
+    init(sites, vs30);
   }
 
   /**
@@ -140,11 +142,33 @@ public final class HazardExport {
       Sites sites,
       Logger log) throws IOException {
 
-    return new HazardExport(model, config, sites, log);
+    return new HazardExport(
+        model,
+        config,
+        sites,
+        config.output.directory,
+        sites.iterator().next().vs30,
+        log);
+  }
+
+  /*
+   * Create a results handler that writes to the supplied directory. Used when
+   * results for multiple site classes are written by a single calculation, in
+   * which case the Vs30 of the supplied sites may not be that of the results.
+   */
+  static HazardExport create(
+      HazardModel model,
+      CalcConfig config,
+      Sites sites,
+      Path dir,
+      double vs30,
+      Logger log) throws IOException {
+
+    return new HazardExport(model, config, sites, dir, vs30, log);
   }
 
   /* Prep binary headers and initialize output directories. */
-  private void init(Sites sites) throws IOException {
+  private void init(Sites sites, double vs30) throws IOException {
 
     if (exportBinary) {
       checkState(exportBinary && sites.mapBounds().isPresent(), BINARY_EXTENTS_REQUIRED_MSSG);
@@ -153,7 +177,7 @@ public final class HazardExport {
           .spacing(sites.mapSpacing().get())
           .description("nshmp-haz generated curves")
           .timestamp(new Timestamp(System.currentTimeMillis()).toString())
-          .vs30(sites.iterator().next().vs30);
+          .vs30(vs30);
       for (Entry<Imt, XySequence> entry : config.hazard.modelCurves().entrySet()) {
         Imt imt = entry.getKey();
         Metadata meta = metaBuilder
@@ -450,10 +474,9 @@ public final class HazardExport {
   static void writeLine(Path path, String line, OpenOption... options)
       throws IOException {
 
-    Files.write(
-        path,
-        (line + System.lineSeparator()).getBytes(UTF_8),
-        options);
+    byte[] bytes = (line + System.lineSeparator()).getBytes(UTF_8);
+    Files.write(path, bytes, options);
+    CalcMetrics.exportBytes(bytes.length);
   }
 
   /**
@@ -551,9 +574,9 @@ public final class HazardExport {
    * Binary file export utilities.
    */
 
-  private static final int HEADER_MAX_IMLS = 20;
-  private static final int HEADER_OFFSET = 896; // bytes
-  private static final int INFO_LINE_SIZE = 128; // chars
+  static final int HEADER_MAX_IMLS = 20;
+  static final int HEADER_OFFSET = 896; // bytes
+  static final int INFO_LINE_SIZE = 128; // chars
 
   static final String BINARY_EXTENTS_REQUIRED_MSSG =
       "Binary output is only supported when map extents are defined\n" +
@@ -671,7 +694,7 @@ public final class HazardExport {
     FileChannel channel = FileChannel.open(path, WRITE);
     int position = HEADER_OFFSET + curveIndex * meta.curveByteSize;
     toBuffer(curve, meta.buffer);
-    channel.write(meta.buffer, position);
+    CalcMetrics.exportBytes(channel.write(meta.buffer, position));
     channel.close();
   }
 
@@ -693,7 +716,7 @@ public final class HazardExport {
     channel.close();
   }
 
-  /* Header occupies 1664 bytes total */
+  /* Header occupies 896 bytes total; see CurveFile for reading */
   private static ByteBuffer createHeader(Metadata m) {
     ByteBuffer buffer = ByteBuffer.allocate(HEADER_OFFSET).order(LITTLE_ENDIAN);
 
@@ -733,7 +756,7 @@ public final class HazardExport {
     return buffer;
   }
 
-  private static int gridSize(Bounds b, double spacing) {
+  static int gridSize(Bounds b, double spacing) {
     int lonDim = (int) Math.rint((b.max().lon() - b.min().lon()) / spacing) + 1;
     int latDim = (int) Math.rint((b.max().lat() - b.min().lat()) / spacing) + 1;
     return lonDim * latDim;
@@ -743,7 +766,7 @@ public final class HazardExport {
    * Compute the target position of a curve in a binary file. NSHMP binary files
    * index ascending in longitude, but descending in latitude.
    */
-  private static int curveIndex(Bounds b, double spacing, Location loc) {
+  static int curveIndex(Bounds b, double spacing, Location loc) {
     int columnCount = (int) Math.rint((b.max().lon() - b.min().lon()) / spacing) + 1;
     int rowIndex = (int) Math.rint((b.max().lat() - loc.lat()) / spacing);
     int colIndex = (int) Math.rint((loc.lon() - b.min().lon()) / spacing);
@@ -26,6 +26,28 @@ public final class HazardInput extends GmmInput {
     this.rate = rate;
   }
 
+  /*
+   * Return a copy of this input with the site terms of the supplied site.
+   * Rupture and distance fields are unchanged.
+   */
+  HazardInput forSite(Site site) {
+    return new HazardInput(
+        rate,
+        Mw,
+        rJB,
+        rRup,
+        rX,
+        dip,
+        width,
+        zTop,
+        zHyp,
+        rake,
+        site.vs30,
+        site.vsInferred,
+        site.z1p0,
+        site.z2p5);
+  }
+
   @Override
   public String toString() {
     return getClass().getSimpleName() + " [rate=" + String.format("%.4g", rate) + " " +
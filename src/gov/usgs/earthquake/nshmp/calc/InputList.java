@@ -64,6 +64,14 @@ public abstract class InputList extends AbstractList<HazardInput> {
 
   abstract String parentName();
 
+  /*
+   * The number of inputs from which this list was derived. This will be larger
+   * than size() if duplicate inputs have been collapsed.
+   */
+  int inputCount() {
+    return size();
+  }
+
   /*
    * Returns consecutive sub-{@code InputList}s of this list, each of the same
    * size, although the final list may be smaller.
@@ -167,6 +167,16 @@ public class Site implements Named {
     return name;
   }
 
+  /*
+   * Return a copy of this site with the supplied Vs30; used for site class
+   * sweeps. Basin terms, which may have come from a data provider, are
+   * retained.
+   */
+  Site withVs30(double vs30) {
+    checkInRange(VS30_RANGE, Site.Key.VS30, vs30);
+    return new Site(name, location, vs30, vsInferred, z1p0, z2p5);
+  }
+
   /**
    * Return a fresh {@link Builder}.
    */
@@ -0,0 +1,110 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
+
+/**
+ * Site class sweep calculations. Hazard at a location is computed for multiple
+ * site classes in a single pass over a model.
+ *
+ * <p>Source filtering, grid and area table construction, rupture iteration and
+ * distance calculations depend only on site location. In a sweep, this work is
+ * done once for each source, and only ground motions and exceedance curves,
+ * which depend on site terms, are computed for each site class. Sweeps use the
+ * same calculation pipeline as single sites (see
+ * {@link HazardCalcs#hazard(HazardModel, CalcConfig, List, Executor)}) and the
+ * results are identical to those of separate calculations for each site class.
+ *
+ * <p>Sweep site classes are specified by Vs30 in
+ * {@link CalcConfig.SiteDefaults#vs30Sweep}.
+ */
+public final class SiteSweep {
+
+  private SiteSweep() {}
+
+  /**
+   * Returns {@code true} if a site class sweep has been requested in the
+   * supplied {@code config}.
+   *
+   * @param config calculation configuration
+   */
+  public static boolean supports(CalcConfig config) {
+    return !config.site.vs30Sweep.isEmpty();
+  }
+
+  /**
+   * Compute hazard at every site for each Vs30 of the site class sweep in the
+   * supplied {@code config}. Results for each Vs30 are written to a
+   * subdirectory of the configured output directory named for the Vs30, e.g.
+   * {@code vs760}. Returns the path to the output directory.
+   *
+   * @param model to use
+   * @param config calculation configuration
+   * @param sites of interest; any Vs30 values are ignored
+   * @param exec {@code Executor} to distribute each site calculation
+   * @param log shared logging instance from calling class
+   * @throws IllegalArgumentException if no sweep has been specified
+   * @see #supports(CalcConfig)
+   */
+  public static Path calc(
+      HazardModel model,
+      CalcConfig config,
+      Sites sites,
+      Executor exec,
+      Logger log) throws IOException {
+
+    checkArgument(supports(config), "Site class sweep not specified");
+    Path dir = HazardExport.createOutputDir(config.output.directory);
+    List<HazardExport> handlers = new ArrayList<>();
+    for (double vs30 : config.site.vs30Sweep) {
+      handlers.add(HazardExport.create(
+          model,
+          config,
+          sites,
+          dir.resolve(dirName(vs30)),
+          vs30,
+          log));
+    }
+
+    for (Site site : sites) {
+      List<Hazard> hazards = HazardCalcs.hazard(model, config, sites(config, site), exec);
+      for (int i = 0; i < hazards.size(); i++) {
+        handlers.get(i).write(hazards.get(i));
+        log.fine(hazards.get(i).toString());
+      }
+    }
+    for (HazardExport handler : handlers) {
+      handler.expire();
+    }
+
+    HazardExport handler = handlers.get(0);
+    log.info(String.format(
+        "Site class sweep: %s sites at %s site classes completed in %s",
+        handler.resultCount(), handlers.size(), handler.elapsedTime()));
+    return dir;
+  }
+
+  /* Output subdirectory name for a Vs30 value, e.g. vs760 or vs537.5. */
+  private static String dirName(double vs30) {
+    return (vs30 == Math.rint(vs30))
+        ? "vs" + (long) vs30
+        : "vs" + vs30;
+  }
+
+  /* The sweep sites at the location of the supplied site. */
+  static List<Site> sites(CalcConfig config, Site site) {
+    List<Site> sites = new ArrayList<>();
+    for (double vs30 : config.site.vs30Sweep) {
+      sites.add(site.withVs30(vs30));
+    }
+    return sites;
+  }
+}
@@ -288,7 +288,11 @@ public abstract class Sites implements Iterable<Site> {
     }
   }
 
-  private static final class RegionIterable extends Sites {
+  /*
+   * Map sites. The region and site builder are used by AdaptiveMap to create
+   * sites that fall between map nodes.
+   */
+  static final class RegionIterable extends Sites {
 
     final GriddedRegion region;
     final Builder siteBuilder;
@@ -2,7 +2,13 @@ package gov.usgs.earthquake.nshmp.calc;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import gov.usgs.earthquake.nshmp.eq.model.Source;
+import gov.usgs.earthquake.nshmp.gmm.GmmInput;
 
 /**
  * A {@code List} of {@code HazardInput}s that contains a reference to the
@@ -15,8 +21,21 @@ final class SourceInputList extends InputList {
 
   final Source parent;
 
+  /*
+   * The number of inputs collapsed by deduplicate(). Because inputs are only
+   * collapsed when all GmmInput fields are identical, deaggregation of a
+   * deduplicated list yields the same distance, magnitude and epsilon
+   * contributions as the original.
+   */
+  private final int collapsedCount;
+
   SourceInputList(Source parent) {
+    this(parent, 0);
+  }
+
+  private SourceInputList(Source parent, int collapsedCount) {
     this.parent = checkNotNull(parent);
+    this.collapsedCount = collapsedCount;
   }
 
   @Override
@@ -24,4 +43,67 @@ final class SourceInputList extends InputList {
     return parent.name();
   }
 
+  @Override
+  int inputCount() {
+    return size() + collapsedCount;
+  }
+
+  /*
+   * Return a copy of this list with the site terms of every input replaced by
+   * those of the supplied site. Any collapsed input count is retained.
+   */
+  SourceInputList forSite(Site site) {
+    SourceInputList copy = new SourceInputList(parent, collapsedCount);
+    for (HazardInput input : this) {
+      copy.add(input.forSite(site));
+    }
+    return copy;
+  }
+
+  /*
+   * Return a list in which inputs that are identical in all ground motion model
+   * relevant fields (see GmmInput.equals()) have been collapsed to a single
+   * input with a summed rate. Input order is otherwise preserved. Returns this
+   * list if it contains no duplicates.
+   */
+  SourceInputList deduplicate() {
+    Map<GmmInput, Integer> uniqueIndices = new HashMap<>(size());
+    List<HazardInput> uniqueInputs = new ArrayList<>(size());
+    List<Double> rates = new ArrayList<>(size());
+    for (HazardInput input : this) {
+      Integer index = uniqueIndices.putIfAbsent(input, uniqueInputs.size());
+      if (index == null) {
+        uniqueInputs.add(input);
+        rates.add(input.rate);
+      } else {
+        rates.set(index, rates.get(index) + input.rate);
+      }
+    }
+    if (uniqueInputs.size() == size()) {
+      return this;
+    }
+    int collapsed = size() - uniqueInputs.size();
+    CalcMetrics.inputsCollapsed(collapsed);
+    SourceInputList deduplicated = new SourceInputList(parent, collapsedCount + collapsed);
+    for (int i = 0; i < uniqueInputs.size(); i++) {
+      HazardInput in = uniqueInputs.get(i);
+      deduplicated.add(new HazardInput(
+          rates.get(i),
+          in.Mw,
+          in.rJB,
+          in.rRup,
+          in.rX,
+          in.dip,
+          in.width,
+          in.zTop,
+          in.zHyp,
+          in.rake,
+          in.vs30,
+          in.vsInf,
+          in.z1p0,
+          in.z2p5));
+    }
+    return deduplicated;
+  }
+
 }
@@ -58,6 +58,19 @@ public final class SystemInputList extends InputList {
     bitsets.add(bitset);
   }
 
+  /*
+   * Return a copy of this list with the site terms of every input replaced by
+   * those of the supplied site. Section indices and bitsets are shared.
+   */
+  SystemInputList forSite(Site site) {
+    SystemInputList copy = new SystemInputList(parent, sectionIndices);
+    copy.bitsets.addAll(bitsets);
+    for (HazardInput input : this) {
+      copy.add(input.forSite(site));
+    }
+    return copy;
+  }
+
   @Override
   String parentName() {
     return parent.name();
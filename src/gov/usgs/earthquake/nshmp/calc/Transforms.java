@@ -8,17 +8,26 @@ import static com.google.common.util.concurrent.Futures.transform;
 import static gov.usgs.earthquake.nshmp.gmm.Gmm.instances;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.MultimapBuilder;
+import com.google.common.primitives.Doubles;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import gov.usgs.earthquake.nshmp.calc.ClusterCurves.Builder;
 import gov.usgs.earthquake.nshmp.data.XySequence;
@@ -65,7 +74,7 @@ final class Transforms {
    *
    * Create a list of ground motion inputs from a source.
    */
-  static final class SourceToInputs implements Function<Source, InputList> {
+  static final class SourceToInputs implements Function<Source, SourceInputList> {
 
     private final Site site;
 
@@ -104,6 +113,7 @@ final class Transforms {
             site.z2p5);
         hazardInputs.add(input);
       }
+      CalcMetrics.inputs(hazardInputs.size());
 
       return hazardInputs;
     }
@@ -145,6 +155,7 @@ final class Transforms {
                 gmm,
                 gmmProcessor.apply(model, gmmInput, imt, gmm));
           }
+          CalcMetrics.gmmEvaluations(gmm, imt, inputs.size());
         }
       }
       return builder.build();
@@ -155,15 +166,25 @@ final class Transforms {
    * GroundMotions --> HazardCurves
    *
    * Derive hazard curves for a set of ground motions.
+   *
+   * The exceedance curve of each ground motion is scaled by its rate and added
+   * directly to a primitive array that accumulates the curve for each GMM.
+   * Exceedance models only evaluate the window of IMLs for which probabilities
+   * are neither 0 nor 1, so for small or distant ruptures only a few IMLs are
+   * computed and the rest of the accumulated curve is filled in bulk or left
+   * untouched. Results are identical to computing, scaling and adding complete
+   * curves.
    */
   static final class GroundMotionsToCurves implements Function<GroundMotions, HazardCurves> {
 
     private final Map<Imt, XySequence> modelCurves;
+    private final Map<Imt, double[]> modelImls;
     private final ExceedanceModel exceedanceModel;
     private final double truncationLevel;
 
     GroundMotionsToCurves(CalcConfig config) {
       this.modelCurves = config.hazard.logModelCurves();
+      this.modelImls = modelImls(modelCurves);
       this.exceedanceModel = config.hazard.exceedanceModel;
       this.truncationLevel = config.hazard.truncationLevel;
     }
@@ -177,17 +198,15 @@ final class Transforms {
 
         Imt imt = imtEntry.getKey();
         XySequence modelCurve = modelCurves.get(imt);
+        double[] imls = modelImls.get(imt);
         XySequence gmmCurve = XySequence.copyOf(modelCurve);
+        double[] gmmSum = new double[imls.length];
 
-        XySequence utilCurve = XySequence.emptyCopyOf(modelCurve);
-
-        /*
-         * Exceedance methods always put result in supplied curve and are
-         * responsible for 'clearing' it before use if needed.
-         */
+        /* Only used by multi-branch ground motions. */
+        XySequence utilCurve = null;
 
         for (Entry<Gmm, List<ScalarGroundMotion>> gmmEntry : imtEntry.getValue().entrySet()) {
-          gmmCurve.clear();
+          Arrays.fill(gmmSum, 0.0);
           int i = 0;
           for (ScalarGroundMotion sgm : gmmEntry.getValue()) {
 
@@ -195,50 +214,77 @@ final class Transforms {
 
             if (sgm instanceof MultiScalarGroundMotion) {
 
+              if (utilCurve == null) {
+                utilCurve = XySequence.emptyCopyOf(modelCurve);
+              }
               exceedanceModel.treeExceedanceCombined(
                   (MultiScalarGroundMotion) sgm,
                   truncationLevel,
                   imt,
                   utilCurve);
+              utilCurve.multiply(rate);
+              for (int k = 0; k < gmmSum.length; k++) {
+                gmmSum[k] += utilCurve.y(k);
+              }
 
             } else {
 
-              exceedanceModel.exceedance(
+              exceedanceModel.addExceedance(
                   sgm.mean(),
                   sgm.sigma(),
                   truncationLevel,
                   imt,
-                  utilCurve);
+                  imls,
+                  rate,
+                  gmmSum);
             }
-
-            utilCurve.multiply(rate);
-            gmmCurve.add(utilCurve);
-
           }
-          curveBuilder.addCurve(imt, gmmEntry.getKey(), gmmCurve);
+          CalcMetrics.exceedances(i);
+          curveBuilder.addCurve(imt, gmmEntry.getKey(), gmmCurve.clear().add(gmmSum));
         }
       }
       return curveBuilder.build();
     }
   }
 
+  /* Primitive copies of model curve x-values (IMLs). */
+  private static Map<Imt, double[]> modelImls(Map<Imt, XySequence> modelCurves) {
+    Map<Imt, double[]> modelImls = new EnumMap<>(Imt.class);
+    for (Entry<Imt, XySequence> entry : modelCurves.entrySet()) {
+      modelImls.put(entry.getKey(), Doubles.toArray(entry.getValue().xValues()));
+    }
+    return modelImls;
+  }
+
   /*
    * GroundMotions --> HazardCurves (+epi)
    *
    * Derive hazard curves for a set of ground motions considering an additional
    * epistemic uncertainty model.
+   *
+   * This function is called once per source and so must not allocate per
+   * ground motion. Exceedance probabilities of the epistemic branches of each
+   * ground motion are accumulated directly into primitive scratch arrays that
+   * are created once per call, and so are confined to the calling thread, and
+   * reused for every ground motion. Arithmetic is performed in the same order
+   * as the equivalent XySequence operations so results are unchanged.
    */
   static final class GroundMotionsToCurvesWithUncertainty implements
       Function<GroundMotions, HazardCurves> {
 
+    /* Epistemic branch offsets from the mean, in units of uncertainty. */
+    private static final double[] EPI_OFFSETS = { -1.0, 0.0, 1.0 };
+
     private final GmmSet gmmSet;
     private final Map<Imt, XySequence> modelCurves;
+    private final Map<Imt, double[]> modelImls;
     private final ExceedanceModel exceedanceModel;
     private final double truncationLevel;
 
     GroundMotionsToCurvesWithUncertainty(GmmSet gmmSet, CalcConfig config) {
       this.gmmSet = gmmSet;
       this.modelCurves = config.hazard.logModelCurves();
+      this.modelImls = modelImls(modelCurves);
       this.exceedanceModel = config.hazard.exceedanceModel;
       this.truncationLevel = config.hazard.truncationLevel;
     }
@@ -257,99 +303,85 @@ final class Transforms {
         rates[i] = input.rate;
         uncertainties[i] = gmmSet.epiValue(input.Mw, input.rJB);
       }
+      double[] epiWeights = gmmSet.epiWeights();
 
       for (Entry<Imt, Map<Gmm, List<ScalarGroundMotion>>> imtEntry : gms.gmMap.entrySet()) {
 
         Imt imt = imtEntry.getKey();
-        XySequence modelCurve = modelCurves.get(imt);
-        XySequence utilCurve = XySequence.copyOf(modelCurve);
-        XySequence gmmCurve = XySequence.copyOf(modelCurve);
+        double[] imls = modelImls.get(imt);
+        XySequence gmmCurve = XySequence.copyOf(modelCurves.get(imt));
+
+        /* Scratch arrays reused for every ground motion. */
+        double[] gmCurve = new double[imls.length];
+        double[] gmmSum = new double[imls.length];
 
         for (Entry<Gmm, List<ScalarGroundMotion>> gmmEntry : imtEntry.getValue().entrySet()) {
-          gmmCurve.clear();
+          Arrays.fill(gmmSum, 0.0);
           int i = 0;
           for (ScalarGroundMotion gm : gmmEntry.getValue()) {
             double mean = gm.mean();
+            double sigma = gm.sigma();
             double epi = uncertainties[i];
-            double[] epiMeans = new double[] { mean - epi, mean, mean + epi };
-            exceedanceCurve(
-                epiMeans,
-                gm.sigma(),
-                imt,
-                utilCurve.clear());
-            utilCurve.multiply(inputs.get(i++).rate);
-            gmmCurve.add(utilCurve);
+            Arrays.fill(gmCurve, 0.0);
+            for (int j = 0; j < EPI_OFFSETS.length; j++) {
+              exceedanceModel.addExceedance(
+                  mean + EPI_OFFSETS[j] * epi,
+                  sigma,
+                  truncationLevel,
+                  imt,
+                  imls,
+                  epiWeights[j],
+                  gmCurve);
+            }
+            double rate = rates[i++];
+            for (int k = 0; k < gmmSum.length; k++) {
+              gmmSum[k] += gmCurve[k] * rate;
+            }
           }
-          curveBuilder.addCurve(imt, gmmEntry.getKey(), gmmCurve);
+          CalcMetrics.exceedances(i * epiWeights.length);
+          curveBuilder.addCurve(imt, gmmEntry.getKey(), gmmCurve.clear().add(gmmSum));
         }
       }
       return curveBuilder.build();
     }
-
-    /*
-     * Construct an exceedance curve considering uncertain ground motions.
-     * 
-     * TODO this has not yet been refactored to accomodate a ScalarGroundMotion
-     * object as we know this is only used in WUS whereas sgm refactoring was
-     * done (experimentally) to handle NGA-East in the CEUS.
-     */
-    private XySequence exceedanceCurve(
-        final double[] means,
-        final double sigma,
-        final Imt imt,
-        final XySequence curve) {
-
-      XySequence utilCurve = XySequence.emptyCopyOf(curve);
-      double[] weights = gmmSet.epiWeights();
-      for (int i = 0; i < means.length; i++) {
-        exceedanceModel.exceedance(
-            means[i],
-            sigma,
-            truncationLevel,
-            imt,
-            utilCurve);
-        utilCurve.multiply(weights[i]);
-        curve.add(utilCurve);
-      }
-      return curve;
-    }
   }
 
   /*
-   * Source --> HazardCurves
+   * Source --> List<HazardCurves>
    *
-   * Compute hazard curves for a source. This function coalesces the four
-   * preceeding functions into one.
+   * Compute hazard curves for a source at each of one or more sites that share
+   * a location. This function coalesces the four preceeding functions into
+   * one. Inputs that are identical in all GMM relevant fields are collapsed
+   * prior to computing ground motions. Inputs are created for the first site
+   * and copied with the site terms of each of the others (see SiteSweep).
    */
-  static final class SourceToCurves implements Function<Source, HazardCurves> {
+  static final class SourceToCurves implements Function<Source, List<HazardCurves>> {
 
-    private final Function<Source, InputList> sourceToInputs;
-    private final Function<InputList, GroundMotions> inputsToGroundMotions;
-    private final Function<GroundMotions, HazardCurves> groundMotionsToCurves;
+    private final List<Site> sites;
+    private final Function<Source, SourceInputList> sourceToInputs;
+    private final Function<InputList, HazardCurves> inputsToCurves;
 
     SourceToCurves(
         SourceSet<? extends Source> sources,
         CalcConfig config,
-        Site site) {
-
-      GmmSet gmmSet = sources.groundMotionModels();
-      Map<Imt, Map<Gmm, GroundMotionModel>> gmmTable = instances(
-          config.hazard.imts,
-          gmmSet.gmms());
+        List<Site> sites) {
 
-      this.sourceToInputs = new SourceToInputs(site);
-      this.inputsToGroundMotions = new InputsToGroundMotions(config, gmmTable);
-      this.groundMotionsToCurves = config.hazard.gmmUncertainty && gmmSet.epiUncertainty()
-          ? new GroundMotionsToCurvesWithUncertainty(gmmSet, config)
-          : new GroundMotionsToCurves(config);
+      this.sites = sites;
+      this.sourceToInputs = new SourceToInputs(sites.get(0));
+      this.inputsToCurves = new InputsToCurves(sources, config);
     }
 
     @Override
-    public HazardCurves apply(Source source) {
-      return sourceToInputs
-          .andThen(inputsToGroundMotions)
-          .andThen(groundMotionsToCurves)
+    public List<HazardCurves> apply(Source source) {
+      SourceInputList inputs = sourceToInputs
+          .andThen(SourceInputList::deduplicate)
           .apply(source);
+      List<HazardCurves> curvesList = new ArrayList<>(sites.size());
+      for (int i = 0; i < sites.size(); i++) {
+        InputList siteInputs = (i == 0) ? inputs : inputs.forSite(sites.get(i));
+        curvesList.add(inputsToCurves.apply(siteInputs));
+      }
+      return curvesList;
     }
   }
 
@@ -403,96 +435,236 @@ final class Transforms {
   /*
    * SYSTEM: SystemSourceSet --> HazardCurveSet
    *
-   * Compute hazard curves for system sources. This function derives all inputs
-   * for an entire SystemSourceSet before being composing them with standard
-   * ground motion and hazard curve functions.
+   * Compute hazard curves for system sources at each of one or more sites that
+   * share a location. This function derives all inputs for an entire
+   * SystemSourceSet before being composing them with standard ground motion
+   * and hazard curve functions.
    */
-  static final class SystemToCurves implements Function<SystemSourceSet, HazardCurveSet> {
+  static final class SystemToCurves implements
+      Function<SystemSourceSet, List<HazardCurveSet>> {
 
-    private final Site site;
+    private final List<Site> sites;
     private final CalcConfig config;
 
-    SystemToCurves(CalcConfig config, Site site) {
-      this.site = site;
+    SystemToCurves(CalcConfig config, List<Site> sites) {
+      this.sites = sites;
       this.config = config;
     }
 
     @Override
-    public HazardCurveSet apply(SystemSourceSet sources) {
+    public List<HazardCurveSet> apply(SystemSourceSet sources) {
 
-      InputList inputs = SystemSourceSet.toInputsFunction(site).apply(sources);
-      if (inputs.isEmpty()) {
-        return HazardCurveSet.empty(sources);
+      SystemInputList master = systemInputs(sources, sites.get(0));
+      if (master.isEmpty()) {
+        return Collections.nCopies(sites.size(), HazardCurveSet.empty(sources));
       }
 
-      GmmSet gmmSet = sources.groundMotionModels();
-      Map<Imt, Map<Gmm, GroundMotionModel>> gmmTable = instances(
-          config.hazard.imts,
-          gmmSet.gmms());
-
-      InputsToGroundMotions inputsToGm = new InputsToGroundMotions(config, gmmTable);
-      GroundMotions gms = inputsToGm.apply(inputs);
-
-      Function<GroundMotions, HazardCurves> gmToCurves =
-          config.hazard.gmmUncertainty && gmmSet.epiUncertainty()
-              ? new GroundMotionsToCurvesWithUncertainty(gmmSet, config)
-              : new GroundMotionsToCurves(config);
-      HazardCurves curves = gmToCurves.apply(gms);
-
+      InputsToCurves inputsToCurves = new InputsToCurves(sources, config);
       CurveConsolidator consolidator = new CurveConsolidator(sources, config);
-      return consolidator.apply(ImmutableList.of(curves));
+      List<HazardCurveSet> curveSets = new ArrayList<>(sites.size());
+      for (int i = 0; i < sites.size(); i++) {
+        InputList inputs = (i == 0) ? master : master.forSite(sites.get(i));
+        curveSets.add(consolidator.apply(ImmutableList.of(inputsToCurves.apply(inputs))));
+      }
+      return curveSets;
     }
   }
 
+  /* Create and record the inputs for an entire SystemSourceSet. */
+  private static SystemInputList systemInputs(SystemSourceSet sources, Site site) {
+    SystemInputList inputs = (SystemInputList) SystemSourceSet
+        .toInputsFunction(site)
+        .apply(sources);
+    CalcMetrics.sources(sources, inputs.size());
+    CalcMetrics.inputs(inputs.size());
+    return inputs;
+  }
+
   /*
    * SYSTEM: SystemSourceSet --> HazardCurveSet
    *
-   * Compute hazard curves for system sources concurrently. This function
-   * derives all inputs for an entire SystemSourceSet and partitions them before
-   * composing them with standard ground motion and hazard curve functions.
+   * Compute hazard curves for system sources concurrently at each of one or
+   * more sites that share a location. This function derives all inputs for an
+   * entire SystemSourceSet, copies them for each site, and partitions them
+   * before composing them with standard ground motion and hazard curve
+   * functions.
+   *
+   * Partition size is chosen per site from the number of inputs and the cost
+   * of each input (GMM count × IMT count), subject to an upper limit of
+   * CalcConfig.performance.systemPartition; sites with few inputs are not split
+   * into partitions that are too small to offset task overhead. Partitioning
+   * does not depend on the number of threads available so that the order in
+   * which partition curves are summed, and therefore the result, is the same
+   * on every machine.
+   *
+   * Partitions are not bound to tasks; a number of workers matching the size
+   * of the executor (one of which runs on the calling thread) claim partitions
+   * of all sites from a shared counter until none remain, so workers that
+   * finish early take on the remaining work of slower ones. Partition and
+   * worker timing skew is logged at FINE.
    */
-  static final class ParallelSystemToCurves implements Function<SystemSourceSet, HazardCurveSet> {
+  static final class ParallelSystemToCurves implements
+      Function<SystemSourceSet, List<HazardCurveSet>> {
 
-    private final Site site;
+    /*
+     * Target number of partitions when inputs are plentiful; enough to balance
+     * load across the cores of a typical machine.
+     */
+    private static final int TARGET_PARTITIONS = 32;
+
+    /* Minimum partition cost in ground motion calculations. */
+    private static final int MIN_PARTITION_COST = 20000;
+
+    private static final Logger log = Logger.getLogger(ParallelSystemToCurves.class.getName());
+
+    private final List<Site> sites;
     private final Executor ex;
     private final CalcConfig config;
 
     ParallelSystemToCurves(
-        Site site,
+        List<Site> sites,
         CalcConfig config,
         Executor ex) {
 
-      this.site = site;
+      this.sites = sites;
       this.ex = ex;
       this.config = config;
     }
 
     @Override
-    public HazardCurveSet apply(SystemSourceSet sources) {
+    public List<HazardCurveSet> apply(SystemSourceSet sources) {
 
-      // create input list
-      InputList master = SystemSourceSet.toInputsFunction(site).apply(sources);
+      // create input lists
+      SystemInputList master = systemInputs(sources, sites.get(0));
       if (master.isEmpty()) {
-        return HazardCurveSet.empty(sources);
+        return Collections.nCopies(sites.size(), HazardCurveSet.empty(sources));
+      }
+      List<InputList> siteInputs = new ArrayList<>(sites.size());
+      for (int i = 0; i < sites.size(); i++) {
+        siteInputs.add((i == 0) ? master : master.forSite(sites.get(i)));
       }
 
-      // calculate curves from list in parallel
+      // partition
       InputsToCurves inputsToCurves = new InputsToCurves(sources, config);
-      AsyncList<HazardCurves> asyncCurvesList = AsyncList.create();
-      int size = config.performance.systemPartition;
-      for (InputList partition : master.partition(size)) {
-        asyncCurvesList.add(transform(
-            immediateFuture(partition),
-            inputsToCurves::apply,
+      int gmCount = sources.groundMotionModels().gmms().size() * config.hazard.imts.size();
+      int size = partitionSize(
+          master.size(),
+          gmCount,
+          config.performance.systemPartition);
+      List<InputList> partitions = new ArrayList<>();
+      for (InputList inputs : siteInputs) {
+        partitions.addAll(inputs.partition(size));
+      }
+      int workerCount = Math.min(workerCount(ex, config), partitions.size());
+
+      // calculate curves from partitions in parallel
+      HazardCurves[] curves = new HazardCurves[partitions.size()];
+      long[] partitionTimes = new long[partitions.size()];
+      AtomicInteger nextPartition = new AtomicInteger();
+      Function<Integer, Long> worker = workerIndex -> {
+        long busyTime = 0;
+        int i;
+        while ((i = nextPartition.getAndIncrement()) < curves.length) {
+          long start = System.nanoTime();
+          curves[i] = inputsToCurves.apply(partitions.get(i));
+          partitionTimes[i] = System.nanoTime() - start;
+          busyTime += partitionTimes[i];
+        }
+        return busyTime;
+      };
+      AsyncList<Long> asyncWorkerTimes = AsyncList.create();
+      for (int i = 1; i < workerCount; i++) {
+        asyncWorkerTimes.add(transform(
+            immediateFuture(i),
+            worker::apply,
             ex));
       }
-      List<HazardCurves> curvesList = getUnchecked(allAsList(asyncCurvesList));
+      List<Long> workerTimes = new ArrayList<>(workerCount);
+      workerTimes.add(worker.apply(0));
+      workerTimes.addAll(getUnchecked(allAsList(asyncWorkerTimes)));
+
+      if (log.isLoggable(Level.FINE)) {
+        log.fine(timingSkew(sources, master.size(), size, partitionTimes, workerTimes));
+      }
 
       // combine and consolidate
-      HazardCurves hazardCurves = HazardCurves.combine(master, curvesList);
       CurveConsolidator consolidator = new CurveConsolidator(sources, config);
+      int sitePartitions = partitions.size() / sites.size();
+      List<HazardCurveSet> curveSets = new ArrayList<>(sites.size());
+      for (int i = 0; i < sites.size(); i++) {
+        int from = i * sitePartitions;
+        HazardCurves hazardCurves = HazardCurves.combine(
+            siteInputs.get(i),
+            Arrays.asList(curves).subList(from, from + sitePartitions));
+        curveSets.add(consolidator.apply(ImmutableList.of(hazardCurves)));
+      }
+      return curveSets;
+    }
+
+    /*
+     * Partition size for the supplied input count: the smallest of the
+     * configured maximum and the size that yields TARGET_PARTITIONS partitions,
+     * but not less than the size that yields MIN_PARTITION_COST ground motion
+     * calculations.
+     */
+    static int partitionSize(int inputCount, int gmCount, int maxSize) {
+      int minSize = Math.max(1, MIN_PARTITION_COST / Math.max(1, gmCount));
+      int size = (inputCount + TARGET_PARTITIONS - 1) / TARGET_PARTITIONS;
+      return Math.max(1, Math.min(maxSize, Math.max(minSize, size)));
+    }
+
+    /*
+     * The number of workers to use with the supplied executor: the pool size of
+     * a ThreadPoolExecutor or ForkJoinPool, 1 for a direct executor, and the
+     * configured thread count for any other executor. Worker count only governs
+     * concurrency; it has no effect on results.
+     */
+    static int workerCount(Executor ex, CalcConfig config) {
+      if (ex instanceof ThreadPoolExecutor) {
+        return ((ThreadPoolExecutor) ex).getMaximumPoolSize();
+      }
+      if (ex instanceof ForkJoinPool) {
+        return ((ForkJoinPool) ex).getParallelism();
+      }
+      if (ex == MoreExecutors.directExecutor()) {
+        return 1;
+      }
+      return config.performance.threadCount.value();
+    }
 
-      return consolidator.apply(ImmutableList.of(hazardCurves));
+    private static String timingSkew(
+        SystemSourceSet sources,
+        int inputCount,
+        int partitionSize,
+        long[] partitionTimes,
+        List<Long> workerTimes) {
+
+      long partitionMin = Long.MAX_VALUE;
+      long partitionMax = 0;
+      long partitionSum = 0;
+      for (long time : partitionTimes) {
+        partitionMin = Math.min(partitionMin, time);
+        partitionMax = Math.max(partitionMax, time);
+        partitionSum += time;
+      }
+      long workerMax = 0;
+      for (long time : workerTimes) {
+        workerMax = Math.max(workerMax, time);
+      }
+      double workerMean = (double) partitionSum / workerTimes.size();
+      return String.format(
+          "%s: %d inputs, %d partitions of %d, %d workers; " +
+              "partition ms [min, mean, max]: [%.1f, %.1f, %.1f]; " +
+              "worker skew (max/mean): %.2f",
+          sources.name(),
+          inputCount,
+          partitionTimes.length,
+          partitionSize,
+          workerTimes.size(),
+          partitionMin / 1e6,
+          partitionSum / 1e6 / partitionTimes.length,
+          partitionMax / 1e6,
+          (workerMean > 0.0) ? workerMax / workerMean : 1.0);
     }
   }
 
@@ -501,7 +673,7 @@ final class Transforms {
    *
    * Compute hazard curves from an input list. Although this function is
    * generally applicable to all source types, it is presently only used to
-   * process partitioned input lists derived from a system source.
+   * process partitioned input lists derived from system and area sources.
    */
   static final class InputsToCurves implements Function<InputList, HazardCurves> {
 
@@ -668,6 +840,8 @@ final class Transforms {
                 magCurves.add(magTreeCurves);
               }
 
+              CalcMetrics.exceedances(sgms.size());
+
               /* Combine magnitude variants and collect. */
               List<XySequence> faultTreeCurves = reduce(magCurves, Transforms::sum);
               faultCurves.put(gmm, faultTreeCurves);
@@ -721,6 +895,7 @@ final class Transforms {
                 utilCurve.multiply(groundMotions.inputs.get(i).rate);
                 magVarCurve.add(utilCurve);
               }
+              CalcMetrics.exceedances(sgms.size());
               faultCurves.put(gmm, magVarCurve);
             }
           }
@@ -799,11 +974,14 @@ final class Transforms {
   /*
    * CLUSTER: ClusterSource --> ClusterCurves
    *
-   * Compute hazard curves for a cluster source. This function coalesces the
-   * three preceeding functions into one.
+   * Compute hazard curves for a cluster source at each of one or more sites
+   * that share a location. This function coalesces the three preceeding
+   * functions into one. Inputs are created for the first site and copied with
+   * the site terms of each of the others.
    */
-  static final class ClusterToCurves implements Function<ClusterSource, ClusterCurves> {
+  static final class ClusterToCurves implements Function<ClusterSource, List<ClusterCurves>> {
 
+    private final List<Site> sites;
     private final Function<ClusterSource, ClusterInputs> sourceToInputs;
     private final Function<ClusterInputs, ClusterGroundMotions> inputsToGroundMotions;
     private final Function<ClusterGroundMotions, ClusterCurves> groundMotionsToCurves;
@@ -811,21 +989,26 @@ final class Transforms {
     ClusterToCurves(
         ClusterSourceSet sources,
         CalcConfig config,
-        Site site) {
+        List<Site> sites) {
 
       Set<Gmm> gmms = sources.groundMotionModels().gmms();
       Map<Imt, Map<Gmm, GroundMotionModel>> gmmTable = instances(config.hazard.imts, gmms);
 
-      this.sourceToInputs = new ClusterSourceToInputs(site);
+      this.sites = sites;
+      this.sourceToInputs = new ClusterSourceToInputs(sites.get(0));
       this.inputsToGroundMotions = new ClusterInputsToGroundMotions(config, gmmTable);
       this.groundMotionsToCurves = new ClusterGroundMotionsToCurves(config);
     }
 
     @Override
-    public ClusterCurves apply(ClusterSource source) {
-      return groundMotionsToCurves.apply(
-          inputsToGroundMotions.apply(
-              sourceToInputs.apply(source)));
+    public List<ClusterCurves> apply(ClusterSource source) {
+      ClusterInputs inputs = sourceToInputs.apply(source);
+      List<ClusterCurves> curvesList = new ArrayList<>(sites.size());
+      for (int i = 0; i < sites.size(); i++) {
+        ClusterInputs siteInputs = (i == 0) ? inputs : inputs.forSite(sites.get(i));
+        curvesList.add(groundMotionsToCurves.apply(inputsToGroundMotions.apply(siteInputs)));
+      }
+      return curvesList;
     }
   }
 
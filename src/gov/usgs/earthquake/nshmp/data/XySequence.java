@@ -68,6 +68,27 @@ public abstract class XySequence implements Iterable<XyPoint> {
     return create(xs, checkNotNull(ys), false);
   }
 
+  /**
+   * Create a new, immutable sequence that is backed by, rather than a copy of,
+   * the supplied value arrays. This permits many sequences, such as the node
+   * MFDs of a gridded source model, to share a single x-value array. For
+   * internal use only. Public for access outside of package.
+   *
+   * <p>Callers are responsible for ensuring that {@code xs} increase
+   * monotonically and that neither array is modified once supplied.
+   *
+   * @param xs x-values of sequence
+   * @param ys y-values of sequence
+   * @return an immutable sequence that wraps the supplied arrays
+   * @throws IllegalArgumentException if {@code xs} and {@code ys} are empty or
+   *         not the same size
+   */
+  public static XySequence wrap(double[] xs, double[] ys) {
+    checkArgument(xs.length > 0, "x-values may not be empty");
+    checkArgument(xs.length == ys.length, "x- and y-values are different sizes");
+    return new ImmutableXySequence(xs, ys);
+  }
+
   private static XySequence create(double[] xs, double[] ys, boolean mutable) {
     return construct(
         Arrays.copyOf(xs, xs.length),
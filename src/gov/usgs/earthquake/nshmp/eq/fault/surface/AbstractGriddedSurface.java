@@ -7,6 +7,7 @@ import com.google.common.collect.Lists;
 import gov.usgs.earthquake.nshmp.eq.model.Distance;
 import gov.usgs.earthquake.nshmp.geo.Location;
 import gov.usgs.earthquake.nshmp.geo.LocationList;
+import gov.usgs.earthquake.nshmp.geo.LocationPatches;
 
 /**
  * <b>Title:</b> GriddedSurface<p> <b>Description:</b>
@@ -146,9 +147,35 @@ abstract class AbstractGriddedSurface extends Container2DImpl<Location> implemen
     return LocationList.create(locs);
   }
 
+  /*
+   * Surface locations packed in row-major order and partitioned into patches
+   * for distance calculations; created on first use and cleared if a location
+   * is subsequently set. LocationPatches is immutable so the racy single-check
+   * idiom is safe.
+   */
+  private LocationPatches locations;
+
+  @Override
+  public void set(int row, int column, Location loc) {
+    super.set(row, column, loc);
+    locations = null;
+  }
+
+  LocationPatches locations() {
+    LocationPatches patches = locations;
+    if (patches == null) {
+      patches = LocationPatches.create(
+          getEvenlyDiscritizedListOfLocsOnSurface().coordinates(),
+          getNumRows(),
+          getNumCols());
+      locations = patches;
+    }
+    return patches;
+  }
+
   @Override
   public Distance distanceTo(Location loc) {
-    return Distance.compute(this, loc);
+    return Distance.compute(this, locations(), 0, 0, loc);
   }
 
   // @Deprecated
@@ -215,9 +215,40 @@ class GriddedSubsetSurface extends ContainerSubset2D<Location> implements Gridde
     return getEvenlyDiscritizedUpperEdge();
   }
 
+  /*
+   * Floating ruptures of different magnitudes that occupy the same window may
+   * share a surface (see RuptureFloating.Floaters), so the distances to the
+   * most recently supplied site are cached. The cache holder is immutable and
+   * is updated using the racy single-check idiom.
+   */
+  private SiteDistance siteDistance;
+
   @Override
   public Distance distanceTo(Location loc) {
-    return Distance.compute(this, loc);
+    SiteDistance sd = siteDistance;
+    if (sd == null || !sd.site.equals(loc)) {
+      sd = new SiteDistance(loc, (data instanceof AbstractGriddedSurface)
+          ? Distance.compute(
+              this,
+              ((AbstractGriddedSurface) data).locations(),
+              window.getStartRow(),
+              window.getStartCol(),
+              loc)
+          : Distance.compute(this, loc));
+      siteDistance = sd;
+    }
+    return sd.distance;
+  }
+
+  private static final class SiteDistance {
+
+    final Location site;
+    final Distance distance;
+
+    SiteDistance(Location site, Distance distance) {
+      this.site = site;
+      this.distance = distance;
+    }
   }
 
   // @Deprecated
@@ -1,25 +1,35 @@
 package gov.usgs.earthquake.nshmp.eq.fault.surface;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.Math.sin;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Range;
+import com.google.common.primitives.Doubles;
+import com.google.common.primitives.Ints;
 
 import gov.usgs.earthquake.nshmp.data.Data;
 import gov.usgs.earthquake.nshmp.data.Interpolate;
 import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.Dimensions;
 import gov.usgs.earthquake.nshmp.eq.model.Rupture;
-import gov.usgs.earthquake.nshmp.geo.Location;
-import gov.usgs.earthquake.nshmp.geo.LocationList;
 
 /**
  * Rupture floating models for gridded surfaces. Each provides the means to
- * create an immutable {@code List} of {@link Rupture}s from a
+ * create an immutable {@code List} of {@link Rupture}s, or compact
+ * {@link Floaters} from which ruptures may be created on demand, from a
  * {@link GriddedSurface}, magnitude, rate, rake, and uncertainty flag.
  *
  * <p>NOTE: Only {@code ON} currently recognizes and applies rupture area
@@ -32,38 +42,36 @@ public enum RuptureFloating {
   /** Do not float. */
   OFF {
     @Override
-    public List<Rupture> createFloatingRuptures(GriddedSurface surface,
+    public Floaters createFloaters(Windows windows,
         RuptureScaling scaling, double mag, double rate, double rake, boolean uncertainty) {
-      List<Rupture> floaters = new ArrayList<>();
-      floaters.add(Rupture.create(mag, rate, rake, surface));
-      return floaters;
+      int[] ids = windows.group(0, 0, 0, 1, 1);
+      return new Floaters.Builder(windows, mag, rake).add(ids, rate).build();
     }
   },
 
   /** Float both down-dip and along-strike. */
   ON {
     @Override
-    public List<Rupture> createFloatingRuptures(GriddedSurface surface,
+    public Floaters createFloaters(Windows windows,
         RuptureScaling scaling, double mag, double rate, double rake, boolean uncertainty) {
 
-      double maxWidth = surface.width();
+      double maxWidth = windows.surface.width();
+      Floaters.Builder floaters = new Floaters.Builder(windows, mag, rake);
 
       if (uncertainty) {
-        List<Rupture> floaters = new ArrayList<>();
         Map<Dimensions, Double> dimensionsMap = scaling.dimensionsDistribution(mag,
             maxWidth);
         for (Entry<Dimensions, Double> entry : dimensionsMap.entrySet()) {
           Dimensions d = entry.getKey();
-          List<GriddedSurface> surfaces = createFloatingSurfaces(surface, d.length,
-              d.width);
+          int[] ids = createFloatingWindows(windows, d.length, d.width);
           double scaledRate = rate * entry.getValue();
-          floaters.addAll(createFloaters(surfaces, mag, scaledRate, rake));
+          addFloaters(floaters, ids, scaledRate);
         }
-        return floaters;
+        return floaters.build();
       }
       Dimensions d = scaling.dimensions(mag, maxWidth);
-      List<GriddedSurface> surfaces = createFloatingSurfaces(surface, d.length, d.width);
-      return createFloaters(surfaces, mag, rate, rake);
+      int[] ids = createFloatingWindows(windows, d.length, d.width);
+      return addFloaters(floaters, ids, rate).build();
     }
   },
 
@@ -73,12 +81,12 @@ public enum RuptureFloating {
    */
   STRIKE_ONLY {
     @Override
-    public List<Rupture> createFloatingRuptures(GriddedSurface surface,
+    public Floaters createFloaters(Windows windows,
         RuptureScaling scaling, double mag, double rate, double rake, boolean uncertainty) {
-      double maxWidth = surface.width();
+      double maxWidth = windows.surface.width();
       Dimensions d = scaling.dimensions(mag, maxWidth);
-      List<GriddedSurface> surfaces = createFloatingSurfaces(surface, d.length, maxWidth);
-      return createFloaters(surfaces, mag, rate, rake);
+      int[] ids = createFloatingWindows(windows, d.length, maxWidth);
+      return addFloaters(new Floaters.Builder(windows, mag, rake), ids, rate).build();
     }
   },
 
@@ -90,10 +98,19 @@ public enum RuptureFloating {
    */
   NSHM {
     @Override
-    public List<Rupture> createFloatingRuptures(GriddedSurface surface,
+    public Floaters createFloaters(Windows windows,
         RuptureScaling scaling, double mag, double rate, double rake, boolean uncertainty) {
-      List<GriddedSurface> surfaces = floatListNshm(surface, scaling, mag);
-      return createFloaters(surfaces, mag, rate, rake);
+      Floaters.Builder floaters = new Floaters.Builder(windows, mag, rake);
+      List<int[]> idGroups = floatListNshm(windows, scaling, mag);
+      int size = 0;
+      for (int[] ids : idGroups) {
+        size += ids.length;
+      }
+      double scaledRate = rate / size;
+      for (int[] ids : idGroups) {
+        floaters.add(ids, scaledRate);
+      }
+      return floaters.build();
     }
   },
 
@@ -107,14 +124,14 @@ public enum RuptureFloating {
    */
   TRIANGULAR {
     @Override
-    public List<Rupture> createFloatingRuptures(GriddedSurface surface,
+    public Floaters createFloaters(Windows windows,
         RuptureScaling scaling, double mag, double rate, double rake, boolean uncertainty) {
 
-      double maxWidth = surface.width();
+      double maxWidth = windows.surface.width();
       Dimensions d = scaling.dimensions(mag, maxWidth);
-      Map<GriddedSurface, Double> surfaces = createWeightedFloatingSurfaces(surface,
-          d.length, d.width);
-      return createFloaters(surfaces, mag, rate, rake);
+      Floaters.Builder floaters = new Floaters.Builder(windows, mag, rake);
+      addWeightedFloaters(floaters, windows, d.length, d.width, rate);
+      return floaters.build();
     }
   };
 
@@ -124,38 +141,51 @@ public enum RuptureFloating {
    * spacing to 1km and outputting Transforms.sourceToInput
    */
 
-  private static List<Rupture> createFloaters(List<GriddedSurface> floatingSurfaces, double mag,
-      double rate, double rake) {
-    List<Rupture> floaters = new ArrayList<>();
-    double scaledRate = rate / floatingSurfaces.size();
-    for (GriddedSurface floatingSurface : floatingSurfaces) {
-      floaters.add(Rupture.create(mag, scaledRate, rake, floatingSurface));
-    }
-    return floaters;
+  private static Floaters.Builder addFloaters(Floaters.Builder floaters, int[] ids,
+      double rate) {
+    return floaters.add(ids, rate / ids.length);
   }
 
-  private static List<Rupture> createFloaters(Map<GriddedSurface, Double> surfaceMap, double mag,
-      double rate, double rake) {
-    List<Rupture> floaters = new ArrayList<>();
-    for (Entry<GriddedSurface, Double> entry : surfaceMap.entrySet()) {
-      floaters.add(Rupture.create(mag, entry.getValue() * rate, rake, entry.getKey()));
-    }
-    return floaters;
+  /**
+   * Create a {@code List} of floating ruptures.
+   *
+   * @param surface (gridded) from which floaters are derived
+   * @param scaling the rupture scaling model used to determine floater
+   *        dimensions
+   * @param mag the magnitude of interest
+   * @param rate of the magnitude of interest
+   * @param rake of the ruptures
+   * @param uncertainty whether to apply rupture area uncertainty
+   * @see #createFloaters(Windows, RuptureScaling, double, double, double,
+   *      boolean)
+   */
+  public List<Rupture> createFloatingRuptures(GriddedSurface surface,
+      RuptureScaling scaling, double mag, double rate, double rake, boolean uncertainty) {
+    Floaters floaters = createFloaters(
+        new Windows(surface), scaling, mag, rate, rake, uncertainty);
+    return ImmutableList.copyOf(floaters);
   }
 
-  // TODO why is this taking DefaultGriddedSurface instead of GriddedSurface
   /**
-   * Create a {@code List} of floating ruptures
-   * @param surface (gridded) from which floaters are derived
+   * Create compact descriptors of floating ruptures. The returned
+   * {@code Floaters} retains only the floating window ids and rates of each
+   * rupture; {@code Rupture}s and their surfaces are created on demand and are
+   * not retained. Floating windows are shared with any other {@code Floaters}
+   * created from the same {@code Windows}.
+   *
+   * @param windows of the (gridded) surface from which floaters are derived
    * @param scaling the rupture scaling model used to determine floater
    *        dimensions
    * @param mag the magnitude of interest
+   * @param rate of the magnitude of interest
+   * @param rake of the ruptures
+   * @param uncertainty whether to apply rupture area uncertainty
    */
-  public abstract List<Rupture> createFloatingRuptures(GriddedSurface surface,
+  public abstract Floaters createFloaters(Windows windows,
       RuptureScaling scaling, double mag, double rate, double rake, boolean uncertainty);
 
-  private static List<GriddedSurface> floatListNshm(GriddedSurface parent,
-      RuptureScaling scaling, double mag) {
+  private static List<int[]> floatListNshm(Windows windows, RuptureScaling scaling,
+      double mag) {
 
     // zTop > 1, no down-dip variants
     // M>7 [zTop]
@@ -163,6 +193,7 @@ public enum RuptureFloating {
     // M>6.5 [zTop, +2, +4]
     // else [zTop, +2, +4, +6]
 
+    GriddedSurface parent = windows.surface;
     double zTop = parent.depth();
     int downDipCount = (zTop > 1.0 || mag > 7.0) ? 1 : (mag > 6.75) ? 2 : (mag > 6.5) ? 3 : 4;
     List<Double> zTopWidths = new ArrayList<>();
@@ -172,7 +203,7 @@ public enum RuptureFloating {
       zTopWidths.add(0.0 + i * zWidthDelta);
     }
 
-    List<GriddedSurface> floaterList = new ArrayList<>();
+    List<int[]> floaterList = new ArrayList<>();
 
     // compute row start index and rowCount for each depth
     for (double zTopWidth : zTopWidths) {
@@ -191,20 +222,16 @@ public enum RuptureFloating {
         floaterColSize = parent.getNumCols();
       }
 
-      for (int startCol = 0; startCol < alongCount; startCol++) {
-        GriddedSubsetSurface gss = new GriddedSubsetSurface(floaterRowSize, floaterColSize,
-            startRow, startCol, parent);
-        floaterList.add(gss);
-      }
+      floaterList.add(windows.group(floaterRowSize, floaterColSize, startRow, 1, alongCount));
     }
     return floaterList;
   }
 
-  /* Create a List of floating surfaces. */
-  private static List<GriddedSurface> createFloatingSurfaces(GriddedSurface parent,
-      double floatLength, double floatWidth) {
+  /* Create or look up the ids of a set of floating windows. */
+  private static int[] createFloatingWindows(Windows windows, double floatLength,
+      double floatWidth) {
 
-    List<GriddedSurface> floaterList = new ArrayList<>();
+    GriddedSurface parent = windows.surface;
 
     // along-strike size & count
     int floaterColSize = (int) Math.rint(floatLength / parent.getGridSpacingAlongStrike() + 1);
@@ -222,19 +249,11 @@ public enum RuptureFloating {
       floaterRowSize = parent.getNumRows();
     }
 
-    for (int startCol = 0; startCol < alongCount; startCol++) {
-      for (int startRow = 0; startRow < downCount; startRow++) {
-        GriddedSubsetSurface gss = new GriddedSubsetSurface(floaterRowSize, floaterColSize,
-            startRow, startCol, parent);
-        floaterList.add(gss);
-      }
-    }
-
-    return floaterList;
+    return windows.group(floaterRowSize, floaterColSize, 0, downCount, alongCount);
   }
 
   /*
-   * Create a Map of floating surfaces and associated weights derived from a
+   * Add floating windows with rates scaled by weights derived from a
    * "triangular" down dip distribution of hypocenters. This model is motivated
    * by the PEER test cases and apparantly is in use in stable continental
    * regions. The model used in the test case is for a planar, vertical, 30 km
@@ -248,10 +267,10 @@ public enum RuptureFloating {
    * Generally this should only be used with wide faults in stable continental
    * crust.
    */
-  private static Map<GriddedSurface, Double> createWeightedFloatingSurfaces(
-      GriddedSurface parent, double floatLength, double floatWidth) {
+  private static void addWeightedFloaters(Floaters.Builder floaters, Windows windows,
+      double floatLength, double floatWidth, double rate) {
 
-    Map<GriddedSurface, Double> floaterMap = new HashMap<>();
+    GriddedSurface parent = windows.surface;
 
     // along-strike size & count
     int floaterColSize = (int) Math.rint(floatLength / parent.getGridSpacingAlongStrike() + 1);
@@ -284,18 +303,13 @@ public enum RuptureFloating {
     double horizScale = 1.0 / alongCount;
     Data.multiply(horizScale, depthWeights);
 
-    for (int startCol = 0; startCol < alongCount; startCol++) {
-      for (int startRow = 0; startRow < downCount; startRow++) {
-        GriddedSubsetSurface gss = new GriddedSubsetSurface(floaterRowSize, floaterColSize,
-            startRow, startCol, parent);
-        floaterMap.put(gss, depthWeights[startRow]);
-      }
+    // windows are ordered by column and then row
+    int[] ids = windows.group(floaterRowSize, floaterColSize, 0, downCount, alongCount);
+    double[] rates = new double[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      rates[i] = depthWeights[i % downCount] * rate;
     }
-    // TODO clean
-    // System.out.println(Data.sum(floaterMap.values()));
-    // System.out.println(floaterMap.size());
-
-    return floaterMap;
+    floaters.add(ids, rates);
   }
 
   /*
@@ -319,32 +333,209 @@ public enum RuptureFloating {
     return weights;
   }
 
-  // TODO clean
-  public static void main(String[] args) {
-    // double zTop = 0.0;
-    // double zBot = 30.0;
-    // double[] depths = { 2, 4, 6, 8, 10, 12, 14, 16, 18, 20, 22, 24, 26,
-    // 28 };
-    // double[] weights = generateTriangularWeights(zTop, zBot, depths);
-    // System.out.println(Arrays.toString(weights));
-    // System.out.println(DataUtils.sum(weights));
-
-    DefaultGriddedSurface surf = DefaultGriddedSurface.builder()
-        .trace(LocationList.create(
-            Location.create(33.0, -118.0),
-            Location.create(33.5, -118.0)))
-        .depth(0.0)
-        .width(30.0)
-        .dip(90.0)
-        .build();
-
-    Dimensions d = RuptureScaling.PEER.dimensions(7.0, 30.0);
-    System.out.println(d);
-
-    Map<GriddedSurface, Double> map = createWeightedFloatingSurfaces(surf, d.length, d.width);
-    System.out.println(Data.sum(map.values()));
-    System.out.println(map.size());
+  /**
+   * The floating windows of a single parent surface. A floating window is
+   * identified by its row and column counts, which are rupture width and length
+   * in grid units, and its starting row and column in the parent. Windows are
+   * created once and are shared by all {@link Floaters} created from the same
+   * {@code Windows} instance, e.g. across the magnitudes and MFD branches of a
+   * fault source.
+   *
+   * <p>This class is not thread safe; windows should be created from a single
+   * thread, typically when a source is initialized.
+   */
+  public static final class Windows {
+
+    private final GriddedSurface surface;
+
+    /* Window ids keyed by group dimensions and extent. */
+    private final Map<List<Integer>, int[]> groups = new HashMap<>();
+
+    /*
+     * Floating windows are stored as sequential {rowCount, colCount, startRow,
+     * startCol} quadruples; a rowCount of 0 indicates a window that spans the
+     * entire parent surface.
+     */
+    private int[] windows = new int[64];
+    private int size = 0;
+
+    /**
+     * Create an empty set of floating windows.
+     *
+     * @param surface the parent of all floating windows
+     */
+    public Windows(GriddedSurface surface) {
+      this.surface = checkNotNull(surface);
+    }
+
+    /** The number of unique floating windows. */
+    public int size() {
+      return size;
+    }
+
+    /*
+     * Return the ids of the windows of the supplied dimensions that start at
+     * rows [startRow, startRow + rowCount) and columns [0, colCount), ordered
+     * by column and then row.
+     */
+    private int[] group(int rows, int cols, int startRow, int rowCount, int colCount) {
+      List<Integer> key = ImmutableList.of(rows, cols, startRow, rowCount, colCount);
+      int[] ids = groups.get(key);
+      if (ids != null) {
+        return ids;
+      }
+      ids = new int[rowCount * colCount];
+      int required = (size + ids.length) * 4;
+      if (required > windows.length) {
+        windows = Arrays.copyOf(windows, Math.max(required, windows.length * 2));
+      }
+      int index = 0;
+      for (int col = 0; col < colCount; col++) {
+        for (int row = startRow; row < startRow + rowCount; row++) {
+          int i = size * 4;
+          windows[i] = rows;
+          windows[i + 1] = cols;
+          windows[i + 2] = row;
+          windows[i + 3] = col;
+          ids[index++] = size++;
+        }
+      }
+      groups.put(key, ids);
+      return ids;
+    }
+
+    private GriddedSurface create(int id) {
+      int i = id * 4;
+      return (windows[i] == 0) ? surface : new GriddedSubsetSurface(
+          windows[i], windows[i + 1], windows[i + 2], windows[i + 3], surface);
+    }
+  }
+
+  /**
+   * Compact, immutable descriptors of the floating ruptures of a single
+   * magnitude on a gridded surface. Only the id of each floating window and the
+   * rate of each rupture are retained. {@code Rupture}s, and their surfaces,
+   * are created on iteration and may be discarded once processed. Ruptures
+   * returned by a single iterator that occupy the same floating window share a
+   * surface instance, and hence distance calculations.
+   */
+  public static final class Floaters implements Iterable<Rupture> {
+
+    private final Windows windows;
+    private final double mag;
+    private final double rake;
+    private final int[] ids;
+    private final double[] rates;
+
+    private Floaters(Windows windows, double mag, double rake, int[] ids, double[] rates) {
+      this.windows = windows;
+      this.mag = mag;
+      this.rake = rake;
+      this.ids = ids;
+      this.rates = rates;
+    }
+
+    /** The number of ruptures. */
+    public int size() {
+      return rates.length;
+    }
+
+    /**
+     * Create the rupture at {@code index}.
+     *
+     * @param index of the rupture to create
+     */
+    public Rupture get(int index) {
+      checkElementIndex(index, rates.length);
+      return Rupture.create(mag, rates[index], rake, windows.create(ids[index]));
+    }
+
+    @Override
+    public Iterator<Rupture> iterator() {
+      return iterator(new GriddedSurface[windows.size]);
+    }
+
+    /**
+     * Return an iterator over the ruptures of all supplied {@code Floaters},
+     * which must have been created from the same {@code Windows}. Ruptures that
+     * occupy the same floating window share a surface instance for the life of
+     * the iterator, regardless of magnitude or MFD branch.
+     *
+     * @param floaters to iterate
+     */
+    public static Iterator<Rupture> iterator(List<Floaters> floaters) {
+      if (floaters.isEmpty()) {
+        return Collections.emptyIterator();
+      }
+      Windows windows = floaters.get(0).windows;
+      GriddedSurface[] surfaces = new GriddedSurface[windows.size];
+      List<Iterator<Rupture>> iterators = new ArrayList<>(floaters.size());
+      for (Floaters f : floaters) {
+        checkArgument(f.windows == windows, "Floaters have different parent windows");
+        iterators.add(f.iterator(surfaces));
+      }
+      return Iterators.concat(iterators.iterator());
+    }
 
+    private Iterator<Rupture> iterator(final GriddedSurface[] surfaces) {
+      return new Iterator<Rupture>() {
+        int index = 0;
+
+        @Override
+        public boolean hasNext() {
+          return index < rates.length;
+        }
+
+        @Override
+        public Rupture next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          int id = ids[index];
+          GriddedSurface surface = surfaces[id];
+          if (surface == null) {
+            surface = windows.create(id);
+            surfaces[id] = surface;
+          }
+          return Rupture.create(mag, rates[index++], rake, surface);
+        }
+      };
+    }
+
+    /* Single use builder. */
+    private static final class Builder {
+
+      private final Windows windows;
+      private final double mag;
+      private final double rake;
+      private final List<int[]> ids = new ArrayList<>();
+      private final List<double[]> rates = new ArrayList<>();
+
+      private Builder(Windows windows, double mag, double rake) {
+        this.windows = windows;
+        this.mag = mag;
+        this.rake = rake;
+      }
+
+      private Builder add(int[] ids, double rate) {
+        double[] rates = new double[ids.length];
+        Arrays.fill(rates, rate);
+        return add(ids, rates);
+      }
+
+      private Builder add(int[] ids, double[] rates) {
+        this.ids.add(ids);
+        this.rates.add(rates);
+        return this;
+      }
+
+      private Floaters build() {
+        /* Single groups share their id array with other Floaters. */
+        int[] idArray = (ids.size() == 1) ? ids.get(0) : Ints.concat(ids.toArray(new int[0][]));
+        double[] rateArray = Doubles.concat(rates.toArray(new double[0][]));
+        return new Floaters(windows, mag, rake, idArray, rateArray);
+      }
+    }
   }
 
 }
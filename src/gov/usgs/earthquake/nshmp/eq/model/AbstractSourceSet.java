@@ -6,6 +6,7 @@ import static com.google.common.base.Strings.padEnd;
 import static gov.usgs.earthquake.nshmp.data.Data.checkWeight;
 import static gov.usgs.earthquake.nshmp.internal.TextUtils.validateName;
 
+import java.util.List;
 import java.util.function.Predicate;
 
 import com.google.common.collect.FluentIterable;
@@ -78,6 +79,49 @@ abstract class AbstractSourceSet<T extends Source> implements SourceSet<T> {
     return FluentIterable.from(this).filter(filter::test);
   }
 
+  /*
+   * The sources that may be within range of any site in the most recently
+   * used SiteTile. The holder is immutable and is updated using the racy
+   * single-check idiom.
+   */
+  private TileSources<T> tileSources;
+
+  /*
+   * An implementation of iterableForLocation() for source sets whose distance
+   * filters compare horzDistanceFast between a site and fixed source points.
+   * Sources are filtered once per SiteTile using the tile center and an
+   * inflated distance; each site is then filtered against the resulting
+   * candidates only. Results, and their order, are the same as those of
+   * iterableForLocation().
+   */
+  Iterable<T> tiledIterableForLocation(Location loc, double distance) {
+    TileSources<T> ts = tileSources;
+    if (ts == null || ts.distance != distance || !ts.tile.contains(loc)) {
+      SiteTile tile = SiteTile.create(loc);
+      Predicate<T> tileFilter = distanceFilter(tile.center(), tile.distance(distance));
+      ts = new TileSources<>(
+          tile,
+          distance,
+          FluentIterable.from(this).filter(tileFilter::test).toList());
+      tileSources = ts;
+    }
+    Predicate<T> filter = distanceFilter(loc, distance);
+    return FluentIterable.from(ts.sources).filter(filter::test);
+  }
+
+  private static final class TileSources<T> {
+
+    final SiteTile tile;
+    final double distance;
+    final List<T> sources;
+
+    TileSources(SiteTile tile, double distance, List<T> sources) {
+      this.tile = tile;
+      this.distance = distance;
+      this.sources = sources;
+    }
+  }
+
   static abstract class Builder {
 
     boolean built = false;
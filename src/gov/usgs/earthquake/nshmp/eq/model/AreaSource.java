@@ -22,6 +22,7 @@ import java.util.NavigableMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
+import gov.usgs.earthquake.nshmp.data.IntervalArray;
 import gov.usgs.earthquake.nshmp.data.XySequence;
 import gov.usgs.earthquake.nshmp.eq.fault.FocalMech;
 import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling;
@@ -213,6 +214,131 @@ public class AreaSource implements Source {
     return Iterables.concat(sourceRupturesList);
   }
 
+  /*
+   * Whether this source is capable of being optimized. Fixed-strike sources
+   * can not be represented by a distance table as the orientation of each
+   * rupture relative to a site matters.
+   */
+  boolean optimizable() {
+    return sourceType != PointSourceType.FIXED_STRIKE;
+  }
+
+  /*
+   * Create a table-based representation of this source that is unique to the
+   * supplied origin. Used by AreaSourceSet.optimizer(Location).
+   */
+  Source toTable(Location origin) {
+    return new Table(this, origin);
+  }
+
+  /*
+   * Tabular implementation of an AreaSource. Every node of an area source grid
+   * carries the same scaled MFD, so the nodes that influence hazard at a site
+   * can be consolidated into a distance histogram, with one point source
+   * created per non-empty distance bin. The number of ruptures processed then
+   * scales with the number of distance bins rather than with the number of
+   * grid nodes. A Table retains the name, id, location, and MFDs of its parent
+   * so that deaggregation and distance-dependent GMM weighting behave as they
+   * do for the parent.
+   */
+  private static final class Table implements Source {
+
+    private static final double SRC_TO_SITE_AZIMUTH = 0.0;
+    private static final double DISTANCE_BIN = 1.0; // km
+
+    private final AreaSource parent;
+    private final List<PointSource> sources;
+
+    private Table(AreaSource parent, Location origin) {
+      this.parent = parent;
+      this.sources = initSources(origin);
+    }
+
+    private List<PointSource> initSources(Location origin) {
+
+      /* Consistent with iterator(), use the default grid. */
+      GriddedRegion sourceGrid = parent.sourceGrids.get(parent.gridScaling.defaultIndex);
+      double[] distances = new double[sourceGrid.size()];
+      double rMax = 0.0;
+      int index = 0;
+      for (Location loc : sourceGrid) {
+        double r = Locations.horzDistanceFast(origin, loc);
+        distances[index++] = r;
+        rMax = Math.max(rMax, r);
+      }
+
+      /*
+       * Track node counts and summed node distances in each bin; sources are
+       * placed at the mean distance of the nodes in a bin rather than at the
+       * bin center. Ensure uppermost bin captures the most distant node.
+       */
+      double rowMax = (Math.floor(rMax / DISTANCE_BIN) + 1.0) * DISTANCE_BIN;
+      IntervalArray.Builder countBuilder = IntervalArray.Builder.withRows(
+          0.0, rowMax, DISTANCE_BIN);
+      IntervalArray.Builder distanceBuilder = IntervalArray.Builder.withRows(
+          0.0, rowMax, DISTANCE_BIN);
+      for (double r : distances) {
+        int row = countBuilder.rowIndex(r);
+        countBuilder.add(row, 1.0);
+        distanceBuilder.add(row, r);
+      }
+      IntervalArray counts = countBuilder.build();
+      IntervalArray distanceSums = distanceBuilder.build();
+
+      IncrementalMfd scaledMfd = IncrementalMfd.copyOf(parent.mfd);
+      scaledMfd.scale(1.0 / sourceGrid.size());
+      XySequence nodeMfd = Mfds.toSequence(scaledMfd);
+
+      ImmutableList.Builder<PointSource> b = ImmutableList.builder();
+      for (int i = 0; i < counts.rows().size(); i++) {
+        double count = counts.get(i);
+        if (count == 0.0) {
+          continue;
+        }
+        double r = distanceSums.get(i) / count;
+        Location loc = Locations.location(origin, SRC_TO_SITE_AZIMUTH, r);
+        XySequence mfd = XySequence.copyOf(nodeMfd).multiply(count);
+        b.add(parent.createSource(loc, mfd));
+      }
+      return b.build();
+    }
+
+    @Override
+    public String name() {
+      return parent.name();
+    }
+
+    @Override
+    public int size() {
+      return parent.size();
+    }
+
+    @Override
+    public int id() {
+      return parent.id();
+    }
+
+    @Override
+    public SourceType type() {
+      return parent.type();
+    }
+
+    @Override
+    public Location location(Location site) {
+      return parent.location(site);
+    }
+
+    @Override
+    public List<XySequence> mfds() {
+      return parent.mfds();
+    }
+
+    @Override
+    public Iterator<Rupture> iterator() {
+      return Iterables.concat(sources).iterator();
+    }
+  }
+
   private PointSource createSource(Location loc, XySequence mfd) {
     switch (sourceType) {
       case POINT:
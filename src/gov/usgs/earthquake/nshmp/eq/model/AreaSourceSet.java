@@ -9,8 +9,10 @@ import static gov.usgs.earthquake.nshmp.internal.TextUtils.validateName;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 
@@ -73,6 +75,91 @@ public class AreaSourceSet extends AbstractSourceSet<AreaSource> {
     };
   }
 
+  /**
+   * Create a {@code Function} for a location that condenses the
+   * {@code AreaSource}s in an {@code AreaSourceSet} into tabular form
+   * (distance bins) for speedier iteration. Fixed-strike area sources are
+   * passed through unchanged.
+   *
+   * @param loc reference point for table
+   */
+  public static Function<AreaSourceSet, SourceSet<? extends Source>> optimizer(Location loc) {
+    return new Optimizer(loc);
+  }
+
+  private static class Optimizer implements Function<AreaSourceSet, SourceSet<? extends Source>> {
+
+    private final Location loc;
+
+    Optimizer(Location loc) {
+      this.loc = loc;
+    }
+
+    @Override
+    public Table apply(AreaSourceSet sources) {
+      return new Table(sources, loc);
+    }
+  }
+
+  /**
+   * Tabular implementation of an {@code AreaSourceSet}. Each
+   * {@code AreaSource} within range of a site is replaced by a source whose
+   * grid nodes have been consolidated into distance bins. A {@code Table} is
+   * created on a per-calculation basis and is unique to a location.
+   *
+   * @see AreaSourceSet#optimizer(Location)
+   */
+  private static final class Table extends AbstractSourceSet<Source> {
+
+    private final AreaSourceSet parent;
+    private final List<Source> sources;
+
+    private Table(AreaSourceSet parent, Location origin) {
+      super(parent.name(), parent.id(), parent.weight(), parent.groundMotionModels());
+      this.parent = parent;
+      this.sources = initSources(origin);
+    }
+
+    private List<Source> initSources(Location origin) {
+      ImmutableList.Builder<Source> b = ImmutableList.builder();
+      for (AreaSource source : parent.iterableForLocation(origin)) {
+        b.add(source.optimizable() ? source.toTable(origin) : source);
+      }
+      return b.build();
+    }
+
+    @Override
+    public String name() {
+      return parent.name() + " (opt)";
+    }
+
+    @Override
+    public SourceType type() {
+      return parent.type();
+    }
+
+    @Override
+    public int size() {
+      return parent.size();
+    }
+
+    @Override
+    public Predicate<Source> distanceFilter(Location loc, double distance) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Iterator<Source> iterator() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Iterable<Source> iterableForLocation(Location loc) {
+      /* Ignore location; sources were filtered during initialization. */
+      return sources;
+    }
+  }
+
   /* Single use builder. */
   static class Builder {
 
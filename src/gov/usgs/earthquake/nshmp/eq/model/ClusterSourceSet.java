@@ -70,6 +70,11 @@ public class ClusterSourceSet extends AbstractSourceSet<ClusterSource> {
     return CLUSTER;
   }
 
+  @Override
+  public Iterable<ClusterSource> iterableForLocation(Location loc, double distance) {
+    return tiledIterableForLocation(loc, distance);
+  }
+
   @Override
   public Predicate<ClusterSource> distanceFilter(final Location loc,
       final double distance) {
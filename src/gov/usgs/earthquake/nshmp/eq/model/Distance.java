@@ -14,6 +14,7 @@ import gov.usgs.earthquake.nshmp.eq.fault.surface.GriddedSurface;
 import gov.usgs.earthquake.nshmp.geo.BorderType;
 import gov.usgs.earthquake.nshmp.geo.Location;
 import gov.usgs.earthquake.nshmp.geo.LocationList;
+import gov.usgs.earthquake.nshmp.geo.LocationPatches;
 import gov.usgs.earthquake.nshmp.geo.LocationVector;
 import gov.usgs.earthquake.nshmp.geo.Locations;
 import gov.usgs.earthquake.nshmp.geo.Region;
@@ -153,18 +154,56 @@ public final class Distance {
 //      }
 //    }
 
-    if (distJB < surface.getAveGridSpacing() && isDjbZero(surface.getPerimeter(), loc)) {
-      distJB = 0;
-    }
-
     // double[] results = {distRup, distJB, distSeis};
 
     // return results;
 
-    double rX = getDistanceX(surface.getEvenlyDiscritizedUpperEdge(), loc);
+    return complete(surface, loc, distJB, distRup);
+  }
 
-    return Distance.create(distJB, distRup, rX);
+  /**
+   * Compute distance metrics: rJB, rRup, and rX, for a surface whose locations
+   * are also available as {@link LocationPatches}. The surface is a window
+   * into the grid of patched locations; the first location of the surface is
+   * at {@code [rowStart, columnStart]} in the grid. A complete surface starts
+   * at {@code [0, 0]} and has the same dimensions as the grid.
+   *
+   * <p>This method first evaluates the bounds of grid patches and then searches
+   * only those patches that may contain the closest locations to the site,
+   * returning results identical to {@link #compute(GriddedSurface, Location)}.
+   *
+   * @param surface window of interest
+   * @param grid of all surface locations
+   * @param rowStart of window in grid
+   * @param columnStart of window in grid
+   * @param loc site location
+   */
+  public static Distance compute(
+      GriddedSurface surface,
+      LocationPatches grid,
+      int rowStart,
+      int columnStart,
+      Location loc) {
+
+    /* Only the upper edge of vertical surfaces is considered. */
+    int rows = (surface.dip() > 89) ? 1 : surface.getNumRows();
+    double[] minima = { Double.MAX_VALUE, Double.MAX_VALUE };
+    grid.minDistances(loc, rowStart, rows, columnStart, surface.getNumCols(), minima);
+    return complete(surface, loc, minima[0], Math.pow(minima[1], 0.5));
+  }
 
+  /* Zero rJB for sites above the surface and add rX. */
+  private static Distance complete(
+      GriddedSurface surface,
+      Location loc,
+      double distJB,
+      double distRup) {
+
+    if (distJB < surface.getAveGridSpacing() && isDjbZero(surface.getPerimeter(), loc)) {
+      distJB = 0;
+    }
+    double rX = getDistanceX(surface.getEvenlyDiscritizedUpperEdge(), loc);
+    return Distance.create(distJB, distRup, rX);
   }
 
   /**
@@ -18,13 +18,14 @@ import java.util.Map;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Range;
 
 import gov.usgs.earthquake.nshmp.data.XySequence;
 import gov.usgs.earthquake.nshmp.eq.fault.surface.DefaultGriddedSurface;
 import gov.usgs.earthquake.nshmp.eq.fault.surface.GriddedSurface;
 import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureFloating;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureFloating.Floaters;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureFloating.Windows;
 import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling;
 import gov.usgs.earthquake.nshmp.geo.Location;
 import gov.usgs.earthquake.nshmp.geo.LocationList;
@@ -59,7 +60,12 @@ public class FaultSource implements Source {
   final boolean rupVariability;
   final GriddedSurface surface;
 
-  private final List<List<Rupture>> ruptureLists; // 1:1 with Mfds
+  /*
+   * Compact floating rupture descriptors for every MFD branch. Floating windows
+   * are shared across magnitudes and branches. Ruptures are created on
+   * iteration and are not retained by the source.
+   */
+  private final List<Floaters> floaters;
 
   // package privacy for subduction subclass
   FaultSource(
@@ -89,9 +95,8 @@ public class FaultSource implements Source {
     this.rupFloating = rupFloating;
     this.rupVariability = rupVariability;
 
-    ruptureLists = initRuptureLists();
-    checkState(Iterables.size(Iterables.concat(ruptureLists)) > 0,
-        "FaultSource has no ruptures");
+    floaters = initFloaters();
+    checkState(floaters.size() > 0, "FaultSource has no ruptures");
   }
 
   @Override
@@ -101,7 +106,11 @@ public class FaultSource implements Source {
 
   @Override
   public int size() {
-    return Iterables.size(this);
+    int size = 0;
+    for (Floaters f : floaters) {
+      size += f.size();
+    }
+    return size;
   }
 
   @Override
@@ -138,7 +147,7 @@ public class FaultSource implements Source {
 
   @Override
   public Iterator<Rupture> iterator() {
-    return Iterables.concat(ruptureLists).iterator();
+    return Floaters.iterator(floaters);
   }
 
   @Override
@@ -154,18 +163,19 @@ public class FaultSource implements Source {
     return getClass().getSimpleName() + " " + data;
   }
 
-  private List<List<Rupture>> initRuptureLists() {
-    ImmutableList.Builder<List<Rupture>> rupListsBuilder = ImmutableList.builder();
+  private List<Floaters> initFloaters() {
+    ImmutableList.Builder<Floaters> floatersBuilder = ImmutableList.builder();
+    Windows windows = new Windows(surface);
     for (IncrementalMfd mfd : mfds) {
-      List<Rupture> rupList = createRuptureList(mfd);
-      checkState(rupList.size() > 0, "Rupture list is empty");
-      rupListsBuilder.add(rupList);
+      List<Floaters> floatersList = createFloaters(mfd, windows);
+      checkState(floatersList.size() > 0, "Rupture list is empty");
+      floatersBuilder.addAll(floatersList);
     }
-    return rupListsBuilder.build();
+    return floatersBuilder.build();
   }
 
-  private List<Rupture> createRuptureList(IncrementalMfd mfd) {
-    ImmutableList.Builder<Rupture> rupListbuilder = ImmutableList.builder();
+  private List<Floaters> createFloaters(IncrementalMfd mfd, Windows windows) {
+    ImmutableList.Builder<Floaters> floatersBuilder = ImmutableList.builder();
 
     for (int i = 0; i < mfd.getNum(); ++i) {
       double mag = mfd.getX(i);
@@ -181,21 +191,11 @@ public class FaultSource implements Source {
       // TODO we want to get the 'floats' attribute out of MFDs
       // the only reason it is there is to allow SINGLE to flip-flop
       // it should just be a SourceProperty
-      if (mfd.floats()) {
-
-        // AbstractGriddedSurface surf = (AbstractGriddedSurface)
-        // surface;
-        //
-        List<Rupture> floaters = rupFloating.createFloatingRuptures(
-            surface, rupScaling, mag, rate, rake, rupVariability);
-        rupListbuilder.addAll(floaters);
-
-      } else {
-        Rupture rup = Rupture.create(mag, rate, rake, surface);
-        rupListbuilder.add(rup);
-      }
+      RuptureFloating floatModel = mfd.floats() ? rupFloating : RuptureFloating.OFF;
+      floatersBuilder.add(floatModel.createFloaters(
+          windows, rupScaling, mag, rate, rake, rupVariability));
     }
-    return rupListbuilder.build();
+    return floatersBuilder.build();
   }
 
   /* Single use builder */
@@ -72,6 +72,11 @@ public class FaultSourceSet extends AbstractSourceSet<FaultSource> {
     return FAULT;
   }
 
+  @Override
+  public Iterable<FaultSource> iterableForLocation(Location loc, double distance) {
+    return tiledIterableForLocation(loc, distance);
+  }
+
   @Override
   public Predicate<FaultSource> distanceFilter(Location loc, double distance) {
     return new DistanceFilter(loc, distance);
@@ -15,6 +15,7 @@ import static gov.usgs.earthquake.nshmp.eq.model.SourceType.GRID;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +35,8 @@ import gov.usgs.earthquake.nshmp.eq.fault.FocalMech;
 import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling;
 import gov.usgs.earthquake.nshmp.eq.model.PointSource.DepthModel;
 import gov.usgs.earthquake.nshmp.geo.Location;
+import gov.usgs.earthquake.nshmp.geo.LocationArray;
+import gov.usgs.earthquake.nshmp.geo.LocationBand;
 import gov.usgs.earthquake.nshmp.geo.LocationList;
 import gov.usgs.earthquake.nshmp.geo.Locations;
 import gov.usgs.earthquake.nshmp.mfd.IncrementalMfd;
@@ -47,8 +50,9 @@ import gov.usgs.earthquake.nshmp.mfd.IncrementalMfd;
  */
 public class GridSourceSet extends AbstractSourceSet<PointSource> {
 
-  private final List<Location> locs;
-  private final List<XySequence> mfds;
+  private final LocationArray locs;
+  private final double[][] mags;
+  private final double[][] rates;
   final RuptureScaling rupScaling;
   private final List<Map<FocalMech, Double>> mechMaps;
   private final boolean singularMechs;
@@ -60,10 +64,35 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
   final double[] magMaster;
   final double Δm;
 
+  /*
+   * The nodes in the latitude band of the most recent optimizer table. Sites
+   * of a GriddedRegion map are processed in row order so successive tables are
+   * commonly built for sites at the same latitude and can reuse the band. The
+   * band is immutable and is updated using the racy single-check idiom.
+   *
+   * This is a single-slot cache: a table for a site at any other latitude
+   * replaces the band, which requires a scan of every node latitude. Callers
+   * that do not visit sites in row order (e.g. AdaptiveMap cells, which span
+   * two rows, concurrent map sites on either side of a row boundary, and
+   * HazardServer requests) will often miss. A miss costs about the same as
+   * filtering every node directly, which is what each table did before bands
+   * were introduced, so only the reuse is lost. More slots are not kept
+   * because bands for large maximum distances (up to 1000 km) hold most of
+   * the nodes of national grids.
+   */
+  private LocationBand band;
+
   /*
    * Most grid sources have the same focal mech map everywhere; in these cases,
    * mechMaps will have been created using Collections.nCopies() with minimal
    * overhead.
+   *
+   * National scale grids have hundreds of thousands of nodes, so node data are
+   * stored in primitive arrays and PointSources are created on demand. Node
+   * coordinates are packed in a LocationArray, and the MFD at each node is
+   * stored as an array of rates; equal magnitude arrays (and custom mechMaps)
+   * are shared across nodes. The MFD of a source is a view of its node's
+   * magnitudes and rates.
    */
 
   private GridSourceSet(
@@ -71,8 +100,9 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
       int id,
       Double weight,
       GmmSet gmmSet,
-      List<Location> locs,
-      List<XySequence> mfds,
+      LocationArray locs,
+      double[][] mags,
+      double[][] rates,
       List<Map<FocalMech, Double>> mechMaps,
       boolean singularMechs,
       NavigableMap<Double, Map<Double, Double>> magDepthMap,
@@ -85,7 +115,8 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
 
     super(name, id, weight, gmmSet);
     this.locs = locs;
-    this.mfds = mfds;
+    this.mags = mags;
+    this.rates = rates;
     this.mechMaps = mechMaps;
     this.singularMechs = singularMechs;
     this.strike = strike;
@@ -182,16 +213,50 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
     };
   }
 
-  private PointSource getSource(int index) {
+  /*
+   * Overridden to filter node coordinates directly; sources are only created
+   * for those nodes that pass the filter. Results are the same as those of the
+   * distanceFilter.
+   */
+  @Override
+  public Iterable<PointSource> iterableForLocation(Location loc, double distance) {
+    final int[] indices = locs.indicesWithin(loc, distance);
+    return () -> new Iterator<PointSource>() {
+      int caret = 0;
 
-    /*
-     * TODO Stricter rules regarding what sorts of default mfds can be used with
-     * grid sources (in an individual grid source set) will allow parsers to
-     * create XySequence based MFDs directly using copyOf so as to not create
-     * zillions of mag arrays.
-     */
-    Location loc = locs.get(index);
-    XySequence mfd = mfds.get(index);
+      @Override
+      public boolean hasNext() {
+        return caret < indices.length;
+      }
+
+      @Override
+      public PointSource next() {
+        return getSource(indices[caret++]);
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  private LocationBand band(Location loc, double distance) {
+    LocationBand b = band;
+    if (b == null || !b.supports(loc, distance)) {
+      b = LocationBand.create(locs, loc, distance);
+      band = b;
+    }
+    return b;
+  }
+
+  private XySequence mfd(int index) {
+    return XySequence.wrap(mags[index], rates[index]);
+  }
+
+  private PointSource getSource(int index) {
+    Location loc = locs.location(index);
+    XySequence mfd = mfd(index);
     Map<FocalMech, Double> mechMap = mechMaps.get(index);
 
     switch (sourceType) {
@@ -427,9 +492,35 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
 
     GridSourceSet build() {
       validateState(ID);
+
+      /*
+       * Pack node data. Node MFDs are validated sequences but may not all have
+       * the same magnitudes (e.g. truncated GR distributions), so each node
+       * references a shared copy of its magnitude array.
+       */
+      Map<List<Double>, double[]> magArrays = new HashMap<>();
+      double[][] mags = new double[mfds.size()][];
+      double[][] rates = new double[mfds.size()][];
+      for (int i = 0; i < mfds.size(); i++) {
+        XySequence mfd = mfds.get(i);
+        double[] nodeMags = Doubles.toArray(mfd.xValues());
+        mags[i] = magArrays.computeIfAbsent(Doubles.asList(nodeMags), k -> nodeMags);
+        rates[i] = Doubles.toArray(mfd.yValues());
+      }
+      if (!singularMechs) {
+        Map<Map<FocalMech, Double>, Map<FocalMech, Double>> mechMapInstances = new HashMap<>();
+        List<Map<FocalMech, Double>> sharedMechMaps = Lists.newArrayListWithCapacity(
+            mechMaps.size());
+        for (Map<FocalMech, Double> nodeMechMap : mechMaps) {
+          sharedMechMaps.add(mechMapInstances.computeIfAbsent(nodeMechMap, k -> nodeMechMap));
+        }
+        mechMaps = sharedMechMaps;
+      }
+
       return new GridSourceSet(
           name, id, weight,
-          gmmSet, locs, mfds,
+          gmmSet, LocationArray.create(locs),
+          mags, rates,
           mechMaps, singularMechs,
           magDepthMap, maxDepth,
           strike, rupScaling, sourceType,
@@ -674,13 +765,20 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
           .rows(0.0, rMax, distanceDiscretization(rMax))
           .columns(mMin, mMax, Δm);
 
-      for (PointSource source : parent.iterableForLocation(origin)) {
-        double r = Locations.horzDistanceFast(origin, source.loc);
+      /* Bin node rates directly; no sources are created. */
+      LocationBand band = parent.band(origin, rMax);
+      int[] nodes = new int[band.size()];
+      double[] nodeDistances = new double[band.size()];
+      int count = band.filter(origin, nodes, nodeDistances);
+      for (int j = 0; j < count; j++) {
+        int i = nodes[j];
+        double r = nodeDistances[j];
         /* Experimental smoothing. */
         if (smoothed && r < SMOOTHING_LIMIT) {
-          addSmoothed(tableBuilder, origin, source.loc, source.mfd, smoothingOffsets);
+          addSmoothed(tableBuilder, origin, parent.locs.location(i), parent.mfd(i),
+              smoothingOffsets);
         } else {
-          tableBuilder.add(r, source.mfd);
+          tableBuilder.add(r, parent.rates[i]);
         }
         parentCount++;
       }
@@ -735,29 +833,41 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
 
       // XySequence srcMfdSum = null;
 
-      for (PointSource source : parent.iterableForLocation(origin)) {
-        double r = Locations.horzDistanceFast(origin, source.loc);
+      LocationBand band = parent.band(origin, rMax);
+      int[] nodes = new int[band.size()];
+      double[] nodeDistances = new double[band.size()];
+      int count = band.filter(origin, nodes, nodeDistances);
+      for (int j = 0; j < count; j++) {
+        int i = nodes[j];
+        double r = nodeDistances[j];
+        double[] rates = parent.rates[i];
+        Map<FocalMech, Double> mechMap = parent.mechMaps.get(i);
 
         // if (srcMfdSum == null) {
         // srcMfdSum = XySequence.emptyCopyOf(source.mfd);
         // }
         // srcMfdSum.add(source.mfd);
 
-        XySequence ssMfd = XySequence.copyOf(source.mfd).multiply(
-            source.mechWtMap.get(STRIKE_SLIP));
-        XySequence rMfd = XySequence.copyOf(source.mfd).multiply(
-            source.mechWtMap.get(REVERSE));
-        XySequence nMfd = XySequence.copyOf(source.mfd).multiply(
-            source.mechWtMap.get(NORMAL));
-        
+        double[] ssRates = Data.multiply(
+            mechMap.get(STRIKE_SLIP), Arrays.copyOf(rates, rates.length));
+        double[] rRates = Data.multiply(
+            mechMap.get(REVERSE), Arrays.copyOf(rates, rates.length));
+        double[] nRates = Data.multiply(
+            mechMap.get(NORMAL), Arrays.copyOf(rates, rates.length));
+
         if (smoothed && r < SMOOTHING_LIMIT) {
-          addSmoothed(ssTableBuilder, origin, source.loc, ssMfd, smoothingOffsets);
-          addSmoothed(rTableBuilder, origin, source.loc, rMfd, smoothingOffsets);
-          addSmoothed(nTableBuilder, origin, source.loc, nMfd, smoothingOffsets);
+          Location loc = parent.locs.location(i);
+          double[] mags = parent.mags[i];
+          XySequence ssMfd = XySequence.wrap(mags, ssRates);
+          XySequence rMfd = XySequence.wrap(mags, rRates);
+          XySequence nMfd = XySequence.wrap(mags, nRates);
+          addSmoothed(ssTableBuilder, origin, loc, ssMfd, smoothingOffsets);
+          addSmoothed(rTableBuilder, origin, loc, rMfd, smoothingOffsets);
+          addSmoothed(nTableBuilder, origin, loc, nMfd, smoothingOffsets);
         } else {
-          ssTableBuilder.add(r, ssMfd);
-          rTableBuilder.add(r, rMfd);
-          nTableBuilder.add(r, nMfd);
+          ssTableBuilder.add(r, ssRates);
+          rTableBuilder.add(r, rRates);
+          nTableBuilder.add(r, nRates);
         }
 
         parentCount++;
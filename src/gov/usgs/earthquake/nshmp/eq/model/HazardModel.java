@@ -8,7 +8,9 @@ import static gov.usgs.earthquake.nshmp.internal.TextUtils.validateName;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Iterator;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import org.xml.sax.SAXException;
 
@@ -63,12 +65,15 @@ public final class HazardModel implements Iterable<SourceSet<? extends Source>>,
   private final String name;
   private final SetMultimap<SourceType, SourceSet<? extends Source>> sourceSetMap;
   private final CalcConfig config;
+  private final Supplier<String> fingerprint;
 
   private HazardModel(String name, CalcConfig config,
-      SetMultimap<SourceType, SourceSet<? extends Source>> sourceSetMap) {
+      SetMultimap<SourceType, SourceSet<? extends Source>> sourceSetMap,
+      Supplier<String> fingerprint) {
     this.name = name;
     this.config = config;
     this.sourceSetMap = sourceSetMap;
+    this.fingerprint = fingerprint;
   }
 
   /**
@@ -132,6 +137,15 @@ public final class HazardModel implements Iterable<SourceSet<? extends Source>>,
     return config;
   }
 
+  /**
+   * A hash of the contents of the files from which this model was loaded, if
+   * any. Models loaded from identical files share a fingerprint. The hash is
+   * computed when first requested.
+   */
+  public Optional<String> fingerprint() {
+    return (fingerprint == null) ? Optional.empty() : Optional.of(fingerprint.get());
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder("HazardModel: ");
@@ -162,6 +176,7 @@ public final class HazardModel implements Iterable<SourceSet<? extends Source>>,
     private SetMultimap<SourceType, SourceSet<? extends Source>> sourceSetMap;
     private CalcConfig config;
     private String name;
+    private Supplier<String> fingerprint;
 
     private Builder() {
       sourceMapBuilder = ImmutableSetMultimap.builder();
@@ -177,6 +192,11 @@ public final class HazardModel implements Iterable<SourceSet<? extends Source>>,
       return this;
     }
 
+    Builder fingerprint(Supplier<String> fingerprint) {
+      this.fingerprint = checkNotNull(fingerprint);
+      return this;
+    }
+
     Builder sourceSet(SourceSet<? extends Source> source) {
       sourceMapBuilder.put(source.type(), source);
       return this;
@@ -193,7 +213,7 @@ public final class HazardModel implements Iterable<SourceSet<? extends Source>>,
     HazardModel build() {
       sourceSetMap = sourceMapBuilder.build();
       validateState(ID);
-      return new HazardModel(name, config, sourceSetMap);
+      return new HazardModel(name, config, sourceSetMap, fingerprint);
     }
   }
 
@@ -65,6 +65,11 @@ public class InterfaceSourceSet extends AbstractSourceSet<InterfaceSource> {
     return INTERFACE;
   }
 
+  @Override
+  public Iterable<InterfaceSource> iterableForLocation(Location loc, double distance) {
+    return tiledIterableForLocation(loc, distance);
+  }
+
   @Override
   public Predicate<InterfaceSource> distanceFilter(final Location loc,
       final double distance) {
@@ -6,11 +6,13 @@ import static gov.usgs.earthquake.nshmp.eq.model.SystemParser.GRIDSOURCE_FILENAM
 import static gov.usgs.earthquake.nshmp.eq.model.SystemParser.RUPTURES_FILENAME;
 import static gov.usgs.earthquake.nshmp.eq.model.SystemParser.SECTIONS_FILENAME;
 import static gov.usgs.earthquake.nshmp.internal.TextUtils.NEWLINE;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.nio.file.Files.newDirectoryStream;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.DirectoryStream;
@@ -19,9 +21,12 @@ import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -31,9 +36,12 @@ import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
 import com.google.common.base.Strings;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
@@ -89,6 +97,7 @@ class Loader {
           .extend(CalcConfig.Builder.fromFile(typeDirPath))
           .build();
       builder.config(calcConfig);
+      builder.fingerprint(Suppliers.memoize(() -> fingerprint(typeDirPath)));
 
       typePaths = typeDirectoryList(typeDirPath);
       checkState(typePaths.size() > 0, "Empty model: %s", path.getFileName());
@@ -156,6 +165,35 @@ class Loader {
     return path;
   }
 
+  /*
+   * Hash the relative path and contents of all non-hidden files in a model
+   * directory, in path order. Murmur3 is more than adequate to distinguish
+   * models and is much faster than a cryptographic hash over large models.
+   */
+  private static String fingerprint(Path dir) {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      List<Path> files = paths
+          .filter(Files::isRegularFile)
+          .filter(path -> !path.getFileName().toString().startsWith("."))
+          .sorted(Comparator.comparing(path -> dir.relativize(path).toString()))
+          .collect(Collectors.toList());
+      Hasher hasher = Hashing.murmur3_128().newHasher();
+      byte[] buffer = new byte[1 << 16];
+      for (Path file : files) {
+        hasher.putString(dir.relativize(file).toString(), UTF_8);
+        try (InputStream in = Files.newInputStream(file)) {
+          int count;
+          while ((count = in.read(buffer)) != -1) {
+            hasher.putBytes(buffer, 0, count);
+          }
+        }
+      }
+      return hasher.hash().toString();
+    } catch (IOException ioe) {
+      throw new UncheckedIOException(ioe);
+    }
+  }
+
   private static List<Path> typeDirectoryList(Path path) throws IOException {
     try (DirectoryStream<Path> ds = newDirectoryStream(path, TypeFilter.INSTANCE)) {
       return Lists.newArrayList(ds);
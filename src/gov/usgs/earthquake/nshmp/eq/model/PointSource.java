@@ -399,6 +399,22 @@ class PointSource implements Source {
       magDepthDepths = Doubles.asList(Doubles.toArray(depths));
       magDepthWeights = Doubles.asList(Doubles.toArray(weights));
     }
+
+    /*
+     * Finite rupture geometries for the mag-depth combinations of this model,
+     * created on first use by a finite point source. GeometryTable is
+     * immutable so the racy single-check idiom is safe.
+     */
+    private PointSourceFinite.GeometryTable geometries;
+
+    PointSourceFinite.GeometryTable geometries(RuptureScaling rupScaling) {
+      PointSourceFinite.GeometryTable table = geometries;
+      if (table == null) {
+        table = new PointSourceFinite.GeometryTable(this, rupScaling);
+        geometries = table;
+      }
+      return table;
+    }
   }
 
 }
@@ -16,6 +16,7 @@ import java.util.Map;
 import gov.usgs.earthquake.nshmp.data.XySequence;
 import gov.usgs.earthquake.nshmp.eq.fault.FocalMech;
 import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.Dimensions;
 import gov.usgs.earthquake.nshmp.geo.Location;
 import gov.usgs.earthquake.nshmp.geo.Locations;
 import gov.usgs.earthquake.nshmp.util.Maths;
@@ -91,7 +92,6 @@ class PointSourceFinite extends PointSource {
     double mag = mfd.x(magIndex);
     double rate = mfd.y(magIndex);
 
-    double zTop = depthModel.magDepthDepths.get(magDepthIndex);
     double zTopWt = depthModel.magDepthWeights.get(magDepthIndex);
 
     FocalMech mech = mechForIndex(index);
@@ -99,10 +99,8 @@ class PointSourceFinite extends PointSource {
     if (mech != STRIKE_SLIP) {
       mechWt *= 0.5;
     }
-    double dipRad = mech.dip() * Maths.TO_RADIANS;
-
-    double maxWidthDD = (depthModel.maxDepth - zTop) / sin(dipRad);
-    double widthDD = rupScaling.dimensions(mag, maxWidthDD).width;
+    RuptureGeometry geom = depthModel.geometries(rupScaling)
+        .get(magDepthIndex, mag, mech, rupScaling);
 
     rup.mag = mag;
     rup.rake = mech.rake();
@@ -110,11 +108,7 @@ class PointSourceFinite extends PointSource {
 
     FiniteSurface fpSurf = (FiniteSurface) rup.surface;
     fpSurf.mag = mag; // KLUDGY needed for distance correction
-    fpSurf.dipRad = dipRad;
-    fpSurf.widthDD = widthDD;
-    fpSurf.widthH = widthDD * cos(dipRad);
-    fpSurf.zTop = zTop;
-    fpSurf.zBot = zTop + widthDD * sin(dipRad);
+    fpSurf.set(geom);
     fpSurf.footwall = isOnFootwall(index);
   }
 
@@ -190,10 +184,26 @@ class PointSourceFinite extends PointSource {
     double widthDD; // down-dip width
     boolean footwall;
 
+    /* hanging wall rRup parameters; see RuptureGeometry */
+    double rCut;
+    double rRup0;
+    double rRupC;
+
     FiniteSurface(Location loc, RuptureScaling rupScaling) {
       super(loc, rupScaling);
     }
 
+    void set(RuptureGeometry geom) {
+      dipRad = geom.dipRad;
+      widthDD = geom.widthDD;
+      widthH = geom.widthH;
+      zTop = geom.zTop;
+      zBot = geom.zBot;
+      rCut = geom.rCut;
+      rRup0 = geom.rRup0;
+      rRupC = geom.rRupC;
+    }
+
     @Override
     public Distance distanceTo(Location loc) {
       double rJB = Locations.horzDistanceFast(this.loc, loc);
@@ -204,19 +214,11 @@ class PointSourceFinite extends PointSource {
         return Distance.create(rJB, hypot(rJB, zTop), rX);
       }
 
-      double rCut = zBot * tan(dipRad);
-
       if (rJB > rCut) {
         return Distance.create(rJB, hypot(rJB, zBot), rX);
       }
 
-      // rRup when rJB is 0 -- we take the minimum the site-to-top-edge
-      // and site-to-normal of rupture for the site being directly over
-      // the down-dip edge of the rupture
-      double rRup0 = min(hypot(widthH, zTop), zBot * cos(dipRad));
-      // rRup at cutoff rJB
-      double rRupC = zBot / cos(dipRad);
-      // scale linearly with rJB distance
+      // scale rRup linearly with rJB distance between rRup0 and rRupC
       double rRup = (rRupC - rRup0) * rJB / rCut + rRup0;
 
       return Distance.create(rJB, rRup, rX);
@@ -229,4 +231,112 @@ class PointSourceFinite extends PointSource {
 
   }
 
+  /*
+   * The geometry of a finite point-source rupture. Geometry depends only on
+   * magnitude, depth to top, focal mechanism, and the maximum depth and
+   * rupture scaling model of the parent source; it does not depend on site or
+   * source location.
+   */
+  static final class RuptureGeometry {
+
+    final double mag;
+    final double zTop;
+    final double dipRad;
+    final double widthDD;
+    final double widthH;
+    final double zBot;
+    final double length;
+
+    /*
+     * rCut is the rJB beyond which a site is no longer above the rupture.
+     * Closer to the source, rRup on the hanging wall is scaled linearly from
+     * rRup0, the minimum of the site-to-top-edge and site-to-normal distances
+     * for a site directly over the down-dip edge of the rupture, to rRupC, the
+     * rRup at rCut.
+     */
+    final double rCut;
+    final double rRup0;
+    final double rRupC;
+
+    /* Fixed-strike hanging wall parameters; see PointSourceFixedStrike. */
+    final double sinDip;
+    final double rCutTop;
+    final double rCutBot;
+    final double rRupTop;
+
+    RuptureGeometry(
+        double mag,
+        double zTop,
+        FocalMech mech,
+        double maxDepth,
+        RuptureScaling rupScaling) {
+
+      this.mag = mag;
+      this.zTop = zTop;
+      dipRad = mech.dip() * Maths.TO_RADIANS;
+      sinDip = sin(dipRad);
+      double maxWidthDD = (maxDepth - zTop) / sinDip;
+      Dimensions dimensions = rupScaling.dimensions(mag, maxWidthDD);
+      widthDD = dimensions.width;
+      widthH = widthDD * cos(dipRad);
+      zBot = zTop + widthDD * sinDip;
+      length = dimensions.length;
+
+      rCut = zBot * tan(dipRad);
+      rRup0 = min(hypot(widthH, zTop), zBot * cos(dipRad));
+      rRupC = zBot / cos(dipRad);
+
+      rCutTop = tan(dipRad) * zTop;
+      rCutBot = tan(dipRad) * zBot + widthH;
+      rRupTop = hypot(rCutTop, zTop);
+    }
+  }
+
+  /*
+   * The rupture geometries of every mag-depth-mechanism combination of a
+   * DepthModel. A DepthModel is shared by all point sources in a grid or area
+   * source so the table, which is created on first use, spares each source,
+   * site, and rupture from recomputing rupture dimensions and trigonometric
+   * terms. Geometries are computed using the master magnitudes of the
+   * DepthModel; a rupture with a magnitude that differs from the tabulated
+   * value, or with a different rupture scaling model, has its geometry
+   * computed directly.
+   */
+  static final class GeometryTable {
+
+    private static final int MECH_COUNT = FocalMech.values().length;
+
+    private final RuptureScaling rupScaling;
+    private final double maxDepth;
+    private final RuptureGeometry[] geometries;
+
+    GeometryTable(DepthModel depthModel, RuptureScaling rupScaling) {
+      this.rupScaling = rupScaling;
+      this.maxDepth = depthModel.maxDepth;
+      int size = depthModel.magDepthIndices.size();
+      geometries = new RuptureGeometry[size * MECH_COUNT];
+      for (int i = 0; i < size; i++) {
+        double mag = depthModel.magMaster.get(depthModel.magDepthIndices.get(i));
+        double zTop = depthModel.magDepthDepths.get(i);
+        for (FocalMech mech : FocalMech.values()) {
+          geometries[i * MECH_COUNT + mech.ordinal()] =
+              new RuptureGeometry(mag, zTop, mech, maxDepth, rupScaling);
+        }
+      }
+    }
+
+    RuptureGeometry get(
+        int magDepthIndex,
+        double mag,
+        FocalMech mech,
+        RuptureScaling rupScaling) {
+
+      RuptureGeometry geom = geometries[magDepthIndex * MECH_COUNT + mech.ordinal()];
+      if (geom.mag == mag && this.rupScaling == rupScaling) {
+        return geom;
+      }
+      return new RuptureGeometry(mag, geom.zTop, mech, maxDepth, rupScaling);
+    }
+  }
+
 }
@@ -2,11 +2,8 @@ package gov.usgs.earthquake.nshmp.eq.model;
 
 import static gov.usgs.earthquake.nshmp.eq.fault.FocalMech.STRIKE_SLIP;
 import static gov.usgs.earthquake.nshmp.util.Maths.hypot;
-import static java.lang.Math.cos;
 import static java.lang.Math.min;
-import static java.lang.Math.sin;
 import static java.lang.Math.sqrt;
-import static java.lang.Math.tan;
 
 import java.util.Iterator;
 import java.util.Map;
@@ -17,7 +14,6 @@ import gov.usgs.earthquake.nshmp.data.XySequence;
 import gov.usgs.earthquake.nshmp.eq.fault.Faults;
 import gov.usgs.earthquake.nshmp.eq.fault.FocalMech;
 import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling;
-import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.Dimensions;
 import gov.usgs.earthquake.nshmp.geo.Location;
 import gov.usgs.earthquake.nshmp.geo.LocationVector;
 import gov.usgs.earthquake.nshmp.geo.Locations;
@@ -88,14 +84,13 @@ class PointSourceFixedStrike extends PointSourceFinite {
    * getRUpture(int) implementation.
    */
 
-  private void updateRupture(Rupture rup, int index) {
+  private void updateRupture(Rupture rup, int index, TraceEnds traceEnds) {
 
     int magDepthIndex = index % magDepthSize;
     int magIndex = depthModel.magDepthIndices.get(magDepthIndex);
     double mag = mfd.x(magIndex);
     double rate = mfd.y(magIndex);
 
-    double zTop = depthModel.magDepthDepths.get(magDepthIndex);
     double zTopWt = depthModel.magDepthWeights.get(magDepthIndex);
 
     FocalMech mech = mechForIndex(index);
@@ -103,14 +98,11 @@ class PointSourceFixedStrike extends PointSourceFinite {
     if (mech != STRIKE_SLIP) {
       mechWt *= 0.5;
     }
-    double dipRad = mech.dip() * Maths.TO_RADIANS;
     double strikeRad = strike * Maths.TO_RADIANS;
-
-    double maxWidthDD = (depthModel.maxDepth - zTop) / sin(dipRad);
-    Dimensions dimensions = rupScaling.dimensions(mag, maxWidthDD);
-    double widthDD = dimensions.width;
-    double widthH = widthDD * cos(dipRad);
-    double zBot = zTop + widthDD * sin(dipRad);
+    RuptureGeometry geom = depthModel.geometries(rupScaling)
+        .get(magDepthIndex, mag, mech, rupScaling);
+    double zTop = geom.zTop;
+    double zBot = geom.zBot;
 
     rup.mag = mag;
     rup.rake = mech.rake();
@@ -118,20 +110,29 @@ class PointSourceFixedStrike extends PointSourceFinite {
 
     FixedStrikeSurface fsSurf = (FixedStrikeSurface) rup.surface;
     fsSurf.mag = mag; // KLUDGY needed for distance correction
-    fsSurf.dipRad = dipRad;
-    fsSurf.widthDD = widthDD;
-    fsSurf.widthH = widthH;
-    fsSurf.zTop = zTop;
-    fsSurf.zBot = zBot;
+    fsSurf.set(geom);
     fsSurf.footwall = isOnFootwall(index);
 
-    double distToEndpoint = dimensions.length / 2;
-    Location locWithDepth = Location.create(loc.lat(), loc.lon(), zTop);
-    LocationVector v1 = LocationVector.create(strikeRad, distToEndpoint, 0.0);
-    LocationVector v2 = LocationVector.reverseOf(v1);
-
-    Location p1 = Locations.location(locWithDepth, v1);
-    Location p2 = Locations.location(locWithDepth, v2);
+    /*
+     * Trace end points depend only on depth and rupture length and are
+     * commonly shared by the footwall and hanging wall representations of a
+     * rupture and by different focal mechanisms.
+     */
+    int endIndex = magDepthIndex * 2;
+    Location p1 = traceEnds.locs[endIndex];
+    Location p2 = traceEnds.locs[endIndex + 1];
+    if (p1 == null || traceEnds.lengths[magDepthIndex] != geom.length) {
+      double distToEndpoint = geom.length / 2;
+      Location locWithDepth = Location.create(loc.lat(), loc.lon(), zTop);
+      LocationVector v1 = LocationVector.create(strikeRad, distToEndpoint, 0.0);
+      LocationVector v2 = LocationVector.reverseOf(v1);
+
+      p1 = Locations.location(locWithDepth, v1);
+      p2 = Locations.location(locWithDepth, v2);
+      traceEnds.locs[endIndex] = p1;
+      traceEnds.locs[endIndex + 1] = p2;
+      traceEnds.lengths[magDepthIndex] = geom.length;
+    }
 
     if (fsSurf.footwall) {
       fsSurf.p1 = p1;
@@ -141,7 +142,7 @@ class PointSourceFixedStrike extends PointSourceFinite {
         fsSurf.p4 = Location.create(p1.lat(), p1.lon(), zBot);
       } else {
         double dipDirRad = Faults.dipDirectionRad(p1, p2);
-        LocationVector vDownDip = LocationVector.create(dipDirRad, widthH, zBot - zTop);
+        LocationVector vDownDip = LocationVector.create(dipDirRad, geom.widthH, zBot - zTop);
         fsSurf.p3 = Locations.location(p2, vDownDip);
         fsSurf.p4 = Locations.location(p1, vDownDip);
       }
@@ -155,7 +156,7 @@ class PointSourceFixedStrike extends PointSourceFinite {
         fsSurf.p4 = Location.create(p2.lat(), p2.lon(), zBot);
       } else {
         double dipDirRad = Faults.dipDirectionRad(p2, p1);
-        LocationVector vDownDip = LocationVector.create(dipDirRad, widthH, zBot - zTop);
+        LocationVector vDownDip = LocationVector.create(dipDirRad, geom.widthH, zBot - zTop);
         fsSurf.p3 = Locations.location(p1, vDownDip);
         fsSurf.p4 = Locations.location(p2, vDownDip);
       }
@@ -170,6 +171,7 @@ class PointSourceFixedStrike extends PointSourceFinite {
         rupture.surface = new FixedStrikeSurface(loc, rupScaling);
       }
       final int size = size();
+      final TraceEnds traceEnds = new TraceEnds(magDepthSize);
       int caret = 0;
 
       @Override
@@ -179,7 +181,7 @@ class PointSourceFixedStrike extends PointSourceFinite {
 
       @Override
       public Rupture next() {
-        updateRupture(rupture, caret++);
+        updateRupture(rupture, caret++, traceEnds);
         return rupture;
       }
 
@@ -190,6 +192,18 @@ class PointSourceFixedStrike extends PointSourceFinite {
     };
   }
 
+  /* Trace end points and rupture lengths, by mag-depth index, of an iterator. */
+  private static final class TraceEnds {
+
+    final Location[] locs;
+    final double[] lengths;
+
+    TraceEnds(int size) {
+      locs = new Location[size * 2];
+      lengths = new double[size];
+    }
+  }
+
   static class FixedStrikeSurface extends FiniteSurface {
 
     // Four corners of rupture:
@@ -199,10 +213,25 @@ class PointSourceFixedStrike extends PointSourceFinite {
 
     // ignores 'widthDD' and 'mag' fields in parent
 
+    /* hanging wall rRup parameters; see RuptureGeometry */
+    double sinDip;
+    double rCutTop;
+    double rCutBot;
+    double rRupTop;
+
     FixedStrikeSurface(Location loc, RuptureScaling rupScaling) {
       super(loc, rupScaling);
     }
 
+    @Override
+    void set(RuptureGeometry geom) {
+      super.set(geom);
+      sinDip = geom.sinDip;
+      rCutTop = geom.rCutTop;
+      rCutBot = geom.rCutBot;
+      rRupTop = geom.rRupTop;
+    }
+
     /*
      * NOTE the footwall flag in parent can not be used here. In parent, there's
      * not strict relation between the site location and the geometry of the
@@ -233,10 +262,8 @@ class PointSourceFixedStrike extends PointSourceFinite {
       // otherwise, we're on the hanging wall...
 
       // compute rRup as though we're between endpoints
-      double rCutTop = tan(dipRad) * zTop;
-      double rCutBot = tan(dipRad) * zBot + widthH;
       double rRup = (rX > rCutBot) ? hypot(rX - widthH, zBot) : (rX < rCutTop) ? hypot(rX,
-          zTop) : hypot(rCutTop, zTop) + (rX - rCutTop) * sin(dipRad);
+          zTop) : rRupTop + (rX - rCutTop) * sinDip;
 
       // test if we're normal to trace or past its endpoints
       boolean offEnd = DoubleMath.fuzzyCompare(rSeg, rX, 0.00001) > 0;
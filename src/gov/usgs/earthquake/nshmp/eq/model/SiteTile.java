@@ -0,0 +1,113 @@
+package gov.usgs.earthquake.nshmp.eq.model;
+
+import static gov.usgs.earthquake.nshmp.geo.Coordinates.EARTH_RADIUS_MEAN;
+import static gov.usgs.earthquake.nshmp.util.Maths.TO_RADIANS;
+import static java.lang.Math.PI;
+import static java.lang.Math.abs;
+import static java.lang.Math.cos;
+import static java.lang.Math.floor;
+
+import gov.usgs.earthquake.nshmp.geo.Location;
+
+/**
+ * A square, latitude-longitude aligned tile of sites. Hazard calculations for
+ * maps visit sites in row order (see {@code GriddedRegion}) so consecutive
+ * sites commonly fall in the same tile. A source set can filter its sources
+ * once per tile, against the tile center and an inflated distance, and then
+ * filter each site against the resulting candidate list only.
+ *
+ * <p>The inflated distance is conservative for distance filters that compare
+ * {@link gov.usgs.earthquake.nshmp.geo.Locations#horzDistanceFast(Location, Location)}
+ * between a site and fixed source points: any point within {@code distance} of
+ * a site in the tile is within {@link #distance(double)} of the tile center.
+ * Because {@code horzDistanceFast} scales longitude differences by the cosine
+ * of the mean latitude of the points being compared, it does not obey the
+ * triangle inequality and the inflation includes a term that accounts for the
+ * change in that scale factor across the tile.
+ */
+final class SiteTile {
+
+  /* Tile dimension in decimal degrees. */
+  static final double SIZE = 0.5;
+
+  private static final int MAX_ROW = (int) (90.0 / SIZE) - 1;
+  private static final double HALF_SIZE_RAD = SIZE * 0.5 * TO_RADIANS;
+  private static final double MAX_LON_DELTA = 3 * PI;
+  private static final double TOLERANCE = 1e-9;
+
+  private final int row;
+  private final int column;
+  private final Location center;
+  private final double maxLat;
+
+  private SiteTile(int row, int column) {
+    this.row = row;
+    this.column = column;
+    this.center = Location.create((row + 0.5) * SIZE, (column + 0.5) * SIZE);
+    this.maxLat = Math.max(abs(row * SIZE), abs((row + 1) * SIZE)) * TO_RADIANS;
+  }
+
+  /**
+   * Create the tile that contains the supplied location.
+   *
+   * @param loc to create tile for
+   */
+  static SiteTile create(Location loc) {
+    return new SiteTile(row(loc), column(loc));
+  }
+
+  /*
+   * Sites at the north pole are assigned to the last full row of tiles so that
+   * tile centers are always valid locations.
+   */
+  private static int row(Location loc) {
+    return Math.min((int) floor(loc.lat() / SIZE), MAX_ROW);
+  }
+
+  private static int column(Location loc) {
+    return (int) floor(loc.lon() / SIZE);
+  }
+
+  /**
+   * Whether this tile contains the supplied location.
+   *
+   * @param loc to check
+   */
+  boolean contains(Location loc) {
+    return row(loc) == row && column(loc) == column;
+  }
+
+  /** The center of this tile. */
+  Location center() {
+    return center;
+  }
+
+  /**
+   * Return a distance from the center of this tile that encloses all points
+   * that are within {@code distance} of any site in the tile.
+   *
+   * @param distance from a site
+   */
+  double distance(double distance) {
+    /*
+     * Bound the longitude separation between a site and a point within
+     * distance of it using the minimum cosine of their mean latitude.
+     */
+    double angle = distance / EARTH_RADIUS_MEAN;
+    double meanLatMax = maxLat + angle * 0.5;
+    double lonDelta = (meanLatMax < PI * 0.5)
+        ? Math.min(angle / cos(meanLatMax), MAX_LON_DELTA)
+        : MAX_LON_DELTA;
+    double inflation = HALF_SIZE_RAD * (2.0 + lonDelta * 0.5) * EARTH_RADIUS_MEAN;
+    return (distance + inflation) * (1.0 + TOLERANCE);
+  }
+
+  @Override
+  public String toString() {
+    return new StringBuilder(getClass().getSimpleName())
+        .append(" [center=").append(center)
+        .append(", size=").append(SIZE)
+        .append("]")
+        .toString();
+  }
+}
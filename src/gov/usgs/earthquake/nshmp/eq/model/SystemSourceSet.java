@@ -13,6 +13,7 @@ import static gov.usgs.earthquake.nshmp.geo.Locations.horzDistanceFast;
 import static java.lang.Math.min;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
@@ -21,7 +22,6 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
 import com.google.common.primitives.Doubles;
 
@@ -130,6 +130,89 @@ public final class SystemSourceSet extends AbstractSourceSet<SystemSourceSet.Sys
     return new BitsetFilter(siteBitset);
   }
 
+  @Override
+  public Iterable<SystemSource> iterableForLocation(Location loc, double distance) {
+    return sources(loc, distance, bitsetForLocation(loc, distance));
+  }
+
+  /*
+   * The indices of the sources that may be within range of any site in the
+   * most recently used SiteTile. Rather than test the bitsets of all sources
+   * against the bitset of each site, those of sources that intersect a tile
+   * bitset (sections within an inflated distance of the tile center) are
+   * tested. The holder is immutable and is updated using the racy single-check
+   * idiom.
+   */
+  private TileSources tileSources;
+
+  private int[] tileCandidates(Location loc, double distance) {
+    TileSources ts = tileSources;
+    if (ts == null || ts.distance != distance || !ts.tile.contains(loc)) {
+      SiteTile tile = SiteTile.create(loc);
+      BitSet tileBitset = bitsetForLocation(tile.center(), tile.distance(distance));
+      ts = new TileSources(tile, distance, intersecting(tileBitset, null));
+      tileSources = ts;
+    }
+    return ts.indices;
+  }
+
+  /*
+   * The indices, in ascending order, of the sources whose bitsets intersect
+   * the supplied bitset. If candidates is null, all sources are tested.
+   */
+  private int[] intersecting(BitSet bitset, int[] candidates) {
+    int size = (candidates == null) ? bitsets.length : candidates.length;
+    int[] indices = new int[size];
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      int index = (candidates == null) ? i : candidates[i];
+      if (bitset.intersects(bitsets[index])) {
+        indices[count++] = index;
+      }
+    }
+    return Arrays.copyOf(indices, count);
+  }
+
+  /*
+   * The sources that participate in any of the fault sections in a site
+   * bitset, in index order; siteBitset must have been created using the
+   * supplied location and distance.
+   */
+  private Iterable<SystemSource> sources(Location loc, double distance, BitSet siteBitset) {
+    final int[] indices = intersecting(siteBitset, tileCandidates(loc, distance));
+    return () -> new Iterator<SystemSource>() {
+      int caret = 0;
+
+      @Override
+      public boolean hasNext() {
+        return caret < indices.length;
+      }
+
+      @Override
+      public SystemSource next() {
+        return new SystemSource(indices[caret++]);
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  private static final class TileSources {
+
+    final SiteTile tile;
+    final double distance;
+    final int[] indices;
+
+    TileSources(SiteTile tile, double distance, int[] indices) {
+      this.tile = tile;
+      this.distance = distance;
+      this.indices = indices;
+    }
+  }
+
   /**
    * The fault section surface corresponding to the supplied {@code index}.
    * 
@@ -438,8 +521,7 @@ public final class SystemSourceSet extends AbstractSourceSet<SystemSourceSet.Sys
       if (siteBitset.isEmpty()) {
         return modelMfd;
       }
-      Predicate<SystemSource> distanceFilter = new BitsetFilter(siteBitset);
-      for (SystemSource source : Iterables.filter(sourceSet, distanceFilter::test)) {
+      for (SystemSource source : sourceSet.sources(location, distance, siteBitset)) {
         mfdForLocation.add(source.magnitude(), source.rate());
       }
       return mfdForLocation.multiply(sourceSet.weight()).build();
@@ -557,8 +639,10 @@ public final class SystemSourceSet extends AbstractSourceSet<SystemSourceSet.Sys
         /* Create inputs. */
         Map<Integer, double[]> rMap = rMapBuilder.build();
         Function<SystemSource, HazardInput> inputGenerator = new InputGenerator(rMap, site);
-        Predicate<SystemSource> rFilter = new BitsetFilter(siteBitset);
-        Iterable<SystemSource> sources = Iterables.filter(sourceSet, rFilter::test);
+        Iterable<SystemSource> sources = sourceSet.sources(
+            site.location,
+            maxDistance,
+            siteBitset);
 
         /* Fill input list. */
         SystemInputList inputs = new SystemInputList(sourceSet, rMap.keySet());
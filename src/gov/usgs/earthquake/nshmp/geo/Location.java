@@ -41,10 +41,10 @@ public final class Location implements Comparable<Location> {
   private final double lon;
   private final double depth;
 
-  private Location(double lat, double lon, double depth) {
-    this.lat = checkLatitude(lat) * Maths.TO_RADIANS;
-    this.lon = checkLongitude(lon) * Maths.TO_RADIANS;
-    this.depth = checkDepth(depth);
+  private Location(double latRad, double lonRad, double depth) {
+    this.lat = latRad;
+    this.lon = lonRad;
+    this.depth = depth;
   }
 
   /**
@@ -71,7 +71,19 @@ public final class Location implements Comparable<Location> {
    * @see Coordinates
    */
   public static Location create(double lat, double lon, double depth) {
-    return new Location(lat, lon, depth);
+    return new Location(
+        checkLatitude(lat) * Maths.TO_RADIANS,
+        checkLongitude(lon) * Maths.TO_RADIANS,
+        checkDepth(depth));
+  }
+
+  /*
+   * Recreate a Location from its native (radian-based) coordinates, e.g. those
+   * stored in a LocationArray. Coordinates are assumed to have been validated
+   * when first supplied.
+   */
+  static Location fromRadians(double latRad, double lonRad, double depth) {
+    return new Location(latRad, lonRad, depth);
   }
 
   /**
@@ -0,0 +1,324 @@
+package gov.usgs.earthquake.nshmp.geo;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static gov.usgs.earthquake.nshmp.geo.Coordinates.EARTH_RADIUS_MEAN;
+import static java.lang.Math.cos;
+import static java.lang.Math.sqrt;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+import com.google.common.collect.Iterables;
+
+/**
+ * An immutable, ordered array of {@link Location} coordinates. Latitudes and
+ * longitudes (in radians) and depths are stored in contiguous primitive arrays
+ * so that distance calculations over large numbers of locations, such as the
+ * nodes of a gridded rupture surface, stream through memory rather than
+ * dereferencing a {@code Location} per point.
+ *
+ * <p>Locations are also grouped into consecutive blocks of up to
+ * {@value #BLOCK_SIZE}, the bounds of which permit whole blocks to be skipped
+ * when searching for minimum distances.
+ * @see LocationList#coordinates()
+ */
+public final class LocationArray {
+
+  /** The number of consecutive locations grouped in a block. */
+  public static final int BLOCK_SIZE = 16;
+
+  /*
+   * Block and patch lower bounds are compared to running minima with a small
+   * relative tolerance so that rounding can never cause a group of locations
+   * that contains a minimum to be skipped.
+   */
+  private static final double BOUND_TOLERANCE = 1e-9;
+
+  private final double[] lat;
+  private final double[] lon;
+  private final double[] depth;
+
+  /* Block bounds in radians and km. */
+  private final double[] blockLatMin;
+  private final double[] blockLatMax;
+  private final double[] blockLonMin;
+  private final double[] blockLonMax;
+  private final double[] blockDepthMin;
+  private final double[] blockDepthMax;
+
+  private LocationArray(double[] lat, double[] lon, double[] depth) {
+    this.lat = lat;
+    this.lon = lon;
+    this.depth = depth;
+
+    int blocks = (lat.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    blockLatMin = new double[blocks];
+    blockLatMax = new double[blocks];
+    blockLonMin = new double[blocks];
+    blockLonMax = new double[blocks];
+    blockDepthMin = new double[blocks];
+    blockDepthMax = new double[blocks];
+    for (int b = 0; b < blocks; b++) {
+      int start = b * BLOCK_SIZE;
+      int end = Math.min(start + BLOCK_SIZE, lat.length);
+      double latMin = lat[start], latMax = latMin;
+      double lonMin = lon[start], lonMax = lonMin;
+      double depthMin = depth[start], depthMax = depthMin;
+      for (int i = start + 1; i < end; i++) {
+        latMin = Math.min(latMin, lat[i]);
+        latMax = Math.max(latMax, lat[i]);
+        lonMin = Math.min(lonMin, lon[i]);
+        lonMax = Math.max(lonMax, lon[i]);
+        depthMin = Math.min(depthMin, depth[i]);
+        depthMax = Math.max(depthMax, depth[i]);
+      }
+      blockLatMin[b] = latMin;
+      blockLatMax[b] = latMax;
+      blockLonMin[b] = lonMin;
+      blockLonMax[b] = lonMax;
+      blockDepthMin[b] = depthMin;
+      blockDepthMax[b] = depthMax;
+    }
+  }
+
+  /**
+   * Create a new array containing the coordinates of the supplied locations,
+   * in iteration order.
+   *
+   * @param locs to populate array with
+   * @throws IllegalArgumentException if {@code locs} is empty
+   */
+  public static LocationArray create(Iterable<Location> locs) {
+    int size = Iterables.size(locs);
+    checkArgument(size > 0, "Locations may not be empty");
+    double[] lat = new double[size];
+    double[] lon = new double[size];
+    double[] depth = new double[size];
+    int i = 0;
+    for (Location loc : locs) {
+      lat[i] = loc.latRad();
+      lon[i] = loc.lonRad();
+      depth[i++] = loc.depth();
+    }
+    return new LocationArray(lat, lon, depth);
+  }
+
+  /** The number of locations in this array. */
+  public int size() {
+    return lat.length;
+  }
+
+  /**
+   * The latitude of the location at {@code index}, in radians.
+   *
+   * @param index of location
+   */
+  public double latRad(int index) {
+    return lat[index];
+  }
+
+  /**
+   * The longitude of the location at {@code index}, in radians.
+   *
+   * @param index of location
+   */
+  public double lonRad(int index) {
+    return lon[index];
+  }
+
+  /**
+   * The depth of the location at {@code index}, in km.
+   *
+   * @param index of location
+   */
+  public double depth(int index) {
+    return depth[index];
+  }
+
+  /**
+   * The location at {@code index}. The returned {@code Location} is equal to
+   * the one originally supplied to this array.
+   *
+   * @param index of location
+   */
+  public Location location(int index) {
+    return Location.fromRadians(lat[index], lon[index], depth[index]);
+  }
+
+  /**
+   * The horizontal distance between a site and the location at {@code index},
+   * computed as in {@link Locations#horzDistanceFast(Location, Location)} with
+   * the site as the first argument.
+   *
+   * @param site of interest
+   * @param index of location
+   */
+  public double horzDistanceFast(Location site, int index) {
+    double lat1 = site.latRad();
+    double lat2 = lat[index];
+    double dLat = lat1 - lat2;
+    double dLon = (site.lonRad() - lon[index]) * cos((lat1 + lat2) * 0.5);
+    return EARTH_RADIUS_MEAN * sqrt(dLat * dLat + dLon * dLon);
+  }
+
+  /**
+   * Return the indices, in ascending order, of the locations that pass a
+   * {@link Locations#distanceAndRectangleFilter(Location, double)} centered on
+   * a site. Blocks of locations that lie entirely outside the filter rectangle
+   * are skipped.
+   *
+   * @param site at center of filter
+   * @param distance of filter
+   */
+  public int[] indicesWithin(Location site, double distance) {
+    Rectangle2D rect = Locations.rectangle(site, distance);
+    double minLat = rect.getMinY();
+    double maxLat = rect.getMaxY();
+    double minLon = rect.getMinX();
+    double maxLon = rect.getMaxX();
+    double lat1 = site.latRad();
+    double lon1 = site.lonRad();
+
+    int[] indices = new int[Math.min(lat.length, BLOCK_SIZE * BLOCK_SIZE)];
+    int count = 0;
+    for (int b = 0; b < blockLatMin.length; b++) {
+      if (blockLatMax[b] < minLat || blockLatMin[b] > maxLat ||
+          blockLonMax[b] < minLon || blockLonMin[b] > maxLon) {
+        continue;
+      }
+      int end = Math.min((b + 1) * BLOCK_SIZE, lat.length);
+      for (int i = b * BLOCK_SIZE; i < end; i++) {
+        double lat2 = lat[i];
+        if (!rect.contains(lon[i], lat2)) {
+          continue;
+        }
+        double dLat = lat1 - lat2;
+        double dLon = (lon1 - lon[i]) * cos((lat1 + lat2) * 0.5);
+        if (!(EARTH_RADIUS_MEAN * sqrt(dLat * dLat + dLon * dLon) <= distance)) {
+          continue;
+        }
+        if (count == indices.length) {
+          indices = Arrays.copyOf(indices, Math.min(lat.length, count * 2));
+        }
+        indices[count++] = i;
+      }
+    }
+    return Arrays.copyOf(indices, count);
+  }
+
+  /**
+   * Update the minimum horizontal distance and minimum squared linear distance
+   * between a site and the locations in the range {@code [from, to)}.
+   * Horizontal distances are computed as in
+   * {@link Locations#horzDistanceFast(Location, Location)} and vertical
+   * distances as in {@link Locations#vertDistance(Location, Location)}, with
+   * the site as the first argument, so results are identical to those obtained
+   * by iterating the equivalent {@code Location}s.
+   *
+   * <p>The current minima are supplied in, and returned in, {@code minima}
+   * ({@code [horizontal, linear²]}) so that successive ranges may be searched,
+   * for instance the rows of a window into a gridded surface. Blocks of
+   * locations whose bounds show that they can not reduce either minimum are
+   * skipped.
+   *
+   * @param site of interest
+   * @param from index, inclusive
+   * @param to index, exclusive
+   * @param minima {@code [horizontal, linear²]} to update
+   */
+  public void minDistances(Location site, int from, int to, double[] minima) {
+    checkPositionIndexes(from, to, lat.length);
+    double lat1 = site.latRad();
+    double lon1 = site.lonRad();
+    double depth1 = site.depth();
+
+    for (int b = from / BLOCK_SIZE; b * BLOCK_SIZE < to; b++) {
+      int start = Math.max(from, b * BLOCK_SIZE);
+      int end = Math.min(to, (b + 1) * BLOCK_SIZE);
+      if (end - start > 1) {
+        double horzBound = horzBound(
+            lat1, lon1,
+            blockLatMin[b], blockLatMax[b],
+            blockLonMin[b], blockLonMax[b]);
+        if (isRemote(horzBound, depth1, blockDepthMin[b], blockDepthMax[b], minima)) {
+          continue;
+        }
+      }
+      scan(lat1, lon1, depth1, start, end, minima);
+    }
+  }
+
+  /*
+   * Update minima ([horizontal, linear²]) with the exact distances between a
+   * site and every location in the range [from, to).
+   */
+  void scan(double lat1, double lon1, double depth1, int from, int to, double[] minima) {
+    double minHorz = minima[0];
+    double minLinear = minima[1];
+    for (int i = from; i < to; i++) {
+      double lat2 = lat[i];
+      double dLat = lat1 - lat2;
+      double dLon = (lon1 - lon[i]) * cos((lat1 + lat2) * 0.5);
+      double horz = EARTH_RADIUS_MEAN * sqrt(dLat * dLat + dLon * dLon);
+      double vert = depth[i] - depth1;
+      if (horz < minHorz) {
+        minHorz = horz;
+      }
+      double linear = horz * horz + vert * vert;
+      if (linear < minLinear) {
+        minLinear = linear;
+      }
+    }
+    minima[0] = minHorz;
+    minima[1] = minLinear;
+  }
+
+  /*
+   * A lower bound on the horizontal distance between a site and any location
+   * in a latitude-longitude bounding box (radians). The bound uses the
+   * latitude and longitude separations from the box and the smallest
+   * longitude scale factor, cos(mean latitude), over the box.
+   */
+  static double horzBound(
+      double lat1,
+      double lon1,
+      double latMin,
+      double latMax,
+      double lonMin,
+      double lonMax) {
+
+    double dLat = (lat1 < latMin) ? latMin - lat1 : (lat1 > latMax) ? lat1 - latMax : 0.0;
+    double dLon = (lon1 < lonMin) ? lonMin - lon1 : (lon1 > lonMax) ? lon1 - lonMax : 0.0;
+    dLon *= Math.min(cos((lat1 + latMin) * 0.5), cos((lat1 + latMax) * 0.5));
+    return EARTH_RADIUS_MEAN * sqrt(dLat * dLat + dLon * dLon) * (1.0 - BOUND_TOLERANCE);
+  }
+
+  /*
+   * Whether a box with the supplied horizontal distance bound and depth range
+   * can not reduce either of the supplied minima ([horizontal, linear²]).
+   */
+  static boolean isRemote(
+      double horzBound,
+      double depth1,
+      double depthMin,
+      double depthMax,
+      double[] minima) {
+
+    if (horzBound <= minima[0]) {
+      return false;
+    }
+    double vert = (depth1 < depthMin) ? depthMin - depth1
+        : (depth1 > depthMax) ? depth1 - depthMax : 0.0;
+    return (horzBound * horzBound + vert * vert) * (1.0 - BOUND_TOLERANCE) > minima[1];
+  }
+
+  @Override
+  public String toString() {
+    return new StringBuilder(getClass().getSimpleName())
+        .append(" [size=").append(lat.length)
+        .append(", blocks=").append(blockLatMin.length)
+        .append("]")
+        .toString();
+  }
+}
@@ -0,0 +1,143 @@
+package gov.usgs.earthquake.nshmp.geo;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static gov.usgs.earthquake.nshmp.geo.Coordinates.EARTH_RADIUS_MEAN;
+import static java.lang.Math.cos;
+import static java.lang.Math.sqrt;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+import gov.usgs.earthquake.nshmp.util.Maths;
+
+/**
+ * The locations of a {@link LocationArray} that lie within the latitude range
+ * of a {@link Locations#distanceAndRectangleFilter(Location, double)} centered
+ * on a site. The latitude range of the filter, and the latitude-dependent terms
+ * of {@link Locations#horzDistanceFast(Location, Location)}, are the same for
+ * every site at a given latitude. A band may therefore be reused for successive
+ * sites along a row of a map (e.g. the nodes of a {@link GriddedRegion}, which
+ * are ordered by increasing longitude then latitude), for which only the
+ * longitude terms need to be evaluated.
+ *
+ * <p>Filtering and distance results are identical to those obtained from
+ * {@link LocationArray#indicesWithin(Location, double)} and
+ * {@link LocationArray#horzDistanceFast(Location, int)}.
+ */
+public final class LocationBand {
+
+  private final double latRad;
+  private final double distance;
+
+  /* Band members, in array order. */
+  private final int[] indices;
+  private final double[] lat;
+  private final double[] lon;
+  private final double[] dLatSq;
+  private final double[] lonScale;
+
+  private LocationBand(LocationArray locations, Location site, double distance) {
+    this.latRad = site.latRad();
+    this.distance = distance;
+
+    Rectangle2D rect = Locations.rectangle(site, distance);
+    double minLat = rect.getMinY();
+    double maxLat = rect.getMaxY();
+    int[] members = new int[locations.size()];
+    int count = 0;
+    for (int i = 0; i < locations.size(); i++) {
+      double lat2 = locations.latRad(i);
+      if (lat2 >= minLat && lat2 < maxLat) {
+        members[count++] = i;
+      }
+    }
+
+    indices = Arrays.copyOf(members, count);
+    lat = new double[count];
+    lon = new double[count];
+    dLatSq = new double[count];
+    lonScale = new double[count];
+    for (int k = 0; k < count; k++) {
+      double lat2 = locations.latRad(indices[k]);
+      double dLat = latRad - lat2;
+      lat[k] = lat2;
+      lon[k] = locations.lonRad(indices[k]);
+      dLatSq[k] = dLat * dLat;
+      lonScale[k] = cos((latRad + lat2) * 0.5);
+    }
+  }
+
+  /**
+   * Create a new band containing the locations that lie within the latitude
+   * range of a distance filter centered on a site.
+   *
+   * @param locations to filter
+   * @param site at center of filter
+   * @param distance of filter
+   */
+  public static LocationBand create(LocationArray locations, Location site, double distance) {
+    checkArgument(distance > 0.0, "Distance [%s] must be positive", distance);
+    return new LocationBand(locations, site, distance);
+  }
+
+  /**
+   * Whether this band may be used to filter locations for a site and distance;
+   * the site must have the same latitude as that used to create this band.
+   *
+   * @param site to check
+   * @param distance to check
+   */
+  public boolean supports(Location site, double distance) {
+    return site.latRad() == latRad && distance == this.distance;
+  }
+
+  /** The number of locations in this band. */
+  public int size() {
+    return indices.length;
+  }
+
+  /**
+   * Populate the supplied arrays with the indices of the locations that pass a
+   * {@link Locations#distanceAndRectangleFilter(Location, double)} centered on
+   * a site, in ascending order, and their distances to the site, computed as
+   * in {@link Locations#horzDistanceFast(Location, Location)} with the site as
+   * the first argument.
+   *
+   * @param site at center of filter
+   * @param indices to populate; length must be at least {@link #size()}
+   * @param distances to populate; length must be at least {@link #size()}
+   * @return the number of locations that pass the filter
+   * @throws IllegalArgumentException if this band does not support the
+   *         supplied site
+   */
+  public int filter(Location site, int[] indices, double[] distances) {
+    checkArgument(supports(site, distance), "Site %s not in band", site);
+    Rectangle2D rect = Locations.rectangle(site, distance);
+    double lon1 = site.lonRad();
+    int count = 0;
+    for (int k = 0; k < this.indices.length; k++) {
+      double lon2 = lon[k];
+      if (!rect.contains(lon2, lat[k])) {
+        continue;
+      }
+      double dLon = (lon1 - lon2) * lonScale[k];
+      double r = EARTH_RADIUS_MEAN * sqrt(dLatSq[k] + dLon * dLon);
+      if (!(r <= distance)) {
+        continue;
+      }
+      indices[count] = this.indices[k];
+      distances[count++] = r;
+    }
+    return count;
+  }
+
+  @Override
+  public String toString() {
+    return new StringBuilder(getClass().getSimpleName())
+        .append(" [lat=").append(latRad * Maths.TO_DEGREES)
+        .append(", distance=").append(distance)
+        .append(", size=").append(indices.length)
+        .append("]")
+        .toString();
+  }
+}
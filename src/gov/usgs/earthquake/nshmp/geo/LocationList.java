@@ -89,6 +89,9 @@ public abstract class LocationList implements Iterable<Location> {
         Location.stringConverter().reverse()));
   }
 
+  /* Created on first use; LocationArray is immutable (racy single-check). */
+  private LocationArray coordinates;
+
   LocationList() {}
 
   /**
@@ -119,6 +122,20 @@ public abstract class LocationList implements Iterable<Location> {
     return get(size() - 1);
   }
 
+  /**
+   * Return the coordinates of the locations in this list packed into
+   * contiguous primitive arrays. The returned array is created on first use
+   * and reused thereafter.
+   */
+  public LocationArray coordinates() {
+    LocationArray array = coordinates;
+    if (array == null) {
+      array = LocationArray.create(this);
+      coordinates = array;
+    }
+    return array;
+  }
+
   /**
    * Lazily compute the horizontal length of this {@code LocationList} in km.
    * Method uses the {@link Locations#horzDistanceFast(Location, Location)}
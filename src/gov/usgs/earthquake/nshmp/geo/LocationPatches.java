@@ -0,0 +1,214 @@
+package gov.usgs.earthquake.nshmp.geo;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+/**
+ * A rectangular grid of locations, such as the nodes of a gridded rupture
+ * surface, partitioned into square patches of up to {@value #PATCH_SIZE}
+ * &times; {@value #PATCH_SIZE} locations. The coordinate bounds of each patch
+ * support a coarse-to-fine search for the minimum distances between a site and
+ * the locations in any rectangular window into the grid: patch bounds are
+ * evaluated first, the most promising patch is searched to establish initial
+ * minima, and only those patches whose bounds show that they might contain a
+ * closer location are searched thereafter.
+ *
+ * <p>Results are identical to those obtained by exhaustively searching every
+ * location in a window, but for large grids, e.g. subduction interface
+ * surfaces, and sites that are not near the grid, most locations are never
+ * visited.
+ * @see LocationArray
+ */
+public final class LocationPatches {
+
+  /** The number of rows and columns of locations in a patch. */
+  public static final int PATCH_SIZE = 8;
+
+  private final LocationArray locations;
+  private final int rows;
+  private final int columns;
+  private final int patchColumns;
+
+  /* Patch bounds in radians and km, indexed row-major. */
+  private final double[] latMin;
+  private final double[] latMax;
+  private final double[] lonMin;
+  private final double[] lonMax;
+  private final double[] depthMin;
+  private final double[] depthMax;
+
+  private LocationPatches(LocationArray locations, int rows, int columns) {
+    this.locations = locations;
+    this.rows = rows;
+    this.columns = columns;
+
+    int patchRows = (rows + PATCH_SIZE - 1) / PATCH_SIZE;
+    patchColumns = (columns + PATCH_SIZE - 1) / PATCH_SIZE;
+    int patches = patchRows * patchColumns;
+    latMin = new double[patches];
+    latMax = new double[patches];
+    lonMin = new double[patches];
+    lonMax = new double[patches];
+    depthMin = new double[patches];
+    depthMax = new double[patches];
+
+    for (int pr = 0; pr < patchRows; pr++) {
+      for (int pc = 0; pc < patchColumns; pc++) {
+        int p = pr * patchColumns + pc;
+        latMin[p] = lonMin[p] = depthMin[p] = Double.POSITIVE_INFINITY;
+        latMax[p] = lonMax[p] = depthMax[p] = Double.NEGATIVE_INFINITY;
+        int rowEnd = Math.min(rows, (pr + 1) * PATCH_SIZE);
+        int columnEnd = Math.min(columns, (pc + 1) * PATCH_SIZE);
+        for (int row = pr * PATCH_SIZE; row < rowEnd; row++) {
+          for (int column = pc * PATCH_SIZE; column < columnEnd; column++) {
+            int i = row * columns + column;
+            latMin[p] = Math.min(latMin[p], locations.latRad(i));
+            latMax[p] = Math.max(latMax[p], locations.latRad(i));
+            lonMin[p] = Math.min(lonMin[p], locations.lonRad(i));
+            lonMax[p] = Math.max(lonMax[p], locations.lonRad(i));
+            depthMin[p] = Math.min(depthMin[p], locations.depth(i));
+            depthMax[p] = Math.max(depthMax[p], locations.depth(i));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Create a new patched grid from an array of locations stored in row-major
+   * order.
+   *
+   * @param locations to partition
+   * @param rows in the grid
+   * @param columns in the grid
+   * @throws IllegalArgumentException if {@code rows * columns} is not the size
+   *         of {@code locations}
+   */
+  public static LocationPatches create(LocationArray locations, int rows, int columns) {
+    checkArgument(rows > 0 && columns > 0, "Grid dimensions [%s, %s] must be positive",
+        rows, columns);
+    checkArgument(rows * columns == locations.size(),
+        "Grid dimensions [%s, %s] do not match location count: %s",
+        rows, columns, locations.size());
+    return new LocationPatches(locations, rows, columns);
+  }
+
+  /** The number of rows in the grid. */
+  public int rows() {
+    return rows;
+  }
+
+  /** The number of columns in the grid. */
+  public int columns() {
+    return columns;
+  }
+
+  /**
+   * Update the minimum horizontal distance and minimum squared linear distance
+   * between a site and the locations in a window into the grid. Distances are
+   * computed as in {@link LocationArray#minDistances(Location, int, int, double[])}
+   * and the current minima are supplied in, and returned in, {@code minima}
+   * ({@code [horizontal, linear²]}).
+   *
+   * @param site of interest
+   * @param rowStart first row of the window
+   * @param rowCount number of rows in the window
+   * @param columnStart first column of the window
+   * @param columnCount number of columns in the window
+   * @param minima {@code [horizontal, linear²]} to update
+   */
+  public void minDistances(
+      Location site,
+      int rowStart,
+      int rowCount,
+      int columnStart,
+      int columnCount,
+      double[] minima) {
+
+    checkPositionIndexes(rowStart, rowStart + rowCount, rows);
+    checkPositionIndexes(columnStart, columnStart + columnCount, columns);
+    if (rowCount == 0 || columnCount == 0) {
+      return;
+    }
+    double lat1 = site.latRad();
+    double lon1 = site.lonRad();
+    double depth1 = site.depth();
+
+    int rowEnd = rowStart + rowCount;
+    int columnEnd = columnStart + columnCount;
+    int pr0 = rowStart / PATCH_SIZE;
+    int pr1 = (rowEnd - 1) / PATCH_SIZE;
+    int pc0 = columnStart / PATCH_SIZE;
+    int pc1 = (columnEnd - 1) / PATCH_SIZE;
+
+    /* Coarse pass: find the patch nearest the site. */
+    int nearest = pr0 * patchColumns + pc0;
+    if (pr1 > pr0 || pc1 > pc0) {
+      double nearestBound = Double.POSITIVE_INFINITY;
+      for (int pr = pr0; pr <= pr1; pr++) {
+        for (int pc = pc0; pc <= pc1; pc++) {
+          int p = pr * patchColumns + pc;
+          double bound = horzBound(p, lat1, lon1);
+          if (bound < nearestBound) {
+            nearestBound = bound;
+            nearest = p;
+          }
+        }
+      }
+    }
+
+    /* Fine pass: search the nearest patch, then any that may be closer. */
+    scan(nearest, lat1, lon1, depth1, rowStart, rowEnd, columnStart, columnEnd, minima);
+    for (int pr = pr0; pr <= pr1; pr++) {
+      for (int pc = pc0; pc <= pc1; pc++) {
+        int p = pr * patchColumns + pc;
+        if (p == nearest || LocationArray.isRemote(
+            horzBound(p, lat1, lon1), depth1, depthMin[p], depthMax[p], minima)) {
+          continue;
+        }
+        scan(p, lat1, lon1, depth1, rowStart, rowEnd, columnStart, columnEnd, minima);
+      }
+    }
+  }
+
+  private double horzBound(int patch, double lat1, double lon1) {
+    return LocationArray.horzBound(
+        lat1, lon1,
+        latMin[patch], latMax[patch],
+        lonMin[patch], lonMax[patch]);
+  }
+
+  /* Search the part of a patch that lies within a window. */
+  private void scan(
+      int patch,
+      double lat1,
+      double lon1,
+      double depth1,
+      int rowStart,
+      int rowEnd,
+      int columnStart,
+      int columnEnd,
+      double[] minima) {
+
+    int pr = patch / patchColumns;
+    int pc = patch % patchColumns;
+    int r0 = Math.max(rowStart, pr * PATCH_SIZE);
+    int r1 = Math.min(rowEnd, (pr + 1) * PATCH_SIZE);
+    int c0 = Math.max(columnStart, pc * PATCH_SIZE);
+    int c1 = Math.min(columnEnd, (pc + 1) * PATCH_SIZE);
+    for (int row = r0; row < r1; row++) {
+      int offset = row * columns;
+      locations.scan(lat1, lon1, depth1, offset + c0, offset + c1, minima);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return new StringBuilder(getClass().getSimpleName())
+        .append(" [rows=").append(rows)
+        .append(", columns=").append(columns)
+        .append(", patches=").append(latMin.length)
+        .append("]")
+        .toString();
+  }
+}
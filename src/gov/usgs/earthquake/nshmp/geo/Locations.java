@@ -860,7 +860,7 @@ public final class Locations {
    * of latitude and longitude. It is also constrained to minimum and maximum
    * longitudes and latitudes {@see GeoTools}.
    */
-  private static Rectangle2D rectangle(Location loc, double distance) {
+  static Rectangle2D rectangle(Location loc, double distance) {
 
     // work in degrees because Locations.location() utils
     // greacefully overshoot poles and lat-lon value constraints
@@ -0,0 +1,184 @@
+package gov.usgs.earthquake.nshmp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import gov.usgs.earthquake.nshmp.HazardServer.Request;
+import gov.usgs.earthquake.nshmp.calc.CalcMetrics;
+import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
+
+@SuppressWarnings("javadoc")
+public class HazardServerTests {
+
+  private static final Path MODEL_PATH =
+      Paths.get("test/gov/usgs/earthquake/nshmp/eq/model/data/fault-wus-model");
+  private static final String MODEL_ID = "fault-wus-model";
+
+  private static HazardServer server;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    HazardModel model = HazardModel.load(MODEL_PATH);
+    server = new HazardServer(
+        ImmutableMap.of(MODEL_ID, model),
+        0,
+        Logger.getLogger(HazardServerTests.class.getName()));
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() {
+    server.stop();
+  }
+
+  @Test
+  public void parseQuery() throws Exception {
+    Map<String, String> query = HazardServer.parseQuery(
+        "lat=40.75&lon=-111.9&name=Test%20Site&imt=PGA,SA1P0&empty=&=skipped&flag");
+    assertEquals(5, query.size());
+    assertEquals("40.75", query.get("lat"));
+    assertEquals("-111.9", query.get("lon"));
+    assertEquals("Test Site", query.get("name"));
+    assertEquals("PGA,SA1P0", query.get("imt"));
+    assertEquals("", query.get("empty"));
+    assertTrue(HazardServer.parseQuery(null).isEmpty());
+    assertTrue(HazardServer.parseQuery("").isEmpty());
+  }
+
+  @Test
+  public void request() {
+    Request request = server.new Request(query("vs30", "530.0", "name", "Site A"), true);
+    assertEquals(MODEL_ID, request.modelId);
+    assertEquals(40.75, request.site.location.lat(), 0.0);
+    assertEquals(-111.9, request.site.location.lon(), 0.0);
+    assertEquals(530.0, request.site.vs30, 0.0);
+    assertEquals("Site A", request.site.name);
+    assertEquals(2475.0, request.returnPeriod.get(), 0.0);
+
+    /* Site name does not affect the calculation key; other site terms do. */
+    Request renamed = server.new Request(query("vs30", "530.0", "name", "Site B"), false);
+    Request unnamed = server.new Request(query("vs30", "530.0"), false);
+    Request softer = server.new Request(query("vs30", "360.0", "name", "Site A"), false);
+    assertEquals(request.key, renamed.key);
+    assertEquals(request.key, unnamed.key);
+    assertNotEquals(request.key, softer.key);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void requestMissingLocation() {
+    Map<String, String> query = new HashMap<>();
+    query.put("lat", "40.75");
+    server.new Request(query, false);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void requestInvalidValue() {
+    server.new Request(query("vs30", "fast"), false);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void requestUnknownModel() {
+    server.new Request(query("model", "unknown-model"), false);
+  }
+
+  @Test
+  public void batch() throws Exception {
+    /* Inputs created by a single calculation. */
+    CalcMetrics.reset();
+    Request single = server.new Request(query(), false);
+    server.dispatch(Arrays.asList(single));
+    JsonObject singleJson = parse(single.result.get());
+    long singleInputs = inputs();
+    assertTrue(singleInputs > 0);
+
+    /* Requests that differ only by name and type share one calculation. */
+    CalcMetrics.reset();
+    List<Request> batch = Arrays.asList(
+        server.new Request(query("name", "Site A"), false),
+        server.new Request(query("name", "Site B"), true),
+        server.new Request(query(), true));
+    server.dispatch(batch);
+    List<JsonObject> results = Arrays.asList(
+        parse(batch.get(0).result.get()),
+        parse(batch.get(1).result.get()),
+        parse(batch.get(2).result.get()));
+    assertEquals(singleInputs, inputs());
+
+    assertEquals("Site A", siteName(results.get(0)));
+    assertEquals("Site B", siteName(results.get(1)));
+    assertEquals(siteName(singleJson), siteName(results.get(2)));
+    for (JsonObject result : results) {
+      assertEquals(singleJson.get("curves"), result.get("curves"));
+    }
+    assertTrue(!results.get(0).has("deagg"));
+    assertTrue(results.get(1).has("deagg"));
+    assertEquals(results.get(1).get("deagg"), results.get(2).get("deagg"));
+  }
+
+  @Test
+  public void batchInvalidReturnPeriod() throws Exception {
+    /*
+     * An out of range return period fails only the deagg request that supplied
+     * it; a hazard request for the same site ignores it.
+     */
+    Request hazard = server.new Request(query("returnPeriod", "0"), false);
+    try {
+      server.new Request(query("returnPeriod", "0"), true);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException iae) {
+      assertTrue(iae.getMessage().startsWith("Return period"));
+    }
+    Request deagg = server.new Request(query(), true);
+    server.dispatch(Arrays.asList(hazard, deagg));
+    JsonObject hazardJson = parse(hazard.result.get());
+    JsonObject deaggJson = parse(deagg.result.get());
+    assertEquals(hazardJson.get("curves"), deaggJson.get("curves"));
+    assertTrue(!hazardJson.has("deagg"));
+    assertTrue(deaggJson.has("deagg"));
+  }
+
+  /* Query for the test site with the supplied additional key-value pairs. */
+  private static Map<String, String> query(String... keyValues) {
+    Map<String, String> query = new HashMap<>();
+    query.put("lat", "40.75");
+    query.put("lon", "-111.9");
+    query.put("returnPeriod", "2475");
+    for (int i = 0; i < keyValues.length; i += 2) {
+      query.put(keyValues[i], keyValues[i + 1]);
+    }
+    return query;
+  }
+
+  private static JsonObject parse(String json) {
+    return new JsonParser().parse(json).getAsJsonObject();
+  }
+
+  private static String siteName(JsonObject result) {
+    return result.getAsJsonObject("site").get("name").getAsString();
+  }
+
+  private static long inputs() {
+    return parse(CalcMetrics.toJson())
+        .getAsJsonObject("counts")
+        .get("inputs")
+        .getAsLong();
+  }
+
+}
@@ -0,0 +1,161 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.primitives.Doubles;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
+import gov.usgs.earthquake.nshmp.gmm.Imt;
+
+@SuppressWarnings("javadoc")
+public class AdaptiveMapTests {
+
+  private static final Path MODEL_PATH =
+      Paths.get("test/gov/usgs/earthquake/nshmp/eq/model/data/fault-wus-model");
+
+  /* 13 x 13 nodes spanning the Wasatch fault near Salt Lake City. */
+  private static final String MAP = "{\"type\": \"FeatureCollection\", \"features\": [{" +
+      "\"type\": \"Feature\", \"geometry\": {\"type\": \"Polygon\", \"coordinates\": [[" +
+      "[-113.0, 40.0], [-111.4, 40.0], [-111.4, 41.6], [-113.0, 41.6], [-113.0, 40.0]]]}," +
+      "\"properties\": {\"spacing\": 0.1}}]}";
+
+  private static final double RATE_FLOOR = 1e-5;
+
+  private static HazardModel model;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    model = HazardModel.load(MODEL_PATH);
+  }
+
+  private CalcConfig config(int refinement, double tolerance) throws Exception {
+    Path file = folder.newFile().toPath();
+    String json = "{\"performance\": {\"mapRefinement\": " + refinement +
+        ", \"mapTolerance\": " + tolerance + "}}";
+    Files.write(file, json.getBytes(UTF_8));
+    return CalcConfig.Builder.copyOf(model.config())
+        .extend(CalcConfig.Builder.fromFile(file))
+        .build();
+  }
+
+  private Sites sites(CalcConfig config) throws Exception {
+    Path file = folder.newFile("map.geojson").toPath();
+    Files.write(file, MAP.getBytes(UTF_8));
+    return Sites.fromJson(file, config);
+  }
+
+  /* Hazard at every map node. */
+  private static List<Hazard> fullMap(CalcConfig config, Sites sites) {
+    List<Hazard> results = new ArrayList<>();
+    for (Site site : sites) {
+      results.add(HazardCalcs.hazard(model, config, site, MoreExecutors.directExecutor()));
+    }
+    return results;
+  }
+
+  /* Maximum relative difference of total curve rates above RATE_FLOOR. */
+  private static double maxError(List<Hazard> expected, List<Hazard> actual) {
+    assertEquals(expected.size(), actual.size());
+    double maxError = 0.0;
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).site.location, actual.get(i).site.location);
+      for (Imt imt : expected.get(i).totalCurves.keySet()) {
+        XySequence e = expected.get(i).totalCurves.get(imt);
+        XySequence a = actual.get(i).totalCurves.get(imt);
+        for (int j = 0; j < e.size(); j++) {
+          if (Math.max(e.y(j), a.y(j)) < RATE_FLOOR) {
+            continue;
+          }
+          maxError = Math.max(maxError, Math.abs(a.y(j) - e.y(j)) / e.y(j));
+        }
+      }
+    }
+    return maxError;
+  }
+
+  @Test
+  public void adaptiveMap() throws Exception {
+    /*
+     * Hazard near a single fault varies too quickly across 0.1 degree map
+     * cells to interpolate at the default tolerance; a coarse tolerance is used
+     * to exercise interpolation. The tolerance is only checked at cell
+     * midpoints and so does not bound the error at every node, but on this map
+     * interpolated rates fall well within it (max. ~6%).
+     */
+    double tolerance = 0.2;
+    CalcConfig config = config(2, tolerance);
+    Sites sites = sites(config);
+    assertTrue(AdaptiveMap.supports(config, sites));
+    List<Hazard> expected = fullMap(config, sites);
+    assertEquals(289, expected.size());
+
+    List<Hazard> actual = new ArrayList<>();
+    int computed = AdaptiveMap.calc(
+        model, config, sites, MoreExecutors.directExecutor(), actual::add);
+    assertTrue(computed < expected.size());
+    assertTrue(maxError(expected, actual) < tolerance);
+  }
+
+  @Test
+  public void adaptiveMapRefined() throws Exception {
+    /*
+     * Where no cell satisfies the tolerance, every node is computed, and only
+     * once, and the map is identical to a full run.
+     */
+    CalcConfig config = config(2, 0.02);
+    Sites sites = sites(config);
+    List<Hazard> expected = fullMap(config, sites);
+
+    List<Hazard> actual = new ArrayList<>();
+    int computed = AdaptiveMap.calc(
+        model, config, sites, MoreExecutors.directExecutor(), actual::add);
+    assertEquals(expected.size(), computed);
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      for (Imt imt : config.hazard.imts) {
+        assertArrayEquals(
+            Doubles.toArray(expected.get(i).totalCurves.get(imt).yValues()),
+            Doubles.toArray(actual.get(i).totalCurves.get(imt).yValues()),
+            0.0);
+      }
+    }
+  }
+
+  @Test
+  public void notSupported() throws Exception {
+    CalcConfig config = config(0, 0.02);
+    assertFalse(AdaptiveMap.supports(config, sites(config)));
+    CalcConfig refined = config(2, 0.02);
+    assertFalse(AdaptiveMap.supports(refined, Sites.fromString("Test,-111.9,40.75", refined)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void refinementRange() throws Exception {
+    config(31, 0.02);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void toleranceRange() throws Exception {
+    config(2, 0.0);
+  }
+}
@@ -0,0 +1,158 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
+import gov.usgs.earthquake.nshmp.geo.Bounds;
+import gov.usgs.earthquake.nshmp.geo.Location;
+import gov.usgs.earthquake.nshmp.gmm.Imt;
+
+@SuppressWarnings("javadoc")
+public class CurveFileTests {
+
+  private static final Path MODEL_PATH =
+      Paths.get("test/gov/usgs/earthquake/nshmp/eq/model/data/fault-wus-model");
+
+  /*
+   * 9 x 6 node map extents near Salt Lake City; hazard is only computed at the
+   * 4 x 4 nodes of the inner polygon, leaving the remaining nodes empty.
+   */
+  private static final String MAP = "{\"type\": \"FeatureCollection\", \"features\": [{" +
+      "\"type\": \"Feature\", \"geometry\": {\"type\": \"Polygon\", \"coordinates\": [[" +
+      "[-112.3, 40.5], [-111.5, 40.5], [-111.5, 41.0], [-112.3, 41.0], [-112.3, 40.5]]]}," +
+      "\"properties\": {\"title\": \"Extents\"}}, {" +
+      "\"type\": \"Feature\", \"geometry\": {\"type\": \"Polygon\", \"coordinates\": [[" +
+      "[-112.0, 40.6], [-111.7, 40.6], [-111.7, 40.9], [-112.0, 40.9], [-112.0, 40.6]]]}," +
+      "\"properties\": {\"spacing\": 0.1}}]}";
+
+  /* The model's single fault has a total rate of ~9e-5 per year. */
+  private static final double RETURN_PERIOD = 20000.0;
+
+  /* Curves are written in single precision. */
+  private static final double FLOAT_TOL = 1e-6;
+
+  private static HazardModel model;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    model = HazardModel.load(MODEL_PATH);
+  }
+
+  private CalcConfig config(Path dir) throws Exception {
+    Path file = folder.getRoot().toPath().resolve("config.json");
+    String json = "{\"output\": {\"directory\": \"" +
+        dir.toString().replace("\\", "\\\\") + "\", \"dataTypes\": [\"BINARY\"]}}";
+    Files.write(file, json.getBytes(UTF_8));
+    return CalcConfig.Builder.copyOf(model.config())
+        .extend(CalcConfig.Builder.fromFile(file))
+        .imts(EnumSet.of(Imt.PGA))
+        .build();
+  }
+
+  @Test
+  public void readExport() throws Exception {
+    Path dir = folder.getRoot().toPath().resolve("curves");
+    CalcConfig config = config(dir);
+    Path mapFile = folder.newFile("map.geojson").toPath();
+    Files.write(mapFile, MAP.getBytes(UTF_8));
+    Sites sites = Sites.fromJson(mapFile, config);
+    Bounds bounds = sites.mapBounds().get();
+    double spacing = sites.mapSpacing().get();
+
+    /* Hazard keyed by the index of its node in the binary file. */
+    Map<Integer, Hazard> hazards = new HashMap<>();
+    HazardExport export = HazardExport.create(
+        model, config, sites, Logger.getLogger(CurveFileTests.class.getName()));
+    for (Site site : sites) {
+      Hazard hazard = HazardCalcs.hazard(model, config, site, MoreExecutors.directExecutor());
+      export.write(hazard);
+      hazards.put(HazardExport.curveIndex(bounds, spacing, site.location), hazard);
+    }
+    export.expire();
+    assertEquals(16, hazards.size());
+
+    CurveFile file = CurveFile.open(export.outputDir()
+        .resolve(Imt.PGA.name())
+        .resolve(HazardExport.CURVE_FILE_BINARY));
+
+    /* Header */
+    assertEquals("nshmp-haz generated curves", file.description());
+    assertEquals(Imt.PGA, file.imt());
+    List<Double> imls = config.hazard.modelCurve(Imt.PGA).xValues();
+    List<Double> fileImls = file.imls();
+    assertEquals(imls.size(), fileImls.size());
+    for (int i = 0; i < imls.size(); i++) {
+      assertEquals(imls.get(i), fileImls.get(i), imls.get(i) * FLOAT_TOL);
+    }
+    assertEquals(bounds, file.bounds());
+    assertEquals(spacing, file.spacing(), 0.0);
+    assertEquals(config.site.vs30, file.vs30(), 0.0);
+    assertEquals(54, file.size());
+    assertEquals(HazardExport.gridSize(bounds, spacing), file.size());
+
+    /* Node order */
+    for (int i = 0; i < file.size(); i++) {
+      Location location = file.location(i);
+      assertEquals(i, HazardExport.curveIndex(bounds, spacing, location));
+      assertEquals(i, file.index(location));
+    }
+    assertEquals(0, file.index(Location.create(41.0, -112.3)));
+    assertEquals(8, file.index(Location.create(41.0, -111.5)));
+    assertEquals(45, file.index(Location.create(40.5, -112.3)));
+    assertEquals(-1, file.index(Location.create(40.0, -112.0)));
+    assertEquals(-1, file.index(Location.create(40.75, -111.0)));
+
+    /* Curves and ground motions */
+    double rate = 1.0 / RETURN_PERIOD;
+    double[] groundMotions = file.groundMotions(RETURN_PERIOD);
+    assertEquals(file.size(), groundMotions.length);
+    for (int i = 0; i < file.size(); i++) {
+      Hazard hazard = hazards.get(i);
+      if (hazard == null) {
+        assertFalse(file.hasCurve(i));
+        assertEquals(0.0, groundMotions[i], 0.0);
+        continue;
+      }
+      assertTrue(file.hasCurve(i));
+      XySequence expected = hazard.totalCurves.get(Imt.PGA);
+      XySequence actual = file.curve(hazard.site.location);
+      assertEquals(expected.size(), actual.size());
+      for (int j = 0; j < expected.size(); j++) {
+        assertEquals(expected.y(j), actual.y(j), expected.y(j) * FLOAT_TOL);
+      }
+
+      /* Total curves have log x-values. */
+      double expectedGm = Math.exp(Deaggregation.IML_INTERPOLATER.findX(expected, rate));
+      assertTrue(groundMotions[i] > 0.0);
+      assertEquals(expectedGm, groundMotions[i], expectedGm * 1e-4);
+    }
+
+    /* Hazard below the target rate at all IMLs has no ground motion. */
+    for (double groundMotion : file.groundMotions(2475.0)) {
+      assertEquals(0.0, groundMotion, 0.0);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static gov.usgs.earthquake.nshmp.calc.ExceedanceModel.NSHM_CEUS_3SIGMA_MAX_INTENSITY;
+import static gov.usgs.earthquake.nshmp.calc.ExceedanceModel.TRUNCATION_3SIGMA_UPPER;
+import static gov.usgs.earthquake.nshmp.calc.ExceedanceModel.TRUNCATION_3SIGMA_UPPER_ARRAY;
+import static gov.usgs.earthquake.nshmp.gmm.Imt.PGA;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.google.common.primitives.Doubles;
+
+import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.util.Maths;
+
+@SuppressWarnings("javadoc")
+public class ExceedanceModelTests {
+
+  /* Maximum difference of the tabulated 3σ models from Maths.normalCcdf(). */
+  private static final double TABLE_TOL = 3.3e-9;
+
+  /* Maximum rounding error of the direct-lookup 3σ model. */
+  private static final double ARRAY_TOL = 1.5e-7;
+
+  private static final double[] MEANS = { -6.0, -2.3, 0.0, 0.7 };
+  private static final double[] SIGMAS = { 0.3, 0.65, 1.0 };
+
+  /* Upper-truncated ccd at x, computed directly. */
+  private static double upper3σ(double μ, double σ, double x) {
+    double pHi = Maths.normalCcdf(μ, σ, μ + 3.0 * σ);
+    return (Maths.normalCcdf(μ, σ, x) - pHi) / (1.0 - pHi);
+  }
+
+  /*
+   * Values are compared over (-4σ, 3σ) on a fine grid; at exactly -4σ the
+   * ε-value computed from x may round to either side of the table limit.
+   */
+  @Test
+  public void truncation3σUpper() {
+    for (double μ : MEANS) {
+      for (double σ : SIGMAS) {
+        for (int i = 1; i < 70000; i++) {
+          double x = μ + (-4.0 + i * 1e-4) * σ;
+          assertEquals(
+              upper3σ(μ, σ, x),
+              TRUNCATION_3SIGMA_UPPER.exceedance(μ, σ, 3.0, PGA, x),
+              TABLE_TOL);
+        }
+        assertEquals(1.0, TRUNCATION_3SIGMA_UPPER.exceedance(μ, σ, 3.0, PGA, μ - 4.1 * σ), 0.0);
+        assertEquals(0.0, TRUNCATION_3SIGMA_UPPER.exceedance(μ, σ, 3.0, PGA, μ + 3.0 * σ), 0.0);
+        assertEquals(0.0, TRUNCATION_3SIGMA_UPPER.exceedance(μ, σ, 3.0, PGA, μ + 5.0 * σ), 0.0);
+      }
+    }
+  }
+
+  @Test
+  public void ceus3σMaxIntensity() {
+    /* PGA clamp of 3 g is not reached; model is the same as 3σ truncation. */
+    double μ = Math.log(0.1);
+    double σ = 0.65;
+    for (int i = 1; i < 7000; i++) {
+      double x = μ + (-4.0 + i * 1e-3) * σ;
+      assertEquals(
+          upper3σ(μ, σ, x),
+          NSHM_CEUS_3SIGMA_MAX_INTENSITY.exceedance(μ, σ, 3.0, PGA, x),
+          TABLE_TOL);
+    }
+  }
+
+  @Test
+  public void truncation3σUpperArray() {
+    for (double μ : MEANS) {
+      for (double σ : SIGMAS) {
+        for (int i = 1; i < 7000; i++) {
+          double x = μ + (-4.0 + i * 1e-3) * σ;
+          assertEquals(
+              upper3σ(μ, σ, x),
+              TRUNCATION_3SIGMA_UPPER_ARRAY.exceedance(μ, σ, 3.0, PGA, x),
+              ARRAY_TOL);
+        }
+        assertEquals(1.0, TRUNCATION_3SIGMA_UPPER_ARRAY.exceedance(μ, σ, 3.0, PGA, μ - 4.1 * σ),
+            0.0);
+        assertEquals(0.0, TRUNCATION_3SIGMA_UPPER_ARRAY.exceedance(μ, σ, 3.0, PGA, μ + 5.0 * σ),
+            0.0);
+      }
+    }
+  }
+
+  @Test
+  public void addExceedance() {
+    /* Weighted sums are identical to weighted sequences. */
+    double[] xs = new double[60];
+    for (int i = 0; i < xs.length; i++) {
+      xs[i] = -8.0 + 0.15 * i;
+    }
+    for (ExceedanceModel model : new ExceedanceModel[] {
+        TRUNCATION_3SIGMA_UPPER,
+        TRUNCATION_3SIGMA_UPPER_ARRAY }) {
+      for (double μ : MEANS) {
+        for (double σ : SIGMAS) {
+          double[] expected = new double[xs.length];
+          double[] ys = Doubles.toArray(model.exceedance(μ, σ, 3.0, PGA,
+              XySequence.create(xs, new double[xs.length])).yValues());
+          for (int i = 0; i < xs.length; i++) {
+            expected[i] = 0.5 + 0.3 * ys[i];
+          }
+          double[] actual = new double[xs.length];
+          Arrays.fill(actual, 0.5);
+          model.addExceedance(μ, σ, 3.0, PGA, xs, 0.3, actual);
+          assertArrayEquals(expected, actual, 0.0);
+        }
+      }
+    }
+  }
+
+}
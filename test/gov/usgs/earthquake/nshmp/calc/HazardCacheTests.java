@@ -0,0 +1,198 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.primitives.Doubles;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
+import gov.usgs.earthquake.nshmp.geo.Location;
+import gov.usgs.earthquake.nshmp.gmm.Gmm;
+import gov.usgs.earthquake.nshmp.gmm.Imt;
+
+@SuppressWarnings("javadoc")
+public class HazardCacheTests {
+
+  private static final Path MODEL_PATH =
+      Paths.get("test/gov/usgs/earthquake/nshmp/eq/model/data/fault-wus-model");
+
+  private static HazardModel model;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    model = HazardModel.load(MODEL_PATH);
+  }
+
+  /* The model config with a cache in a new temporary directory. */
+  private CalcConfig.Builder cachingConfig() throws Exception {
+    Path dir = folder.newFolder("cache").toPath();
+    Path file = folder.getRoot().toPath().resolve("config.json");
+    String json = "{\"performance\": {\"cacheDirectory\": \"" +
+        dir.toString().replace("\\", "\\\\") + "\"}}";
+    Files.write(file, json.getBytes(UTF_8));
+    return CalcConfig.Builder.copyOf(model.config())
+        .extend(CalcConfig.Builder.fromFile(file));
+  }
+
+  private static Site site(String name, double vs30) {
+    return Site.builder()
+        .name(name)
+        .location(Location.create(40.75, -111.9))
+        .vs30(vs30)
+        .build();
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    CalcConfig config = cachingConfig().build();
+    HazardCache cache = HazardCache.forConfig(config).get();
+    Site site = site("Salt Lake City", 760.0);
+
+    assertFalse(cache.get(model, config, site).isPresent());
+    Hazard hazard = HazardCalcs.calculate(model, config, site, MoreExecutors.directExecutor());
+    cache.put(model, config, site, hazard);
+
+    /* Site name is not part of the key. */
+    Optional<Hazard> cached = cache.get(model, config, site("Renamed", 760.0));
+    assertTrue(cached.isPresent());
+    Hazard read = cached.get();
+    assertTrue(read.sourceSetCurves.values().iterator().next().isCached());
+
+    assertEquals(hazard.totalCurves.keySet(), read.totalCurves.keySet());
+    for (Imt imt : hazard.totalCurves.keySet()) {
+      assertCurveEquals(hazard.totalCurves.get(imt), read.totalCurves.get(imt));
+    }
+    assertEquals(hazard.sourceSetCurves.keySet(), read.sourceSetCurves.keySet());
+    for (HazardCurveSet expected : hazard.sourceSetCurves.values()) {
+      HazardCurveSet actual = null;
+      for (HazardCurveSet curveSet : read.sourceSetCurves.get(expected.sourceSet.type())) {
+        if (curveSet.sourceSet == expected.sourceSet) {
+          actual = curveSet;
+        }
+      }
+      for (Imt imt : hazard.totalCurves.keySet()) {
+        Map<Gmm, XySequence> expectedCurves = expected.curveMap.get(imt);
+        Map<Gmm, XySequence> actualCurves = actual.curveMap.get(imt);
+        assertEquals(expectedCurves.keySet(), actualCurves.keySet());
+        for (Gmm gmm : expectedCurves.keySet()) {
+          assertCurveEquals(expectedCurves.get(gmm), actualCurves.get(gmm));
+        }
+      }
+    }
+
+    /* Cached results are recalculated prior to deaggregation. */
+    Hazard recalculated = HazardCache.recalculate(read, MoreExecutors.directExecutor());
+    assertFalse(recalculated.sourceSetCurves.values().iterator().next().isCached());
+    assertSame(hazard, HazardCache.recalculate(hazard, MoreExecutors.directExecutor()));
+  }
+
+  @Test
+  public void miss() throws Exception {
+    CalcConfig.Builder builder = cachingConfig();
+    CalcConfig config = builder.build();
+    HazardCache cache = HazardCache.forConfig(config).get();
+    Site site = site("Salt Lake City", 760.0);
+    Hazard hazard = HazardCalcs.calculate(model, config, site, MoreExecutors.directExecutor());
+    cache.put(model, config, site, hazard);
+    assertTrue(cache.get(model, config, site).isPresent());
+
+    /* Changed config */
+    CalcConfig imtConfig = CalcConfig.Builder.copyOf(config)
+        .imts(EnumSet.of(Imt.PGA))
+        .build();
+    assertFalse(cache.get(model, imtConfig, site).isPresent());
+
+    /* Changed site */
+    assertFalse(cache.get(model, config, site("Salt Lake City", 530.0)).isPresent());
+
+    /* Settings that do not affect hazard curves */
+    CalcConfig threadConfig = CalcConfig.Builder.copyOf(config)
+        .threadCount(ThreadCount.ONE)
+        .build();
+    assertTrue(cache.get(model, threadConfig, site).isPresent());
+  }
+
+  @Test
+  public void key() throws Exception {
+    CalcConfig config = cachingConfig().build();
+    Site site = site("Salt Lake City", 760.0);
+    String key = HazardCache.key("1.0.0", model, config, site).get();
+    assertEquals(key, HazardCache.key("1.0.0", model, config, site).get());
+    assertEquals(key, HazardCache.key("1.0.0", model, config, site("Other", 760.0)).get());
+
+    /* Results computed by other versions of the code are not reused. */
+    assertNotEquals(key, HazardCache.key("1.0.1", model, config, site).get());
+
+    /* Other config and site settings */
+    CalcConfig imtConfig = CalcConfig.Builder.copyOf(config)
+        .imts(EnumSet.of(Imt.PGA))
+        .build();
+    assertNotEquals(key, HazardCache.key("1.0.0", model, imtConfig, site).get());
+    assertNotEquals(key,
+        HazardCache.key("1.0.0", model, config, site("Salt Lake City", 530.0)).get());
+  }
+
+  @Test
+  public void codeVersion() throws Exception {
+    Path classes = folder.newFolder("classes").toPath();
+    Path pkg = Files.createDirectories(classes.resolve("a/b"));
+    Files.write(pkg.resolve("A.class"), new byte[] { 1, 2, 3 });
+    Files.write(pkg.resolve("B.class"), new byte[] { 4, 5, 6 });
+    Files.write(pkg.resolve("notes.txt"), new byte[] { 7 });
+    String version = HazardCache.codeVersion(classes);
+    assertEquals(version, HazardCache.codeVersion(classes));
+
+    /* Only class files are considered. */
+    Files.write(pkg.resolve("notes.txt"), new byte[] { 8 });
+    assertEquals(version, HazardCache.codeVersion(classes));
+
+    /* Any change to compiled code changes the version. */
+    Files.write(pkg.resolve("B.class"), new byte[] { 4, 5, 7 });
+    String changed = HazardCache.codeVersion(classes);
+    assertNotEquals(version, changed);
+    Files.write(pkg.resolve("C.class"), new byte[] { 9 });
+    assertNotEquals(changed, HazardCache.codeVersion(classes));
+
+    /* Jar files are hashed whole. */
+    Path jar = folder.newFile("code.jar").toPath();
+    Files.write(jar, new byte[] { 1, 2, 3 });
+    String jarVersion = HazardCache.codeVersion(jar);
+    Files.write(jar, new byte[] { 1, 2, 4 });
+    assertNotEquals(jarVersion, HazardCache.codeVersion(jar));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void codeVersionMissing() throws Exception {
+    HazardCache.codeVersion(folder.getRoot().toPath().resolve("missing"));
+  }
+
+  private static void assertCurveEquals(XySequence expected, XySequence actual) {
+    assertArrayEquals(
+        Doubles.toArray(expected.yValues()),
+        Doubles.toArray(actual.yValues()),
+        0.0);
+  }
+
+}
@@ -0,0 +1,129 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.primitives.Doubles;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
+import gov.usgs.earthquake.nshmp.geo.Location;
+import gov.usgs.earthquake.nshmp.gmm.Gmm;
+import gov.usgs.earthquake.nshmp.gmm.Imt;
+
+@SuppressWarnings("javadoc")
+public class SiteSweepTests {
+
+  private static final Path MODEL_PATH =
+      Paths.get("test/gov/usgs/earthquake/nshmp/eq/model/data/fault-wus-model");
+
+  private static HazardModel model;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    model = HazardModel.load(MODEL_PATH);
+  }
+
+  private CalcConfig config(ThreadCount threadCount) throws Exception {
+    Path file = folder.newFile().toPath();
+    String json = "{\"site\": {\"vs30Sweep\": [760.0, 530.0, 259.0]}}";
+    Files.write(file, json.getBytes(UTF_8));
+    return CalcConfig.Builder.copyOf(model.config())
+        .extend(CalcConfig.Builder.fromFile(file))
+        .threadCount(threadCount)
+        .build();
+  }
+
+  @Test
+  public void sweepSingleThreaded() throws Exception {
+    checkSweep(config(ThreadCount.ONE), MoreExecutors.directExecutor());
+  }
+
+  @Test
+  public void sweepMultiThreaded() throws Exception {
+    ExecutorService exec = Executors.newFixedThreadPool(4);
+    try {
+      checkSweep(config(ThreadCount.ALL), exec);
+    } finally {
+      exec.shutdown();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void sweepLocations() throws Exception {
+    CalcConfig config = config(ThreadCount.ONE);
+    HazardCalcs.hazard(model, config, Arrays.asList(
+        Site.builder().location(Location.create(40.75, -111.9)).build(),
+        Site.builder().location(Location.create(40.8, -111.9)).build()),
+        MoreExecutors.directExecutor());
+  }
+
+  /* A sweep is identical to separate calculations for each site class. */
+  private static void checkSweep(CalcConfig config, Executor exec) {
+    Site site = Site.builder()
+        .name("Salt Lake City")
+        .location(Location.create(40.75, -111.9))
+        .build();
+    List<Site> sites = SiteSweep.sites(config, site);
+    List<Hazard> sweep = HazardCalcs.hazard(model, config, sites, exec);
+    assertEquals(config.site.vs30Sweep.size(), sweep.size());
+
+    for (int i = 0; i < sites.size(); i++) {
+      Hazard expected = HazardCalcs.hazard(model, config, sites.get(i), exec);
+      Hazard actual = sweep.get(i);
+      assertEquals(config.site.vs30Sweep.get(i), actual.site.vs30, 0.0);
+      assertEquals(site.name, actual.site.name);
+
+      for (Imt imt : config.hazard.imts) {
+        assertCurveEquals(expected.totalCurves.get(imt), actual.totalCurves.get(imt));
+      }
+      assertEquals(expected.sourceSetCurves.size(), actual.sourceSetCurves.size());
+      HazardCurveSet expectedSet = expected.sourceSetCurves.values().iterator().next();
+      HazardCurveSet actualSet = actual.sourceSetCurves.values().iterator().next();
+      for (Imt imt : config.hazard.imts) {
+        Map<Gmm, XySequence> expectedCurves = expectedSet.curveMap.get(imt);
+        Map<Gmm, XySequence> actualCurves = actualSet.curveMap.get(imt);
+        assertEquals(expectedCurves.keySet(), actualCurves.keySet());
+        for (Gmm gmm : expectedCurves.keySet()) {
+          assertCurveEquals(expectedCurves.get(gmm), actualCurves.get(gmm));
+        }
+      }
+    }
+
+    /* Site terms change hazard. */
+    XySequence stiff = sweep.get(0).totalCurves.get(Imt.PGA);
+    XySequence soft = sweep.get(2).totalCurves.get(Imt.PGA);
+    assertFalse(Arrays.equals(
+        Doubles.toArray(stiff.yValues()),
+        Doubles.toArray(soft.yValues())));
+  }
+
+  private static void assertCurveEquals(XySequence expected, XySequence actual) {
+    assertArrayEquals(
+        Doubles.toArray(expected.yValues()),
+        Doubles.toArray(actual.yValues()),
+        0.0);
+  }
+
+}
@@ -0,0 +1,112 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.eq.model.Rupture;
+import gov.usgs.earthquake.nshmp.eq.model.Source;
+import gov.usgs.earthquake.nshmp.eq.model.SourceType;
+import gov.usgs.earthquake.nshmp.geo.Location;
+
+@SuppressWarnings("javadoc")
+public class SourceInputListTests {
+
+  private static final Source SOURCE = new Source() {
+    @Override
+    public String name() {
+      return "Test source";
+    }
+
+    @Override
+    public int size() {
+      return 0;
+    }
+
+    @Override
+    public int id() {
+      return 0;
+    }
+
+    @Override
+    public SourceType type() {
+      return SourceType.FAULT;
+    }
+
+    @Override
+    public Location location(Location site) {
+      return site;
+    }
+
+    @Override
+    public List<XySequence> mfds() {
+      return null;
+    }
+
+    @Override
+    public Iterator<Rupture> iterator() {
+      return null;
+    }
+  };
+
+  private static HazardInput input(double rate, double Mw, double rJB) {
+    return new HazardInput(
+        rate, Mw, rJB, rJB + 1.0, rJB, 90.0, 10.0, 1.0, 5.0, 0.0,
+        760.0, true, Double.NaN, Double.NaN);
+  }
+
+  @Test
+  public void deduplicate() {
+    SourceInputList inputs = new SourceInputList(SOURCE);
+    inputs.add(input(0.1, 6.5, 10.0));
+    inputs.add(input(0.2, 7.0, 10.0));
+    inputs.add(input(0.3, 6.5, 10.0));
+    inputs.add(input(0.4, 6.5, 20.0));
+    inputs.add(input(0.5, 7.0, 10.0));
+
+    SourceInputList deduplicated = inputs.deduplicate();
+    assertSame(SOURCE, deduplicated.parent);
+    assertEquals(3, deduplicated.size());
+    assertEquals(5, deduplicated.inputCount());
+
+    /* first occurrence order is preserved */
+    assertEquals(input(0.0, 6.5, 10.0), deduplicated.get(0));
+    assertEquals(input(0.0, 7.0, 10.0), deduplicated.get(1));
+    assertEquals(input(0.0, 6.5, 20.0), deduplicated.get(2));
+
+    /* rates are summed in input order */
+    assertEquals(0.1 + 0.3, deduplicated.get(0).rate, 0.0);
+    assertEquals(0.2 + 0.5, deduplicated.get(1).rate, 0.0);
+    assertEquals(0.4, deduplicated.get(2).rate, 0.0);
+
+    /* collapsed count survives a site update */
+    Site site = Site.builder()
+        .location(Location.create(34.0, -118.0))
+        .vs30(530.0)
+        .build();
+    SourceInputList updated = deduplicated.forSite(site);
+    assertEquals(3, updated.size());
+    assertEquals(5, updated.inputCount());
+    assertEquals(530.0, updated.get(0).vs30, 0.0);
+  }
+
+  @Test
+  public void deduplicateUnique() {
+    SourceInputList inputs = new SourceInputList(SOURCE);
+    inputs.add(input(0.1, 6.5, 10.0));
+    inputs.add(input(0.2, 7.0, 10.0));
+    inputs.add(input(0.3, 6.5, 20.0));
+    assertSame(inputs, inputs.deduplicate());
+    assertEquals(3, inputs.inputCount());
+
+    SourceInputList empty = new SourceInputList(SOURCE);
+    assertSame(empty, empty.deduplicate());
+    assertEquals(0, empty.inputCount());
+  }
+
+}
@@ -1,10 +1,12 @@
 package gov.usgs.earthquake.nshmp.eq.model;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -13,6 +15,10 @@ import org.junit.Test;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 
 import gov.usgs.earthquake.nshmp.HazardCalc;
 import gov.usgs.earthquake.nshmp.calc.Hazard;
@@ -46,10 +52,43 @@ public class NshmTestsSmall {
     compareCurves("fault-wus", NshmpSite.SALT_LAKE_CITY_UT);
   }
 
+  /*
+   * Results are compared with a small relative tolerance; the last digits of
+   * some values depend on the JDK (e.g. Math.exp and Math.pow intrinsics).
+   */
+  private static final double TOLERANCE = 1e-12;
+
   private static void compareCurves(String id, NamedLocation loc) throws Exception {
-    String expected = readExpected(id, loc);
-    String actual = generateActual(id, loc);
-    assertEquals(expected, actual);
+    JsonParser parser = new JsonParser();
+    JsonElement expected = parser.parse(readExpected(id, loc));
+    JsonElement actual = parser.parse(generateActual(id, loc));
+    compare("", expected, actual);
+  }
+
+  private static void compare(String path, JsonElement expected, JsonElement actual) {
+    if (expected.isJsonObject()) {
+      JsonObject e = expected.getAsJsonObject();
+      JsonObject a = actual.getAsJsonObject();
+      assertEquals(path, e.keySet(), a.keySet());
+      for (Entry<String, JsonElement> entry : e.entrySet()) {
+        String key = entry.getKey();
+        compare(path + "/" + key, entry.getValue(), a.get(key));
+      }
+    } else if (expected.isJsonArray()) {
+      JsonArray e = expected.getAsJsonArray();
+      JsonArray a = actual.getAsJsonArray();
+      assertEquals(path, e.size(), a.size());
+      for (int i = 0; i < e.size(); i++) {
+        compare(path + "[" + i + "]", e.get(i), a.get(i));
+      }
+    } else if (expected.isJsonPrimitive() && expected.getAsJsonPrimitive().isNumber()) {
+      double e = expected.getAsDouble();
+      double a = actual.getAsDouble();
+      assertTrue(path + " expected:<" + e + "> but was:<" + a + ">",
+          Math.abs(a - e) <= TOLERANCE * Math.abs(e));
+    } else {
+      assertEquals(path, expected, actual);
+    }
   }
 
   private static final String MODEL_SUFFIX = "-model";
@@ -0,0 +1,401 @@
+package gov.usgs.earthquake.nshmp.eq.model;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.logging.LogManager;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import gov.usgs.earthquake.nshmp.calc.CalcConfig;
+import gov.usgs.earthquake.nshmp.calc.Hazard;
+import gov.usgs.earthquake.nshmp.calc.HazardCalcs;
+import gov.usgs.earthquake.nshmp.calc.Site;
+import gov.usgs.earthquake.nshmp.calc.Sites;
+import gov.usgs.earthquake.nshmp.calc.ThreadCount;
+
+/**
+ * End-to-end performance regression tests. The calculations described in
+ * {@code etc/examples} and a subset of the models in {@code etc/peer} are run
+ * through {@link HazardCalcs#hazard} (and {@link HazardCalcs#deaggReturnPeriod}
+ * where noted) at fixed thread counts. For each case, wall time, allocated bytes,
+ * allocation rate, and peak heap are recorded and compared to a locally stored
+ * baseline; the test fails if any case is slower, allocates more, or uses more
+ * heap than its baseline by more than a set tolerance.
+ *
+ * <p>Because results are machine dependent, no baseline is committed. Run
+ * {@link #main(String[])} to record a baseline (and again whenever a slower or
+ * larger result is expected); the test is skipped if no baseline exists.
+ * Cases that are absent from the baseline are reported but not checked.
+ * Examples 5–7 use the 2008 NSHM, which is only run if present in a sibling
+ * {@code nshm-cous-2008} directory.
+ *
+ * <p>These tests take several minutes and are not run as part of the standard
+ * test task; use {@code gradle performanceTest}.
+ *
+ * <p>Each case is run once to warm up and then {@code REPETITIONS} times,
+ * retaining the minimum time and allocation and the maximum peak heap.
+ * Allocation is measured using the per-thread allocation counters of the
+ * calling thread and any calculation threads. Peak heap is the sum of the peak
+ * usage of all heap memory pools, reset after a garbage collection before each
+ * case, and is therefore only an approximation.
+ */
+@SuppressWarnings("javadoc")
+public class PerformanceTests {
+
+  /*
+   * These tests use project relative file paths to read/write directly to/from
+   * the source tree.
+   */
+  private static final Path DATA_PATH = Paths.get("test/gov/usgs/earthquake/nshmp/eq/model/data");
+  private static final Path BASELINE = DATA_PATH.resolve("performance-baseline.json");
+
+  private static final Path PEER_DIR = Paths.get("etc/peer/models");
+  private static final Path EXAMPLE_DIR = Paths.get("etc/examples");
+  private static final Path NSHM_2008_WUS = Paths.get("../nshm-cous-2008/Western US");
+
+  /*
+   * PEER models that span fault, area, and grid sources, floating ruptures,
+   * and aleatory variability; the slowest cases are excluded.
+   */
+  private static final List<String> PEER_MODELS = ImmutableList.of(
+      "Set1-Case2-fast",
+      "Set1-Case5-fast",
+      "Set1-Case10-fast",
+      "Set1-Case11-fast",
+      "Set2-Case2a-fast",
+      "Set2-Case4a-fast",
+      "Set2-Case5b");
+
+  private static final List<Integer> THREADS = ImmutableList.of(1, 4);
+  private static final int REPETITIONS = 3;
+  private static final double RETURN_PERIOD = 2475.0;
+
+  /* Fractional tolerances. */
+  private static final double TIME_TOLERANCE = 0.25;
+  private static final double ALLOCATION_TOLERANCE = 0.10;
+  private static final double HEAP_TOLERANCE = 0.25;
+
+  /*
+   * Absolute differences below which a case is not considered to have
+   * regressed; avoids failures due to timer and heap sampling noise in cases
+   * that complete in a few milliseconds.
+   */
+  private static final double TIME_SLACK = 20.0;
+  private static final double ALLOCATION_SLACK = 1.0;
+  private static final double HEAP_SLACK = 16.0;
+
+  private static final Gson GSON = new GsonBuilder()
+      .setPrettyPrinting()
+      .create();
+
+  @Test
+  public void testPerformance() throws Exception {
+    assumeTrue("No performance baseline", Files.exists(BASELINE));
+    Map<String, Result> expected = readBaseline();
+    Map<String, Result> actual = run();
+    List<String> regressions = new ArrayList<>();
+    for (Entry<String, Result> entry : actual.entrySet()) {
+      Result baseline = expected.get(entry.getKey());
+      if (baseline != null) {
+        entry.getValue().compare(entry.getKey(), baseline, regressions);
+      }
+    }
+    assertTrue(
+        "Performance regressions:\n  " + String.join("\n  ", regressions),
+        regressions.isEmpty());
+  }
+
+  /* Define all cases. */
+  private static List<Case> cases() {
+    List<Case> cases = new ArrayList<>();
+
+    Path set1Case1 = PEER_DIR.resolve("Set1-Case1");
+    cases.add(new Case("example-1", set1Case1, null,
+        "Test Site, -122.0, 38.0", false));
+    cases.add(new Case("example-2", set1Case1,
+        EXAMPLE_DIR.resolve("2-custom-config/config.json"),
+        "San Francisco, -122.40, 37.75", true));
+    cases.add(new Case("example-3", set1Case1,
+        EXAMPLE_DIR.resolve("3-sites-file/config.json"),
+        EXAMPLE_DIR.resolve("3-sites-file/sites.csv").toString(), true));
+    cases.add(new Case("example-4", set1Case1,
+        EXAMPLE_DIR.resolve("4-hazard-map/config.json"),
+        EXAMPLE_DIR.resolve("4-hazard-map/map.geojson").toString(), false));
+
+    if (Files.exists(NSHM_2008_WUS)) {
+      cases.add(new Case("example-5", NSHM_2008_WUS,
+          EXAMPLE_DIR.resolve("5-complex-model/config-sites.json"),
+          EXAMPLE_DIR.resolve("5-complex-model/sites.geojson").toString(), false));
+      cases.add(new Case("example-6", NSHM_2008_WUS,
+          EXAMPLE_DIR.resolve("6-enhanced-output/config.json"),
+          EXAMPLE_DIR.resolve("6-enhanced-output/sites.geojson").toString(), false));
+      cases.add(new Case("example-7", NSHM_2008_WUS,
+          EXAMPLE_DIR.resolve("7-deaggregation/config.json"),
+          EXAMPLE_DIR.resolve("7-deaggregation/sites.geojson").toString(), true));
+    }
+
+    for (String id : PEER_MODELS) {
+      Path model = PEER_DIR.resolve(id);
+      cases.add(new Case(
+          "peer-" + id,
+          model,
+          null,
+          model.resolve("sites.csv").toString(),
+          false));
+    }
+    return cases;
+  }
+
+  private static Map<String, Result> run() throws Exception {
+
+    /* NOTE this is disabling all logging in Loader and HazardCalc */
+    LogManager.getLogManager().reset();
+
+    Map<String, Result> results = new LinkedHashMap<>();
+    for (int threads : THREADS) {
+
+      /* Retain calculation threads to track their allocations. */
+      List<Thread> calcThreads = new ArrayList<>();
+      calcThreads.add(Thread.currentThread());
+      ExecutorService exec = MoreExecutors.newDirectExecutorService();
+      if (threads > 1) {
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(
+            threads,
+            runnable -> {
+              Thread thread = new Thread(runnable);
+              calcThreads.add(thread);
+              return thread;
+            });
+        pool.prestartAllCoreThreads();
+        exec = pool;
+      }
+
+      /* Only retain the most recently used model. */
+      Path modelPath = null;
+      HazardModel model = null;
+      for (Case c : cases()) {
+        if (!c.model.equals(modelPath)) {
+          model = null;
+          model = HazardModel.load(c.model);
+          modelPath = c.model;
+        }
+        String key = c.id + " [" + threads + "]";
+        Result result = c.run(model, threads, exec, calcThreads);
+        System.out.println(String.format("%-36s %s", key, result));
+        results.put(key, result);
+      }
+      exec.shutdown();
+    }
+    return results;
+  }
+
+  private static final class Case {
+
+    final String id;
+    final Path model;
+    final Optional<Path> config;
+    final String sites;
+    final boolean deagg;
+
+    Case(String id, Path model, Path config, String sites, boolean deagg) {
+      this.id = id;
+      this.model = model;
+      this.config = Optional.ofNullable(config);
+      this.sites = sites;
+      this.deagg = deagg;
+    }
+
+    Result run(
+        HazardModel model,
+        int threads,
+        ExecutorService exec,
+        List<Thread> calcThreads) throws IOException {
+
+      CalcConfig.Builder builder = CalcConfig.Builder.copyOf(model.config());
+      if (config.isPresent()) {
+        builder.extend(CalcConfig.Builder.fromFile(config.get()));
+      }
+      /*
+       * The configured thread count only selects between the single and
+       * multi-threaded calculation paths; the number of threads used by the
+       * latter is that of the supplied executor.
+       */
+      CalcConfig config = builder
+          .threadCount(threads == 1 ? ThreadCount.ONE : ThreadCount.ALL)
+          .build();
+      List<Site> siteList = ImmutableList.copyOf(readSites(sites, config));
+
+      calc(model, config, siteList, exec);
+      Result result = null;
+      for (int i = 0; i < REPETITIONS; i++) {
+        System.gc();
+        resetPeakHeap();
+        long allocStart = allocatedBytes(calcThreads);
+        long timeStart = System.nanoTime();
+        calc(model, config, siteList, exec);
+        long time = System.nanoTime() - timeStart;
+        long alloc = allocatedBytes(calcThreads) - allocStart;
+        Result repetition = new Result(time, alloc, peakHeap());
+        result = (result == null) ? repetition : result.best(repetition);
+      }
+      return result;
+    }
+
+    private void calc(HazardModel model, CalcConfig config, List<Site> sites, ExecutorService exec) {
+      for (Site site : sites) {
+        Hazard hazard = HazardCalcs.hazard(model, config, site, exec);
+        if (deagg) {
+          HazardCalcs.deaggReturnPeriod(hazard, RETURN_PERIOD, exec);
+        }
+      }
+    }
+  }
+
+  private static Sites readSites(String sites, CalcConfig config) throws IOException {
+    if (sites.endsWith(".csv")) {
+      return Sites.fromCsv(Paths.get(sites), config);
+    }
+    if (sites.endsWith(".geojson")) {
+      return Sites.fromJson(Paths.get(sites), config);
+    }
+    return Sites.fromString(sites, config);
+  }
+
+  private static long allocatedBytes(List<Thread> threads) {
+    com.sun.management.ThreadMXBean bean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long[] ids = threads.stream().mapToLong(Thread::getId).toArray();
+    long sum = 0;
+    for (long bytes : bean.getThreadAllocatedBytes(ids)) {
+      sum += Math.max(0, bytes);
+    }
+    return sum;
+  }
+
+  private static void resetPeakHeap() {
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        pool.resetPeakUsage();
+      }
+    }
+  }
+
+  private static long peakHeap() {
+    long sum = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        sum += pool.getPeakUsage().getUsed();
+      }
+    }
+    return sum;
+  }
+
+  private static final class Result {
+
+    final double timeMs;
+    final double allocMb;
+    final double allocRateMbs;
+    final double peakHeapMb;
+
+    Result(long timeNanos, long allocBytes, long peakHeapBytes) {
+      this(timeNanos / 1e6, allocBytes / 1048576.0, peakHeapBytes / 1048576.0);
+    }
+
+    Result(double timeMs, double allocMb, double peakHeapMb) {
+      this.timeMs = timeMs;
+      this.allocMb = allocMb;
+      this.allocRateMbs = (timeMs > 0.0) ? allocMb / timeMs * 1000.0 : 0.0;
+      this.peakHeapMb = peakHeapMb;
+    }
+
+    Result best(Result that) {
+      return new Result(
+          Math.min(timeMs, that.timeMs),
+          Math.min(allocMb, that.allocMb),
+          Math.max(peakHeapMb, that.peakHeapMb));
+    }
+
+    void compare(String key, Result baseline, List<String> regressions) {
+      check(key, "time (ms)", timeMs, baseline.timeMs,
+          TIME_TOLERANCE, TIME_SLACK, regressions);
+      check(key, "allocation (MB)", allocMb, baseline.allocMb,
+          ALLOCATION_TOLERANCE, ALLOCATION_SLACK, regressions);
+      check(key, "peak heap (MB)", peakHeapMb, baseline.peakHeapMb,
+          HEAP_TOLERANCE, HEAP_SLACK, regressions);
+    }
+
+    private static void check(
+        String key,
+        String metric,
+        double actual,
+        double expected,
+        double tolerance,
+        double slack,
+        List<String> regressions) {
+
+      if (actual > expected * (1.0 + tolerance) && actual - expected > slack) {
+        regressions.add(String.format(
+            "%s %s: %.1f > %.1f (+%.0f%%)",
+            key, metric, actual, expected, (actual / expected - 1.0) * 100.0));
+      }
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "time: %10.1f ms  alloc: %9.1f MB (%7.1f MB/s)  peak heap: %7.1f MB",
+          timeMs, allocMb, allocRateMbs, peakHeapMb);
+    }
+  }
+
+  private static Map<String, Result> readBaseline() throws IOException {
+    try (Reader reader = Files.newBufferedReader(BASELINE, UTF_8)) {
+      return GSON.fromJson(reader, new TypeToken<LinkedHashMap<String, Result>>() {}.getType());
+    }
+  }
+
+  private static void writeBaseline(Map<String, Result> results) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(BASELINE, UTF_8)) {
+      GSON.toJson(results, writer);
+    }
+  }
+
+  /*
+   * Run all cases and write a new baseline. Supply a 'compare' argument to
+   * instead print any regressions relative to the current baseline.
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length > 0 && args[0].equals("compare")) {
+      new PerformanceTests().testPerformance();
+      return;
+    }
+    writeBaseline(run());
+  }
+
+}
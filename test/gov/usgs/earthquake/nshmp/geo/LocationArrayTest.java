@@ -0,0 +1,209 @@
+package gov.usgs.earthquake.nshmp.geo;
+
+import static gov.usgs.earthquake.nshmp.geo.Locations.horzDistanceFast;
+import static gov.usgs.earthquake.nshmp.geo.Locations.vertDistance;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.primitives.Ints;
+
+import gov.usgs.earthquake.nshmp.eq.fault.surface.DefaultGriddedSurface;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.GriddedSurface;
+import gov.usgs.earthquake.nshmp.eq.model.Distance;
+
+@SuppressWarnings("javadoc")
+public class LocationArrayTest {
+
+  private static final LocationList TRACE = LocationList.create(
+      Location.create(40.0, -112.0),
+      Location.create(40.25, -111.9),
+      Location.create(40.6, -111.95));
+
+  private static GriddedSurface dipping;
+  private static GriddedSurface vertical;
+  private static List<Location> sites;
+
+  @BeforeClass
+  public static void setUp() {
+    dipping = surface(35.0);
+    vertical = surface(90.0);
+
+    sites = new ArrayList<>();
+    /* On the upper edge of both surfaces. */
+    sites.add(Location.create(40.25, -111.9));
+    /* Above the dipping surface. */
+    sites.add(Location.create(40.3, -111.8));
+    /* Near both surfaces. */
+    sites.add(Location.create(40.1, -112.1));
+    sites.add(Location.create(40.65, -111.9));
+    /* Far from both surfaces. */
+    sites.add(Location.create(42.0, -114.0));
+    sites.add(Location.create(38.5, -111.9));
+  }
+
+  private static GriddedSurface surface(double dip) {
+    return DefaultGriddedSurface.builder()
+        .trace(TRACE)
+        .depth(1.0)
+        .dip(dip)
+        .width(20.0)
+        .spacing(1.0)
+        .build();
+  }
+
+  private static LocationArray array(GriddedSurface surface) {
+    return LocationList.create(surface).coordinates();
+  }
+
+  /* [horizontal, linear²] minima over locations [from, to) by exhaustive search. */
+  private static double[] bruteMinima(Location site, LocationList locs, int from, int to) {
+    double[] minima = { Double.MAX_VALUE, Double.MAX_VALUE };
+    for (int i = from; i < to; i++) {
+      double horz = horzDistanceFast(site, locs.get(i));
+      double vert = vertDistance(site, locs.get(i));
+      minima[0] = Math.min(minima[0], horz);
+      minima[1] = Math.min(minima[1], horz * horz + vert * vert);
+    }
+    return minima;
+  }
+
+  @Test
+  public void locations() {
+    LocationList locs = LocationList.create(dipping);
+    LocationArray array = array(dipping);
+    assertEquals(locs.size(), array.size());
+    for (int i = 0; i < locs.size(); i++) {
+      assertEquals(locs.get(i), array.location(i));
+      Location site = sites.get(i % sites.size());
+      assertEquals(horzDistanceFast(site, locs.get(i)), array.horzDistanceFast(site, i), 0.0);
+    }
+  }
+
+  @Test
+  public void minDistances() {
+    LocationList locs = LocationList.create(dipping);
+    LocationArray array = array(dipping);
+    Random random = new Random(11L);
+    for (Location site : sites) {
+      /* Complete array */
+      double[] minima = { Double.MAX_VALUE, Double.MAX_VALUE };
+      array.minDistances(site, 0, array.size(), minima);
+      assertArrayEquals(bruteMinima(site, locs, 0, locs.size()), minima, 0.0);
+
+      /* Arbitrary ranges, including those that start or end within a block. */
+      for (int k = 0; k < 100; k++) {
+        int from = random.nextInt(array.size());
+        int to = from + random.nextInt(array.size() - from + 1);
+        minima = new double[] { Double.MAX_VALUE, Double.MAX_VALUE };
+        array.minDistances(site, from, to, minima);
+        assertArrayEquals(bruteMinima(site, locs, from, to), minima, 0.0);
+      }
+
+      /* Successive ranges, e.g. rows of a window into a grid. */
+      int split = random.nextInt(array.size());
+      minima = new double[] { Double.MAX_VALUE, Double.MAX_VALUE };
+      array.minDistances(site, split, array.size(), minima);
+      array.minDistances(site, 0, split, minima);
+      assertArrayEquals(bruteMinima(site, locs, 0, locs.size()), minima, 0.0);
+    }
+  }
+
+  @Test
+  public void distance() {
+    for (GriddedSurface surface : new GriddedSurface[] { dipping, vertical }) {
+      LocationArray array = array(surface);
+      /* Only the upper edge of vertical surfaces is considered. */
+      int size = (surface.dip() > 89) ? surface.getNumCols() : array.size();
+      for (Location site : sites) {
+        double[] minima = { Double.MAX_VALUE, Double.MAX_VALUE };
+        array.minDistances(site, 0, size, minima);
+        Distance expected = Distance.compute(surface, site);
+        assertEquals(expected.rRup, Math.pow(minima[1], 0.5), 0.0);
+        /* rJB is zeroed for sites above the surface. */
+        if (expected.rJB > 0.0) {
+          assertEquals(expected.rJB, minima[0], 0.0);
+        } else {
+          assertTrue(minima[0] < surface.getAveGridSpacing());
+        }
+      }
+    }
+    assertEquals(0.0, Distance.compute(dipping, sites.get(1)).rJB, 0.0);
+  }
+
+  @Test
+  public void indicesWithin() {
+    for (GriddedSurface surface : new GriddedSurface[] { dipping, vertical }) {
+      LocationList locs = LocationList.create(surface);
+      LocationArray array = array(surface);
+      for (Location site : sites) {
+        for (double distance : new double[] { 5.0, 20.0, 50.0, 300.0 }) {
+          Predicate<Location> filter = Locations.distanceAndRectangleFilter(site, distance);
+          List<Integer> expected = new ArrayList<>();
+          for (int i = 0; i < locs.size(); i++) {
+            if (filter.test(locs.get(i))) {
+              expected.add(i);
+            }
+          }
+          assertArrayEquals(Ints.toArray(expected), array.indicesWithin(site, distance));
+        }
+      }
+    }
+    assertEquals(array(dipping).size(),
+        array(dipping).indicesWithin(sites.get(1), 300.0).length);
+  }
+
+  @Test
+  public void horzBound() {
+    LocationList locs = LocationList.create(dipping);
+    Random random = new Random(7L);
+    List<Location> checked = new ArrayList<>(sites);
+    for (int k = 0; k < 50; k++) {
+      checked.add(Location.create(
+          39.5 + 1.5 * random.nextDouble(),
+          -112.5 + 1.0 * random.nextDouble()));
+    }
+    for (Location site : checked) {
+      for (int k = 0; k < 100; k++) {
+        int from = random.nextInt(locs.size());
+        int to = Math.min(locs.size(), from + 1 + random.nextInt(4 * LocationArray.BLOCK_SIZE));
+        double latMin = Double.POSITIVE_INFINITY, latMax = Double.NEGATIVE_INFINITY;
+        double lonMin = Double.POSITIVE_INFINITY, lonMax = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+          latMin = Math.min(latMin, locs.get(i).latRad());
+          latMax = Math.max(latMax, locs.get(i).latRad());
+          lonMin = Math.min(lonMin, locs.get(i).lonRad());
+          lonMax = Math.max(lonMax, locs.get(i).lonRad());
+        }
+        double bound = LocationArray.horzBound(
+            site.latRad(), site.lonRad(), latMin, latMax, lonMin, lonMax);
+        double min = bruteMinima(site, locs, from, to)[0];
+        assertTrue(bound <= min);
+        /* Sites within the box */
+        if (site.latRad() >= latMin && site.latRad() <= latMax &&
+            site.lonRad() >= lonMin && site.lonRad() <= lonMax) {
+          assertEquals(0.0, bound, 0.0);
+        }
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void createEmpty() {
+    LocationArray.create(new ArrayList<Location>());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void minDistancesRange() {
+    array(dipping).minDistances(sites.get(0), 10, 5, new double[2]);
+  }
+
+}
@@ -0,0 +1,114 @@
+package gov.usgs.earthquake.nshmp.geo;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class LocationBandTest {
+
+  private static final double[] DISTANCES = { 10.0, 55.5, 200.0, 1000.0 };
+
+  /* Nodes of a 0.1° grid, as in a grid source set. */
+  private static LocationArray grid;
+
+  /* Irregularly spaced nodes. */
+  private static LocationArray scattered;
+
+  @BeforeClass
+  public static void setUp() {
+    List<Location> nodes = new ArrayList<>();
+    for (double lat = 35.0; lat <= 45.0001; lat += 0.1) {
+      for (double lon = -120.0; lon <= -105.0001; lon += 0.1) {
+        nodes.add(Location.create(lat, lon));
+      }
+    }
+    grid = LocationArray.create(nodes);
+
+    Random random = new Random(5L);
+    nodes.clear();
+    for (int i = 0; i < 5000; i++) {
+      nodes.add(Location.create(
+          35.0 + 10.0 * random.nextDouble(),
+          -120.0 + 15.0 * random.nextDouble()));
+    }
+    scattered = LocationArray.create(nodes);
+  }
+
+  /* Sites along a row, including some that coincide with grid nodes. */
+  private static List<Location> row(double lat) {
+    List<Location> sites = new ArrayList<>();
+    for (double lon = -122.0; lon <= -103.0; lon += 0.35) {
+      sites.add(Location.create(lat, lon));
+    }
+    sites.add(Location.create(lat, -112.0));
+    return sites;
+  }
+
+  private static void checkFilter(LocationArray locations, double lat, double distance) {
+    List<Location> sites = row(lat);
+    LocationBand band = LocationBand.create(locations, sites.get(0), distance);
+    int[] indices = new int[band.size()];
+    double[] distances = new double[band.size()];
+    for (Location site : sites) {
+      assertTrue(band.supports(site, distance));
+      int count = band.filter(site, indices, distances);
+      int[] expected = locations.indicesWithin(site, distance);
+      assertArrayEquals(expected, Arrays.copyOf(indices, count));
+      for (int k = 0; k < count; k++) {
+        assertEquals(locations.horzDistanceFast(site, indices[k]), distances[k], 0.0);
+      }
+    }
+  }
+
+  @Test
+  public void filter() {
+    for (LocationArray locations : new LocationArray[] { grid, scattered }) {
+      for (double lat : new double[] { 34.0, 35.0, 38.7, 40.0, 45.0, 47.3 }) {
+        for (double distance : DISTANCES) {
+          checkFilter(locations, lat, distance);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void size() {
+    Location site = Location.create(40.0, -112.0);
+    /* Every node lies within the latitude range of a large filter. */
+    assertEquals(grid.size(), LocationBand.create(grid, site, 1000.0).size());
+    LocationBand band = LocationBand.create(grid, site, 10.0);
+    assertTrue(band.size() < grid.size());
+    assertTrue(band.size() >= grid.indicesWithin(site, 10.0).length);
+  }
+
+  @Test
+  public void supports() {
+    Location site = Location.create(40.0, -112.0);
+    LocationBand band = LocationBand.create(grid, site, 50.0);
+    assertTrue(band.supports(Location.create(40.0, -100.0), 50.0));
+    assertFalse(band.supports(Location.create(40.1, -112.0), 50.0));
+    assertFalse(band.supports(site, 60.0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void filterUnsupported() {
+    LocationBand band = LocationBand.create(grid, Location.create(40.0, -112.0), 50.0);
+    band.filter(Location.create(40.1, -112.0), new int[band.size()], new double[band.size()]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void createDistance() {
+    LocationBand.create(grid, Location.create(40.0, -112.0), 0.0);
+  }
+
+}
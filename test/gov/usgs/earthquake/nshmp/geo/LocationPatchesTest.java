@@ -0,0 +1,210 @@
+package gov.usgs.earthquake.nshmp.geo;
+
+import static gov.usgs.earthquake.nshmp.geo.LocationPatches.PATCH_SIZE;
+import static gov.usgs.earthquake.nshmp.geo.Locations.horzDistanceFast;
+import static gov.usgs.earthquake.nshmp.geo.Locations.vertDistance;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import gov.usgs.earthquake.nshmp.eq.fault.surface.DefaultGriddedSurface;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.GriddedSurface;
+import gov.usgs.earthquake.nshmp.eq.model.Distance;
+
+@SuppressWarnings("javadoc")
+public class LocationPatchesTest {
+
+  private static final LocationList TRACE = LocationList.create(
+      Location.create(40.0, -112.0),
+      Location.create(40.25, -111.9),
+      Location.create(40.6, -111.95));
+
+  private static GriddedSurface dipping;
+  private static GriddedSurface vertical;
+  private static List<Location> sites;
+
+  @BeforeClass
+  public static void setUp() {
+    dipping = surface(35.0);
+    vertical = surface(90.0);
+
+    /* Neither dimension is a multiple of PATCH_SIZE. */
+    for (GriddedSurface surface : new GriddedSurface[] { dipping, vertical }) {
+      assertNotEquals(0, surface.getNumRows() % PATCH_SIZE);
+      assertNotEquals(0, surface.getNumCols() % PATCH_SIZE);
+    }
+
+    sites = new ArrayList<>();
+    sites.add(Location.create(40.25, -111.9));
+    sites.add(Location.create(40.3, -111.8));
+    sites.add(Location.create(40.1, -112.1));
+    sites.add(Location.create(40.65, -111.9));
+    sites.add(Location.create(42.0, -114.0));
+    sites.add(Location.create(38.5, -111.9));
+  }
+
+  private static GriddedSurface surface(double dip) {
+    return DefaultGriddedSurface.builder()
+        .trace(TRACE)
+        .depth(1.0)
+        .dip(dip)
+        .width(20.0)
+        .spacing(1.0)
+        .build();
+  }
+
+  private static LocationPatches patches(GriddedSurface surface) {
+    return LocationPatches.create(
+        LocationList.create(surface).coordinates(),
+        surface.getNumRows(),
+        surface.getNumCols());
+  }
+
+  /* [horizontal, linear²] minima over a window by exhaustive search. */
+  private static double[] bruteMinima(
+      GriddedSurface surface,
+      Location site,
+      int rowStart,
+      int rowCount,
+      int columnStart,
+      int columnCount) {
+
+    double[] minima = { Double.MAX_VALUE, Double.MAX_VALUE };
+    for (int row = rowStart; row < rowStart + rowCount; row++) {
+      for (int column = columnStart; column < columnStart + columnCount; column++) {
+        Location loc = surface.get(row, column);
+        double horz = horzDistanceFast(site, loc);
+        double vert = vertDistance(site, loc);
+        minima[0] = Math.min(minima[0], horz);
+        minima[1] = Math.min(minima[1], horz * horz + vert * vert);
+      }
+    }
+    return minima;
+  }
+
+  private static void checkWindow(
+      GriddedSurface surface,
+      LocationPatches patches,
+      Location site,
+      int rowStart,
+      int rowCount,
+      int columnStart,
+      int columnCount) {
+
+    double[] minima = { Double.MAX_VALUE, Double.MAX_VALUE };
+    patches.minDistances(site, rowStart, rowCount, columnStart, columnCount, minima);
+    assertArrayEquals(
+        bruteMinima(surface, site, rowStart, rowCount, columnStart, columnCount),
+        minima,
+        0.0);
+  }
+
+  @Test
+  public void completeGrid() {
+    for (GriddedSurface surface : new GriddedSurface[] { dipping, vertical }) {
+      LocationPatches patches = patches(surface);
+      int rows = surface.getNumRows();
+      int columns = surface.getNumCols();
+      for (Location site : sites) {
+        checkWindow(surface, patches, site, 0, rows, 0, columns);
+      }
+    }
+  }
+
+  @Test
+  public void patchEdges() {
+    checkPatchEdges(dipping);
+    checkPatchEdges(vertical);
+  }
+
+  private static void checkPatchEdges(GriddedSurface surface) {
+    LocationPatches patches = patches(surface);
+    int rows = surface.getNumRows();
+    int columns = surface.getNumCols();
+    int lastRow = (rows - 1) / PATCH_SIZE * PATCH_SIZE;
+    int lastColumn = (columns - 1) / PATCH_SIZE * PATCH_SIZE;
+    int[][] windows = {
+        /* Straddle one or more patch boundaries */
+        { PATCH_SIZE - 1, 2, PATCH_SIZE - 1, 2 },
+        { 3, PATCH_SIZE, 5, 2 * PATCH_SIZE },
+        { 1, rows - 2, PATCH_SIZE + 1, columns - PATCH_SIZE - 2 },
+        /* Aligned with patch boundaries */
+        { 0, PATCH_SIZE, PATCH_SIZE, PATCH_SIZE },
+        /* Partial patches at the end of the grid */
+        { lastRow, rows - lastRow, lastColumn, columns - lastColumn },
+        { lastRow - 1, rows - lastRow + 1, 0, columns },
+        /* Single rows, columns and locations */
+        { 0, 1, 0, columns },
+        { rows - 1, 1, 3, columns - 3 },
+        { 0, rows, columns - 1, 1 },
+        { PATCH_SIZE, 1, PATCH_SIZE, 1 }
+    };
+    for (Location site : sites) {
+      for (int[] w : windows) {
+        checkWindow(surface, patches, site, w[0], w[1], w[2], w[3]);
+      }
+    }
+  }
+
+  @Test
+  public void randomWindows() {
+    LocationPatches patches = patches(dipping);
+    int rows = dipping.getNumRows();
+    int columns = dipping.getNumCols();
+    Random random = new Random(23L);
+    for (Location site : sites) {
+      for (int k = 0; k < 200; k++) {
+        int rowStart = random.nextInt(rows);
+        int rowCount = 1 + random.nextInt(rows - rowStart);
+        int columnStart = random.nextInt(columns);
+        int columnCount = 1 + random.nextInt(columns - columnStart);
+        checkWindow(dipping, patches, site, rowStart, rowCount, columnStart, columnCount);
+      }
+    }
+  }
+
+  @Test
+  public void emptyWindow() {
+    double[] minima = { 3.0, 9.0 };
+    patches(dipping).minDistances(sites.get(0), 2, 0, 2, 5, minima);
+    patches(dipping).minDistances(sites.get(0), 2, 5, 2, 0, minima);
+    assertArrayEquals(new double[] { 3.0, 9.0 }, minima, 0.0);
+  }
+
+  @Test
+  public void distance() {
+    /* Vertical surfaces (dip > 89) only consider the upper row. */
+    for (GriddedSurface surface : new GriddedSurface[] { dipping, vertical }) {
+      LocationPatches patches = patches(surface);
+      for (Location site : sites) {
+        Distance expected = Distance.compute(surface, site);
+        Distance actual = Distance.compute(surface, patches, 0, 0, site);
+        assertEquals(expected.rJB, actual.rJB, 0.0);
+        assertEquals(expected.rRup, actual.rRup, 0.0);
+        assertEquals(expected.rX, actual.rX, 0.0);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void createDimensions() {
+    LocationPatches.create(
+        LocationList.create(dipping).coordinates(),
+        dipping.getNumRows() + 1,
+        dipping.getNumCols());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void minDistancesWindow() {
+    patches(dipping).minDistances(
+        sites.get(0), 0, dipping.getNumRows() + 1, 0, 1, new double[2]);
+  }
+
+}